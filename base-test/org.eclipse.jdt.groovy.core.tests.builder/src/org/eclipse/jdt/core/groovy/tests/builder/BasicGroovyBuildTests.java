@@ -16,9 +16,12 @@
 package org.eclipse.jdt.core.groovy.tests.builder;
 
 import java.io.File;
+import java.util.Arrays;
 import java.util.Hashtable;
 import java.util.List;
+import java.util.Map;
 import java.util.StringTokenizer;
+import java.util.TreeMap;
 
 import junit.framework.Test;
 
@@ -33,6 +36,7 @@ import org.codehaus.groovy.ast.expr.ConstructorCallExpression;
 import org.codehaus.groovy.ast.expr.Expression;
 import org.codehaus.groovy.ast.stmt.ReturnStatement;
 import org.codehaus.groovy.vmplugin.VMPluginFactory;
+import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyParser;
 import org.codehaus.jdt.groovy.internal.compiler.ast.JDTClassNode;
 import org.codehaus.jdt.groovy.internal.compiler.ast.JDTResolver;
 import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
@@ -2495,6 +2499,74 @@ public final class BasicGroovyBuildTests extends BuilderTests {
         }
     }
 
+    public void testParallelParsingMatchesSerialBuild() throws Exception {
+        IPath projectPath = env.addProject("Project");
+        env.addExternalJars(projectPath, Util.getJavaClassLibs());
+        env.addGroovyJars(projectPath);
+        fullBuild(projectPath);
+
+        env.removePackageFragmentRoot(projectPath, "");
+
+        IPath root = env.addPackageFragmentRoot(projectPath, "src");
+        env.setOutputFolder(projectPath, "bin");
+
+        // enough units for the batch to go to the parse workers
+        int n = GroovyParser.PARSE_THRESHOLD + 2;
+        for (int i = 0; i < n; i += 1) {
+            env.addGroovyClass(root, "p1", "Unit" + i, "package p1\n"
+                    + "class Unit" + i + (i + 1 < n ? " extends Unit" + (i + 1) : "") + " {\n"
+                    + "  String name" + i + "\n"
+                    + "  def m" + i + "(int x) { def c = { x * " + i + " }; c() }\n"
+                    + "}\n");
+        }
+        env.addGroovyClass(root, "p1", "Broken", "package p1\n"
+                + "class Broken {\n"
+                + "  Missing field\n"
+                + "  def m() { new Unit3().name3 }\n"
+                + "}\n");
+
+        int threads = GroovyParser.setParseThreads(1);
+        try {
+            fullBuild(projectPath);
+            Problem[] serialProblems = env.getProblemsFor(projectPath);
+            Map<String, byte[]> serialBytes = readClassFiles(projectPath);
+
+            GroovyParser.setParseThreads(4);
+            fullBuild(projectPath);
+            Problem[] parallelProblems = env.getProblemsFor(projectPath);
+            Map<String, byte[]> parallelBytes = readClassFiles(projectPath);
+
+            Arrays.sort(serialProblems);
+            Arrays.sort(parallelProblems);
+            assertEquals(1, serialProblems.length);
+            assertEquals(Arrays.asList(serialProblems), Arrays.asList(parallelProblems));
+            assertTrue(serialBytes.containsKey("p1/Unit0$_m0_closure1.class"));
+            assertEquals(serialBytes.keySet(), parallelBytes.keySet());
+            for (Map.Entry<String, byte[]> entry : serialBytes.entrySet()) {
+                assertTrue(entry.getKey(), Arrays.equals(entry.getValue(), parallelBytes.get(entry.getKey())));
+            }
+        } finally {
+            GroovyParser.setParseThreads(threads);
+        }
+    }
+
+    private Map<String, byte[]> readClassFiles(IPath projectPath) throws Exception {
+        Map<String, byte[]> classFiles = new TreeMap<String, byte[]>();
+        File outputFolder = env.getWorkspaceRootPath().append(env.getOutputLocation(projectPath)).toFile();
+        readClassFiles(outputFolder, "", classFiles);
+        return classFiles;
+    }
+
+    private static void readClassFiles(File folder, String prefix, Map<String, byte[]> classFiles) throws Exception {
+        for (File file : folder.listFiles()) {
+            if (file.isDirectory()) {
+                readClassFiles(file, prefix + file.getName() + "/", classFiles);
+            } else if (file.getName().endsWith(".class")) {
+                classFiles.put(prefix + file.getName(), org.eclipse.jdt.internal.compiler.util.Util.getFileByteContent(file));
+            }
+        }
+    }
+
     public void testIncrementalCompilationTheBasics() throws Exception {
         IPath projectPath = env.addProject("Project");
         env.addExternalJars(projectPath, Util.getJavaClassLibs());
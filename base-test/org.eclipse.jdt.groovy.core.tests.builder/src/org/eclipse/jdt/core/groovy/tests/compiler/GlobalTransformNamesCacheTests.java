@@ -0,0 +1,157 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.jdt.core.groovy.tests.compiler;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import groovy.lang.GroovyClassLoader;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.codehaus.groovy.control.CompilationUnit;
+import org.codehaus.groovy.transform.ASTTransformationVisitor;
+import org.eclipse.jdt.groovy.core.util.ReflectionUtils;
+
+/**
+ * Tests for the per-loader cache of global transform service entries.
+ */
+public class GlobalTransformNamesCacheTests extends TestCase {
+
+    public GlobalTransformNamesCacheTests(String name) {
+        super(name);
+    }
+
+    public static Test suite() {
+        return new TestSuite(GlobalTransformNamesCacheTests.class);
+    }
+
+    private static final String SERVICE = "META-INF/services/org.codehaus.groovy.transform.ASTTransformation";
+
+    private final List<File> directories = new ArrayList<File>();
+
+    @Override
+    protected void tearDown() throws Exception {
+        for (File directory : directories) {
+            delete(directory);
+        }
+        super.tearDown();
+    }
+
+    public void testFirstScanIsCached() throws Exception {
+        File a = createServiceDirectory("a.ATransform\n");
+        GroovyClassLoader loader = new GroovyClassLoader((ClassLoader) null);
+        loader.addURL(a.toURI().toURL());
+
+        List<Map.Entry<String, URL>> first = getGlobalTransformNames(loader, true);
+        assertEquals("[a.ATransform]", getClassNames(first));
+
+        // the service file is not read again for the same loader
+        writeService(a, "a.ChangedTransform\n");
+        assertSame(first, getGlobalTransformNames(loader, true));
+        // the second scan of a compile is never cached
+        assertEquals("[a.ChangedTransform]", getClassNames(getGlobalTransformNames(loader, false)));
+        assertSame(first, getGlobalTransformNames(loader, true));
+    }
+
+    public void testAddedURLIsScanned() throws Exception {
+        GroovyClassLoader loader = new GroovyClassLoader((ClassLoader) null);
+        loader.addURL(createServiceDirectory("# comment\na.ATransform\n").toURI().toURL());
+        assertEquals("[a.ATransform]", getClassNames(getGlobalTransformNames(loader, true)));
+
+        loader.addURL(createServiceDirectory("b.BTransform\n").toURI().toURL());
+        assertEquals("[a.ATransform, b.BTransform]", getClassNames(getGlobalTransformNames(loader, true)));
+    }
+
+    public void testLoaderIsNotRetained() throws Exception {
+        int sizeBefore = getCacheSize();
+        WeakReference<GroovyClassLoader> reference = scanWithNewLoader();
+        assertEquals(sizeBefore + 1, getCacheSize());
+
+        for (int i = 0; i < 50 && reference.get() != null; i += 1) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertNull("the cache keeps the transform loader alive", reference.get());
+        assertTrue(getCacheSize() <= sizeBefore);
+    }
+
+    //--------------------------------------------------------------------------
+
+    private WeakReference<GroovyClassLoader> scanWithNewLoader() throws Exception {
+        GroovyClassLoader loader = new GroovyClassLoader((ClassLoader) null);
+        loader.addURL(createServiceDirectory("c.CTransform\n").toURI().toURL());
+        assertEquals("[c.CTransform]", getClassNames(getGlobalTransformNames(loader, true)));
+        return new WeakReference<GroovyClassLoader>(loader);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map.Entry<String, URL>> getGlobalTransformNames(GroovyClassLoader loader, boolean isFirstScan) throws Exception {
+        return (List<Map.Entry<String, URL>>) ReflectionUtils.throwableExecutePrivateMethod(ASTTransformationVisitor.class,
+            "getGlobalTransformNames", new Class[] { CompilationUnit.class, GroovyClassLoader.class, boolean.class }, null,
+            new Object[] { new CompilationUnit(), loader, isFirstScan });
+    }
+
+    private static int getCacheSize() throws Exception {
+        Map<?, ?> cache = (Map<?, ?>) ReflectionUtils.throwableGetPrivateField(ASTTransformationVisitor.class, "globalTransformNamesCache", null);
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    private static String getClassNames(List<Map.Entry<String, URL>> names) {
+        List<String> classNames = new ArrayList<String>();
+        for (Map.Entry<String, URL> name : names) {
+            classNames.add(name.getKey());
+        }
+        return classNames.toString();
+    }
+
+    private File createServiceDirectory(String contents) throws IOException {
+        File directory = File.createTempFile("transforms", "");
+        directory.delete();
+        new File(directory, SERVICE).getParentFile().mkdirs();
+        directories.add(directory);
+        writeService(directory, contents);
+        return directory;
+    }
+
+    private static void writeService(File directory, String contents) throws IOException {
+        FileOutputStream out = new FileOutputStream(new File(directory, SERVICE));
+        try {
+            out.write(contents.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.jdt.core.groovy.tests.compiler;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyBuildState;
+
+/**
+ * Tests for saving and loading the per-project Groovy build state.
+ */
+public class GroovyBuildStateTests extends TestCase {
+
+    public GroovyBuildStateTests(String name) {
+        super(name);
+    }
+
+    public static Test suite() {
+        return new TestSuite(GroovyBuildStateTests.class);
+    }
+
+    private File file;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        file = File.createTempFile("groovy", ".state");
+        file.delete();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        file.delete();
+        new File(file.getPath() + ".tmp").delete();
+        super.tearDown();
+    }
+
+    public void testRoundTrip() throws Exception {
+        GroovyBuildState state = createState();
+        state.write(file);
+
+        GroovyBuildState read = GroovyBuildState.read(file);
+        assertNotNull(read);
+        assertEquals(state.classpathIdentity, read.classpathIdentity);
+        // lookup order matters for transforms, so it must survive as well
+        assertEquals(new ArrayList<String>(state.transformServices.keySet()), new ArrayList<String>(read.transformServices.keySet()));
+        for (Map.Entry<String, byte[]> service : state.transformServices.entrySet()) {
+            assertTrue(service.getKey(), Arrays.equals(service.getValue(), read.transformServices.get(service.getKey())));
+        }
+    }
+
+    public void testEmptyState() throws Exception {
+        new GroovyBuildState("", new LinkedHashMap<String, byte[]>()).write(file);
+
+        GroovyBuildState read = GroovyBuildState.read(file);
+        assertNotNull(read);
+        assertEquals("", read.classpathIdentity);
+        assertTrue(read.transformServices.isEmpty());
+    }
+
+    public void testRewriteAfterRead() throws Exception {
+        createState().write(file);
+        assertNotNull(GroovyBuildState.read(file));
+
+        // reading must not hold on to the file, or it could not be replaced on Windows
+        Map<String, byte[]> services = new LinkedHashMap<String, byte[]>();
+        services.put("jar:file:/c.jar!/META-INF/services/org.codehaus.groovy.transform.ASTTransformation", "c.CTransform".getBytes("UTF-8"));
+        new GroovyBuildState("c.jar|3|3;", services).write(file);
+        assertEquals("c.jar|3|3;", GroovyBuildState.read(file).classpathIdentity);
+        assertTrue(file.delete());
+    }
+
+    public void testMissingFile() throws Exception {
+        assertNull(GroovyBuildState.read(file));
+        assertNull(GroovyBuildState.read(null));
+    }
+
+    public void testVersionMismatch() throws Exception {
+        createState().write(file);
+        byte[] bytes = readFile();
+        bytes[7] += 1; // the version follows the 4-byte magic number
+        writeFile(bytes);
+
+        assertNull(GroovyBuildState.read(file));
+    }
+
+    public void testNotAStateFile() throws Exception {
+        writeFile("org.example.SomeTransform\n".getBytes("UTF-8"));
+
+        assertNull(GroovyBuildState.read(file));
+    }
+
+    public void testTruncatedFile() throws Exception {
+        createState().write(file);
+        byte[] bytes = readFile();
+        for (int length : new int[] { 0, 3, 8, 12, bytes.length / 2, bytes.length - 1 }) {
+            writeFile(copyOf(bytes, length));
+            assertNull("truncated to " + length, GroovyBuildState.read(file));
+        }
+    }
+
+    public void testTrailingGarbage() throws Exception {
+        createState().write(file);
+        byte[] bytes = readFile();
+        writeFile(copyOf(bytes, bytes.length + 4));
+
+        assertNull(GroovyBuildState.read(file));
+    }
+
+    public void testDamagedLength() throws Exception {
+        createState().write(file);
+        byte[] bytes = readFile();
+        // length of the classpath identity, right after magic and version
+        bytes[8] = 0x7F;
+        bytes[9] = (byte) 0xFF;
+        writeFile(bytes);
+
+        assertNull(GroovyBuildState.read(file));
+    }
+
+    //--------------------------------------------------------------------------
+
+    private static GroovyBuildState createState() throws IOException {
+        Map<String, byte[]> services = new LinkedHashMap<String, byte[]>();
+        services.put("jar:file:/b.jar!/META-INF/services/org.codehaus.groovy.transform.ASTTransformation",
+            "# comment\nb.BTransform\n".getBytes("UTF-8"));
+        services.put("jar:file:/a.jar!/META-INF/services/org.codehaus.groovy.transform.ASTTransformation",
+            "a.ATransform\na.\u00C4Transform\n".getBytes("UTF-8"));
+        return new GroovyBuildState("b.jar|1|1;a.jar|2|2;", services);
+    }
+
+    private static byte[] copyOf(byte[] bytes, int length) {
+        byte[] copy = new byte[length];
+        System.arraycopy(bytes, 0, copy, 0, Math.min(length, bytes.length));
+        return copy;
+    }
+
+    private byte[] readFile() throws IOException {
+        byte[] bytes = new byte[(int) file.length()];
+        FileInputStream in = new FileInputStream(file);
+        try {
+            int offset = 0;
+            for (int n; offset < bytes.length && (n = in.read(bytes, offset, bytes.length - offset)) != -1;) {
+                offset += n;
+            }
+        } finally {
+            in.close();
+        }
+        return bytes;
+    }
+
+    private void writeFile(byte[] bytes) throws IOException {
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(bytes);
+        } finally {
+            out.close();
+        }
+    }
+}
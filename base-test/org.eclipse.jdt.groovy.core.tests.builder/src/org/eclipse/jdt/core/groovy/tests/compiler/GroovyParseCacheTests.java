@@ -0,0 +1,160 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.jdt.core.groovy.tests.compiler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.codehaus.groovy.ast.ModuleNode;
+import org.codehaus.groovy.control.Phases;
+import org.codehaus.jdt.groovy.control.EclipseSourceUnit;
+import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyCompilationUnitDeclaration;
+import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyParseCache;
+import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyParser;
+import org.eclipse.jdt.internal.compiler.CompilationResult;
+import org.eclipse.jdt.internal.compiler.DefaultErrorHandlingPolicies;
+import org.eclipse.jdt.internal.compiler.batch.CompilationUnit;
+import org.eclipse.jdt.internal.compiler.env.ICompilationUnit;
+import org.eclipse.jdt.internal.compiler.impl.CompilerOptions;
+import org.eclipse.jdt.internal.compiler.problem.DefaultProblemFactory;
+import org.eclipse.jdt.internal.compiler.problem.ProblemReporter;
+
+/**
+ * Tests the sharing of converted source units between parsers that opt in to the parse cache.
+ */
+public class GroovyParseCacheTests extends TestCase {
+
+    public GroovyParseCacheTests(String name) {
+        super(name);
+    }
+
+    public static Test suite() {
+        return new TestSuite(GroovyParseCacheTests.class);
+    }
+
+    private static final String CONTENTS = "package p\nclass Shared {\n  String name\n  def m(int x) { [x, name].collect { it } }\n}\n";
+
+    private static ICompilationUnit createUnit(String contents) {
+        return new CompilationUnit(contents.toCharArray(), "p/Shared.groovy", null);
+    }
+
+    private static GroovyCompilationUnitDeclaration parse(ICompilationUnit unit, boolean useParseCache) {
+        CompilerOptions options = new CompilerOptions();
+        ProblemReporter problemReporter = new ProblemReporter(DefaultErrorHandlingPolicies.proceedWithAllProblems(), options,
+                new DefaultProblemFactory());
+        GroovyParser parser = new GroovyParser(options, problemReporter, false, true);
+        parser.setParseCacheEnabled(useParseCache);
+        return (GroovyCompilationUnitDeclaration) parser.dietParse(unit, new CompilationResult(unit, 0, 0, 100));
+    }
+
+    public void testParsersShareModule() {
+        ICompilationUnit unit = createUnit(CONTENTS);
+        ModuleNode first = parse(unit, true).getModuleNode();
+        assertNotNull(first);
+        assertSame(first, parse(createUnit(CONTENTS), true).getModuleNode());
+    }
+
+    public void testEditedContentsMiss() {
+        ModuleNode first = parse(createUnit(CONTENTS), true).getModuleNode();
+        ModuleNode edited = parse(createUnit(CONTENTS.replace("name", "label")), true).getModuleNode();
+        assertNotSame(first, edited);
+        assertEquals("label", edited.getClasses().get(0).getProperties().get(0).getName());
+    }
+
+    public void testParsersThatOptOutDoNotShare() {
+        ModuleNode shared = parse(createUnit(CONTENTS), true).getModuleNode();
+        assertNotSame(shared, parse(createUnit(CONTENTS), false).getModuleNode());
+        assertNotSame(parse(createUnit(CONTENTS), false).getModuleNode(), parse(createUnit(CONTENTS), false).getModuleNode());
+    }
+
+    public void testSharedModuleIsReadConcurrently() throws Exception {
+        final ModuleNode expected = parse(createUnit(CONTENTS), true).getModuleNode();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<GroovyCompilationUnitDeclaration>> futures = new ArrayList<Future<GroovyCompilationUnitDeclaration>>();
+            for (int i = 0; i < 16; i += 1) {
+                futures.add(pool.submit(new Callable<GroovyCompilationUnitDeclaration>() {
+                    public GroovyCompilationUnitDeclaration call() {
+                        return parse(createUnit(CONTENTS), true);
+                    }
+                }));
+            }
+            for (Future<GroovyCompilationUnitDeclaration> future : futures) {
+                GroovyCompilationUnitDeclaration declaration = future.get();
+                assertSame(expected, declaration.getModuleNode());
+                assertEquals(1, declaration.types.length);
+                assertEquals("Shared", String.valueOf(declaration.types[0].name));
+            }
+        } finally {
+            pool.shutdown();
+        }
+        // reading the declarations did not add to the shared module
+        assertEquals(1, expected.getClasses().size());
+        assertEquals(1, expected.getClasses().get(0).getProperties().size());
+    }
+
+    public void testSharedUnitIsNotProcessedBeyondConversion() {
+        GroovyCompilationUnitDeclaration declaration = parse(createUnit(CONTENTS), true);
+        assertSame(declaration.getModuleNode(), parse(createUnit(CONTENTS), true).getModuleNode());
+        try {
+            declaration.processToPhase(Phases.SEMANTIC_ANALYSIS);
+            fail("Shared source unit should not be resolved");
+        } catch (IllegalStateException expected) {
+            // shared module nodes are read-only
+        }
+    }
+
+    public void testWeightGrowsWithModule() {
+        int small = GroovyParseCache.weigh(parse(createUnit("class A {}"), false).getModuleNode());
+        int large = GroovyParseCache.weigh(parse(createUnit(CONTENTS), false).getModuleNode());
+        assertTrue(small > 0);
+        assertTrue(large > small);
+    }
+
+    public void testLeastRecentlyUsedEntriesAreEvicted() {
+        EclipseSourceUnit a = (EclipseSourceUnit) parse(createUnit("class A {}"), false).getSourceUnit();
+        GroovyParseCache cache = new GroovyParseCache(10);
+        cache.put("a", "P", a, 4);
+        cache.put("b", "P", a, 4);
+        assertSame(a, cache.get("a")); // "b" is now the eldest
+        cache.put("c", "Q", a, 4);
+        assertEquals(2, cache.size());
+        assertNull(cache.get("b"));
+        assertSame(a, cache.get("a"));
+        assertSame(a, cache.get("c"));
+
+        cache.put("d", "P", a, 11); // heavier than the whole cache
+        assertNull(cache.get("d"));
+        assertEquals(2, cache.size());
+
+        cache.evict("P");
+        assertNull(cache.get("a"));
+        assertSame(a, cache.get("c"));
+        assertEquals(1, cache.size());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertFalse(new GroovyParseCache(0).isEnabled());
+    }
+}
@@ -0,0 +1,358 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.jdt.core.groovy.tests.compiler;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.codehaus.groovy.ast.ASTNode;
+import org.codehaus.groovy.ast.ClassCodeVisitorSupport;
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.Comment;
+import org.codehaus.groovy.ast.FieldNode;
+import org.codehaus.groovy.ast.MethodNode;
+import org.codehaus.groovy.ast.ModuleNode;
+import org.codehaus.groovy.ast.Parameter;
+import org.codehaus.groovy.ast.PropertyNode;
+import org.codehaus.groovy.ast.expr.BinaryExpression;
+import org.codehaus.groovy.ast.expr.ClosureExpression;
+import org.codehaus.groovy.ast.expr.ConstantExpression;
+import org.codehaus.groovy.ast.expr.ConstructorCallExpression;
+import org.codehaus.groovy.ast.expr.DeclarationExpression;
+import org.codehaus.groovy.ast.expr.MethodCallExpression;
+import org.codehaus.groovy.ast.expr.VariableExpression;
+import org.codehaus.groovy.ast.stmt.Statement;
+import org.codehaus.groovy.control.SourceUnit;
+import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyCompilationUnitDeclaration;
+import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyParser;
+import org.eclipse.jdt.groovy.core.util.ReflectionUtils;
+import org.eclipse.jdt.internal.compiler.CompilationResult;
+import org.eclipse.jdt.internal.compiler.DefaultErrorHandlingPolicies;
+import org.eclipse.jdt.internal.compiler.batch.CompilationUnit;
+import org.eclipse.jdt.internal.compiler.env.ICompilationUnit;
+import org.eclipse.jdt.internal.compiler.impl.CompilerOptions;
+import org.eclipse.jdt.internal.compiler.problem.DefaultProblemFactory;
+import org.eclipse.jdt.internal.compiler.problem.ProblemReporter;
+
+/**
+ * Compares reconciles that re-parse only the edited member with full parses of the same source.
+ */
+public class IncrementalReconcileTests extends TestCase {
+
+    public IncrementalReconcileTests(String name) {
+        super(name);
+    }
+
+    public static Test suite() {
+        return new TestSuite(IncrementalReconcileTests.class);
+    }
+
+    private static final String PLUGIN = "org.codehaus.jdt.groovy.internal.compiler.ast.IncrementalParserPlugin";
+
+    private static final String CONTENTS =
+        "package p\n" +
+        "import java.util.List\n" +
+        "/** A type */\n" +
+        "class A {\n" +
+        "  String name = 'x'\n" +
+        "  int count\n" +
+        "  // the interesting one\n" +
+        "  def foo(int x) {\n" +
+        "    def y = x + 1\n" +
+        "    return y * 2\n" +
+        "  }\n" +
+        "  A(String n) { name = n }\n" +
+        "  /* after foo */\n" +
+        "  def bar() { foo(1) }\n" +
+        "}\n";
+
+    private Class<?> plugin;
+    private Object maxEntries;
+    private int fileCount;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        plugin = Class.forName(PLUGIN);
+        maxEntries = ReflectionUtils.getPrivateField(plugin, "MAX_ENTRIES", null);
+        ReflectionUtils.setPrivateField(plugin, "MAX_ENTRIES", null, 10);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        ReflectionUtils.setPrivateField(plugin, "MAX_ENTRIES", null, maxEntries);
+        ReflectionUtils.executeNoArgPrivateMethod(plugin, "clearCache", null);
+        super.tearDown();
+    }
+
+    public void testBodyEdit() {
+        assertIncremental(CONTENTS, CONTENTS.replace("x + 1", "x + 100 + count"));
+    }
+
+    public void testBodyEditThatRemovesLines() {
+        assertIncremental(CONTENTS, CONTENTS.replace("    def y = x + 1\n    return y * 2\n", "    x\n"));
+    }
+
+    public void testConstructorBodyEdit() {
+        assertIncremental(CONTENTS, CONTENTS.replace("name = n }", "name = n; count = n.length() }"));
+    }
+
+    public void testFieldInitializerEdit() {
+        assertIncremental(CONTENTS, CONTENTS.replace("String name = 'x'", "String name = 'xyz' + 'abc'"));
+    }
+
+    public void testSignatureEdit() {
+        assertIncremental(CONTENTS, CONTENTS.replace("def foo(int x)", "def foo(int x, String z = null)"));
+    }
+
+    public void testReturnTypeEdit() {
+        assertIncremental(CONTENTS, CONTENTS.replace("def bar()", "def Object bar()"));
+    }
+
+    public void testMethodBecomesField() {
+        assertFullParse(CONTENTS, CONTENTS.replace("def bar() { foo(1) }", "def bar = { foo(1) }"));
+    }
+
+    public void testFieldBecomesMethod() {
+        assertFullParse(CONTENTS, CONTENTS.replace("int count\n", "int count() { 1 }\n"));
+    }
+
+    public void testEditOutsideMembers() {
+        assertFullParse(CONTENTS, CONTENTS.replace("import java.util.List", "import java.util.Map"));
+    }
+
+    public void testNewMember() {
+        assertFullParse(CONTENTS, CONTENTS.replace("  /* after foo */\n", "  /* after foo */\n  def baz() { }\n"));
+    }
+
+    public void testSyntaxError() {
+        assertFullParse(CONTENTS, CONTENTS.replace("x + 1", "x + "));
+    }
+
+    public void testSuccessiveEdits() {
+        String edit1 = CONTENTS.replace("x + 1", "x + 2");
+        String edit2 = edit1.replace("foo(1)", "foo(count)");
+        String edit3 = edit2.replace("y * 2", "y * 3 * count");
+        String name = nextFileName();
+        reconcile(name, CONTENTS);
+        for (String edit : new String[] {edit1, edit2, edit3}) {
+            int before = getIncrementalParses();
+            String incremental = reconcile(name, edit);
+            assertEquals(before + 1, getIncrementalParses());
+            assertEquals(reconcile(nextFileName(), edit), incremental);
+        }
+    }
+
+    public void testConstructorCallsAfterSuccessiveEdits() {
+        String contents = CONTENTS.replace("  A(String n) { name = n }\n",
+            "  A(String n) { name = n }\n  A() { this('y') }\n") +
+            "class B extends A {\n" +
+            "  B() { super('b') }\n" +
+            "}\n";
+        String name = nextFileName();
+        reconcile(name, contents);
+        // conversion moves the start of this(...) and super(...) calls to the keyword; the calls that are not edited must not move again
+        String edit = contents;
+        for (int i = 2; i <= 5; i += 1) {
+            edit = edit.replace("x + " + (i - 1), "x + " + i);
+            int before = getIncrementalParses();
+            String incremental = reconcile(name, edit);
+            assertEquals(before + 1, getIncrementalParses());
+            assertEquals(reconcile(nextFileName(), edit), incremental);
+        }
+    }
+
+    public void testOtherParsersLeaveCacheAlone() {
+        String name = nextFileName();
+        reconcile(name, CONTENTS);
+        // parsers that are not reconciling an editor, like the indexer's, neither use nor fill the cache
+        for (int i = 0; i < 20; i += 1) {
+            parse(nextFileName(), CONTENTS, false);
+        }
+        int count = getIncrementalParses();
+        String edited = CONTENTS.replace("x + 1", "x + 3");
+        assertEquals(parse(nextFileName(), edited, false), parse(name, edited, false));
+        assertEquals(count, getIncrementalParses());
+
+        String incremental = reconcile(name, edited.replace("x + 3", "x + 4"));
+        assertEquals(count + 1, getIncrementalParses());
+        assertEquals(reconcile(nextFileName(), edited.replace("x + 3", "x + 4")), incremental);
+    }
+
+    //--------------------------------------------------------------------------
+
+    private void assertIncremental(String before, String after) {
+        assertNotSame(before, after);
+        String name = nextFileName();
+        reconcile(name, before);
+        int count = getIncrementalParses();
+        String incremental = reconcile(name, after);
+        assertEquals("member should have been parsed by itself", count + 1, getIncrementalParses());
+        assertEquals(reconcile(nextFileName(), after), incremental);
+    }
+
+    private void assertFullParse(String before, String after) {
+        assertNotSame(before, after);
+        String name = nextFileName();
+        reconcile(name, before);
+        int count = getIncrementalParses();
+        String reconciled = reconcile(name, after);
+        assertEquals("edit should have been given to the full parser", count, getIncrementalParses());
+        assertEquals(reconcile(nextFileName(), after), reconciled);
+    }
+
+    private int getIncrementalParses() {
+        return (Integer) ReflectionUtils.executeNoArgPrivateMethod(plugin, "getIncrementalParseCount", null);
+    }
+
+    private String nextFileName() {
+        return "p" + (++fileCount) + "/A.groovy";
+    }
+
+    /**
+     * Parses the source as a reconcile would and describes the resulting module.
+     */
+    private static String reconcile(String fileName, String contents) {
+        return parse(fileName, contents, true);
+    }
+
+    private static String parse(String fileName, String contents, boolean incrementalReparse) {
+        ICompilationUnit unit = new CompilationUnit(contents.toCharArray(), fileName, null);
+        CompilerOptions options = new CompilerOptions();
+        ProblemReporter problemReporter = new ProblemReporter(DefaultErrorHandlingPolicies.proceedWithAllProblems(), options,
+                new DefaultProblemFactory());
+        GroovyParser parser = new GroovyParser(options, problemReporter, false, true);
+        parser.setIncrementalReparseEnabled(incrementalReparse);
+        CompilationResult result = new CompilationResult(unit, 0, 0, 100);
+        GroovyCompilationUnitDeclaration declaration = (GroovyCompilationUnitDeclaration) parser.dietParse(unit, result);
+        StringBuilder sb = new StringBuilder();
+        sb.append(result.problemCount).append(" problems\n");
+        ModuleNode module = declaration.getModuleNode();
+        if (module != null) {
+            new ModuleDescriber(sb).describe(module);
+        }
+        if (declaration.getSourceUnit().getComments() != null) {
+            for (Comment comment : declaration.getSourceUnit().getComments()) {
+                sb.append("comment ").append(comment.sline).append(':').append(comment.scol).append('-')
+                    .append(comment.eline).append(':').append(comment.ecol).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    private static class ModuleDescriber extends ClassCodeVisitorSupport {
+        private final StringBuilder sb;
+
+        ModuleDescriber(StringBuilder sb) {
+            this.sb = sb;
+        }
+
+        void describe(ModuleNode module) {
+            for (ClassNode classNode : module.getClasses()) {
+                visitClass(classNode);
+            }
+        }
+
+        private void describe(String kind, String text, ASTNode node) {
+            sb.append(kind).append(' ').append(text).append(" @").append(node.getLineNumber()).append(':')
+                .append(node.getColumnNumber()).append('-').append(node.getLastLineNumber()).append(':')
+                .append(node.getLastColumnNumber()).append(' ').append(node.getStart()).append('-').append(node.getEnd()).append('\n');
+        }
+
+        @Override
+        protected SourceUnit getSourceUnit() {
+            return null;
+        }
+
+        @Override
+        public void visitClass(ClassNode node) {
+            describe("class", node.getName(), node);
+            super.visitClass(node);
+        }
+
+        @Override
+        protected void visitConstructorOrMethod(MethodNode node, boolean isConstructor) {
+            StringBuilder signature = new StringBuilder(node.getReturnType().getName()).append(' ').append(node.getName()).append('(');
+            for (Parameter parameter : node.getParameters()) {
+                signature.append(parameter.getType().getName()).append(' ').append(parameter.getName())
+                    .append(parameter.hasInitialExpression() ? "=" : "").append(',');
+            }
+            describe(isConstructor ? "constructor" : "method", signature.append(')').toString(), node);
+            super.visitConstructorOrMethod(node, isConstructor);
+        }
+
+        @Override
+        public void visitField(FieldNode node) {
+            describe("field", node.getType().getName() + ' ' + node.getName(), node);
+            super.visitField(node);
+        }
+
+        @Override
+        public void visitProperty(PropertyNode node) {
+            describe("property", node.getType().getName() + ' ' + node.getName(), node);
+            super.visitProperty(node);
+        }
+
+        @Override
+        protected void visitStatement(Statement statement) {
+            describe("statement", statement.getClass().getSimpleName(), statement);
+        }
+
+        @Override
+        public void visitBinaryExpression(BinaryExpression expression) {
+            describe("binary", expression.getOperation().getText(), expression);
+            super.visitBinaryExpression(expression);
+        }
+
+        @Override
+        public void visitClosureExpression(ClosureExpression expression) {
+            describe("closure", "", expression);
+            super.visitClosureExpression(expression);
+        }
+
+        @Override
+        public void visitConstantExpression(ConstantExpression expression) {
+            describe("constant", expression.getText(), expression);
+            super.visitConstantExpression(expression);
+        }
+
+        @Override
+        public void visitConstructorCallExpression(ConstructorCallExpression expression) {
+            describe("constructor call", expression.getType().getName(), expression);
+            sb.append("  name ").append(expression.getNameStart()).append('-').append(expression.getNameEnd()).append('\n');
+            super.visitConstructorCallExpression(expression);
+        }
+
+        @Override
+        public void visitDeclarationExpression(DeclarationExpression expression) {
+            describe("declaration", expression.getText(), expression);
+            super.visitDeclarationExpression(expression);
+        }
+
+        @Override
+        public void visitMethodCallExpression(MethodCallExpression expression) {
+            describe("call", expression.getMethodAsString(), expression);
+            super.visitMethodCallExpression(expression);
+        }
+
+        @Override
+        public void visitVariableExpression(VariableExpression expression) {
+            describe("variable", expression.getName(), expression);
+            super.visitVariableExpression(expression);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.jdt.core.groovy.tests.compiler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.groovy.core.util.ReflectionUtils;
+import org.eclipse.jdt.internal.compiler.Compiler;
+import org.eclipse.jdt.internal.compiler.batch.CompilationUnit;
+import org.eclipse.jdt.internal.compiler.env.ICompilationUnit;
+
+/**
+ * Tests for the order in which the compiler processes a mixed batch of Java and Groovy units.
+ */
+public class SourceUnitOrderTests extends TestCase {
+
+    public SourceUnitOrderTests(String name) {
+        super(name);
+    }
+
+    public static Test suite() {
+        return new TestSuite(SourceUnitOrderTests.class);
+    }
+
+    public void testJavaFirst() throws Exception {
+        assertOrder(
+            new String[] { "p/A.groovy", "p/B.java", "p/C.groovy", "p/D.java" },
+            new String[] { "p/B.java", "p/D.java", "p/A.groovy", "p/C.groovy" });
+    }
+
+    public void testGroovyGroupedByFolder() throws Exception {
+        assertOrder(
+            new String[] { "q/A.groovy", "p/B.groovy", "Top.groovy", "q/C.groovy", "p/D.groovy", "Script.groovy" },
+            new String[] { "q/A.groovy", "q/C.groovy", "p/B.groovy", "p/D.groovy", "Top.groovy", "Script.groovy" });
+    }
+
+    public void testWindowsSeparators() throws Exception {
+        assertOrder(
+            new String[] { "src\\p\\A.groovy", "src\\q\\B.groovy", "src\\p\\C.groovy", "src\\q\\D.java" },
+            new String[] { "src\\q\\D.java", "src\\p\\A.groovy", "src\\p\\C.groovy", "src\\q\\B.groovy" });
+    }
+
+    public void testOnlyJava() throws Exception {
+        assertOrder(
+            new String[] { "q/B.java", "p/A.java", "q/C.java" },
+            new String[] { "q/B.java", "p/A.java", "q/C.java" });
+    }
+
+    public void testOrderIsStable() throws Exception {
+        List<String> names = new ArrayList<String>();
+        for (int i = 0; i < 60; i += 1) {
+            names.add("p" + (i % 4) + "/U" + i + (i % 3 == 0 ? ".java" : ".groovy"));
+        }
+        Collections.shuffle(names, new Random(42));
+
+        String[] once = order(names.toArray(new String[names.size()]));
+        // units keep their relative order within each group
+        String lastJava = null;
+        List<String> groovyFolders = new ArrayList<String>();
+        for (int i = 0; i < once.length; i += 1) {
+            if (once[i].endsWith(".java")) {
+                assertTrue("Java unit after a Groovy unit at " + i, groovyFolders.isEmpty());
+                assertTrue(lastJava == null || names.indexOf(lastJava) < names.indexOf(once[i]));
+                lastJava = once[i];
+            } else {
+                String folder = once[i].substring(0, once[i].indexOf('/'));
+                if (groovyFolders.isEmpty() || !groovyFolders.get(groovyFolders.size() - 1).equals(folder)) {
+                    assertFalse("folder " + folder + " is split", groovyFolders.contains(folder));
+                    groovyFolders.add(folder);
+                } else {
+                    assertTrue(names.indexOf(once[i - 1]) < names.indexOf(once[i]));
+                }
+            }
+        }
+        assertEquals(4, groovyFolders.size());
+
+        // ordering an ordered batch again changes nothing
+        assertOrder(once, once);
+    }
+
+    //--------------------------------------------------------------------------
+
+    private static void assertOrder(String[] fileNames, String[] expected) throws Exception {
+        assertEquals(toString(expected), toString(order(fileNames)));
+    }
+
+    private static String[] order(String[] fileNames) throws Exception {
+        ICompilationUnit[] units = new ICompilationUnit[fileNames.length];
+        for (int i = 0; i < fileNames.length; i += 1) {
+            units[i] = new CompilationUnit(new char[0], fileNames[i], null);
+        }
+        ReflectionUtils.throwableExecutePrivateMethod(Compiler.class, "orderSourceUnits", new Class[] { ICompilationUnit[].class },
+            null, new Object[] { units });
+
+        String[] ordered = new String[units.length];
+        for (int i = 0; i < units.length; i += 1) {
+            ordered[i] = new String(units[i].getFileName());
+        }
+        return ordered;
+    }
+
+    private static String toString(String[] fileNames) {
+        StringBuilder sb = new StringBuilder();
+        for (String fileName : fileNames) {
+            sb.append(fileName).append('\n');
+        }
+        return sb.toString();
+    }
+}
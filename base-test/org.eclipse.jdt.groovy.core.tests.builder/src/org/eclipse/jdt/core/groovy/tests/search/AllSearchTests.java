@@ -28,6 +28,7 @@ public class AllSearchTests {
         suite.addTestSuite(BinarySearchTests.class);
         suite.addTestSuite(CategorySearchTests.class);
         suite.addTestSuite(DeclarationInferencingTests.class);
+        suite.addTestSuite(DefaultCategoryIndexTests.class);
         suite.addTestSuite(DGMInferencingTests.class);
         suite.addTestSuite(FieldReferenceSearchTests.class);
         suite.addTestSuite(GenericInferencingTests.class);
@@ -39,9 +40,16 @@ public class AllSearchTests {
         suite.addTestSuite(LocalVariableReferenceSearchTests.class);
         suite.addTestSuite(MethodReferenceSearchTests.class);
         suite.addTestSuite(OperatorOverloadingInferencingTests.class);
+        suite.addTestSuite(ParallelIndexingTests.class);
+        suite.addTestSuite(ParallelSearchTests.class);
+        suite.addTestSuite(ReferenceNameFilterTests.class);
         suite.addTestSuite(StaticInferencingTests.class);
         suite.addTestSuite(SyntheticAccessorInferencingTests.class);
+        suite.addTestSuite(TypeHierarchyCacheTests.class);
+        suite.addTestSuite(TypeLookupResultStoreTests.class);
+        suite.addTestSuite(TypeLookupStatisticsTests.class);
         suite.addTestSuite(TypeReferenceSearchTests.class);
+        suite.addTestSuite(VariableScopeTests.class);
         return suite;
     }
 }
@@ -15,9 +15,21 @@
  */
 package org.eclipse.jdt.core.groovy.tests.search;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
 import junit.framework.Test;
 
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.FileLocator;
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.jdt.core.IField;
@@ -33,6 +45,7 @@ import org.eclipse.jdt.core.search.SearchEngine;
 import org.eclipse.jdt.core.search.SearchMatch;
 import org.eclipse.jdt.core.search.SearchParticipant;
 import org.eclipse.jdt.core.search.SearchPattern;
+import org.eclipse.jdt.core.tests.util.Util;
 import org.eclipse.jdt.internal.core.BinaryMember;
 import org.eclipse.jdt.internal.core.JavaModelManager;
 
@@ -214,4 +227,84 @@ public class BinarySearchTests extends AbstractGroovySearchTest {
         MockSearchRequestor requestor = performSearch(method);
         assertMatches(toFind, requestor, 2, 1);
     }
+
+    public void testMethodWithDefaultArguments() throws Exception {
+        // the class file declares m(a) and m(a,b), and the calls of m are indexed for their arity and for any arity
+        String contents =
+            "package lib\n" +
+            "class Defaults {\n" +
+            "  def m(a, b = 1) { }\n" +
+            "  def caller() {\n" +
+            "    m(1)\n" +
+            "    m(1, 2)\n" +
+            "    def aClosure = { m(3, 4) }\n" +
+            "  }\n" +
+            "}\n";
+        addLibrary("Lib", "lib", "Defaults", contents);
+
+        IType type = javaProject.findType("lib.Defaults");
+        IMethod method = type.getMethod("m", new String[] {"Ljava.lang.Object;", "Ljava.lang.Object;"});
+        MockSearchRequestor requestor = performSearch(method);
+
+        Set<Integer> offsets = new HashSet<Integer>();
+        for (SearchMatch match : requestor.matches) {
+            assertTrue("Duplicate match\n" + requestor.printMatches(), offsets.add(match.getOffset()));
+            assertEquals("Invalid match\n" + requestor.printMatches(), "m", contents.substring(match.getOffset(), match.getOffset() + match.getLength()));
+        }
+        assertTrue("Expecting a match of m(1, 2)\n" + requestor.printMatches(), offsets.contains(contents.indexOf("m(1, 2)")));
+        assertTrue("Expecting a match of m(3, 4)\n" + requestor.printMatches(), offsets.contains(contents.indexOf("m(3, 4)")));
+    }
+
+    //--------------------------------------------------------------------------
+
+    /**
+     * Compiles a groovy class in a project of its own and adds its class files to the search project as a jar, which is
+     * also its source attachment.
+     */
+    private void addLibrary(String projectName, String packageName, String className, String contents) throws Exception {
+        IPath libPath = env.addProject(projectName);
+        env.addGroovyNature(projectName);
+        env.addExternalJars(libPath, Util.getJavaClassLibs());
+        env.addGroovyJars(libPath);
+        env.removePackageFragmentRoot(libPath, "");
+        IPath srcPath = env.addPackageFragmentRoot(libPath, "src");
+        env.setOutputFolder(libPath, "bin");
+        env.addGroovyClass(srcPath, packageName, className, contents);
+        fullBuild(libPath);
+        expectingNoProblemsFor(libPath);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ZipOutputStream jar = new ZipOutputStream(bytes);
+        try {
+            IContainer lib = env.getProject(projectName);
+            addToJar(jar, lib.getFolder(new Path("bin")), "");
+            addToJar(jar, lib.getFolder(new Path("src")), "");
+        } finally {
+            jar.close();
+        }
+        IFile jarFile = project.getFile(projectName.toLowerCase() + ".jar");
+        jarFile.create(new ByteArrayInputStream(bytes.toByteArray()), true, null);
+        env.addEntry(project.getFullPath(), JavaCore.newLibraryEntry(jarFile.getFullPath(), jarFile.getFullPath(), null));
+
+        JavaModelManager.getIndexManager().indexAll(project);
+        waitForIndexer(javaProject);
+    }
+
+    private static void addToJar(ZipOutputStream jar, IContainer container, String prefix) throws Exception {
+        for (IResource member : container.members()) {
+            String name = prefix + member.getName();
+            if (member instanceof IContainer) {
+                addToJar(jar, (IContainer) member, name + "/");
+            } else {
+                jar.putNextEntry(new ZipEntry(name));
+                InputStream stream = ((IFile) member).getContents();
+                try {
+                    jar.write(org.eclipse.jdt.internal.compiler.util.Util.getInputStreamAsByteArray(stream, -1));
+                } finally {
+                    stream.close();
+                }
+                jar.closeEntry();
+            }
+        }
+    }
 }
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.jdt.core.groovy.tests.search;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import junit.framework.TestCase;
+
+import org.codehaus.groovy.ast.ClassHelper;
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.GenericsType;
+import org.codehaus.groovy.ast.MethodNode;
+import org.codehaus.groovy.ast.Parameter;
+import org.eclipse.jdt.groovy.core.util.ReflectionUtils;
+import org.eclipse.jdt.groovy.search.AccessorSupport;
+import org.eclipse.jdt.groovy.search.CategoryTypeLookup;
+import org.eclipse.jdt.groovy.search.VariableScope;
+
+/**
+ * Checks the index of default category methods against a scan of the categories in order, which is how
+ * {@link CategoryTypeLookup} found them before there was an index.
+ */
+public class DefaultCategoryIndexTests extends TestCase {
+
+    public DefaultCategoryIndexTests(String name) {
+        super(name);
+    }
+
+    private Class<?> indexClass;
+    private Object index;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        for (Class<?> nested : CategoryTypeLookup.class.getDeclaredClasses()) {
+            if (nested.getSimpleName().equals("DefaultCategoryIndex")) {
+                indexClass = nested;
+            }
+        }
+        assertNotNull(indexClass);
+        index = ReflectionUtils.throwableGetPrivateField(indexClass, "INSTANCE", null);
+    }
+
+    public void testInstanceReceivers() throws Exception {
+        ClassNode stringList = ClassHelper.LIST_TYPE.getPlainNodeReference();
+        stringList.setGenericsTypes(new GenericsType[] { new GenericsType(ClassHelper.STRING_TYPE) });
+
+        assertSameAsScan(
+            ClassHelper.STRING_TYPE,
+            ClassHelper.GSTRING_TYPE,
+            ClassHelper.Integer_TYPE,
+            ClassHelper.Character_TYPE,
+            ClassHelper.Boolean_TYPE,
+            VariableScope.NUMBER_CLASS_NODE,
+            ClassHelper.OBJECT_TYPE,
+            ClassHelper.LIST_TYPE,
+            stringList,
+            ClassHelper.make(ArrayList.class),
+            ClassHelper.MAP_TYPE,
+            ClassHelper.make(LinkedHashMap.class),
+            ClassHelper.make(Set.class),
+            ClassHelper.make(Iterator.class),
+            ClassHelper.make(File.class),
+            ClassHelper.make(InputStream.class),
+            ClassHelper.make(BufferedReader.class),
+            ClassHelper.make(URL.class),
+            ClassHelper.make(Date.class),
+            ClassHelper.make(Process.class),
+            ClassHelper.CLOSURE_TYPE,
+            VariableScope.MATCHER_CLASS_NODE);
+    }
+
+    public void testArrayReceivers() throws Exception {
+        assertSameAsScan(
+            ClassHelper.OBJECT_TYPE.makeArray(),
+            ClassHelper.STRING_TYPE.makeArray(),
+            ClassHelper.int_TYPE.makeArray(),
+            ClassHelper.byte_TYPE.makeArray(),
+            ClassHelper.char_TYPE.makeArray());
+    }
+
+    public void testStaticReceivers() throws Exception {
+        // a reference to a type, as in String.name or List.valueOf, is looked up on Class
+        ClassNode stringClass = VariableScope.CLASS_CLASS_NODE.getPlainNodeReference();
+        stringClass.setGenericsTypes(new GenericsType[] { new GenericsType(ClassHelper.STRING_TYPE) });
+
+        assertSameAsScan(VariableScope.CLASS_CLASS_NODE, stringClass, VariableScope.CLASS_ARRAY_CLASS_NODE);
+    }
+
+    public void testOverloads() throws Exception {
+        // the most specific overload is not necessarily the one that is found; the first applicable one is
+        for (String name : new String[] { "plus", "each", "find", "sort", "getAt", "leftShift", "withReader", "text", "bytes" }) {
+            for (ClassNode receiver : new ClassNode[] { ClassHelper.STRING_TYPE, ClassHelper.LIST_TYPE, ClassHelper.MAP_TYPE,
+                    ClassHelper.make(File.class), ClassHelper.OBJECT_TYPE.makeArray() }) {
+                assertSame(name + " on " + receiver, scan(name, receiver), findMethod(name, receiver));
+            }
+        }
+        assertNotNull(findMethod("plus", ClassHelper.STRING_TYPE));
+        assertNotNull(findMethod("text", ClassHelper.make(File.class)));
+        assertNull(findMethod("noSuchCategoryMethod", ClassHelper.OBJECT_TYPE));
+    }
+
+    //--------------------------------------------------------------------------
+
+    private void assertSameAsScan(ClassNode... receivers) throws Exception {
+        Set<String> names = getNames();
+        int found = 0;
+        for (ClassNode receiver : receivers) {
+            for (String name : names) {
+                MethodNode expected = scan(name, receiver);
+                assertSame(name + " on " + receiver, expected, findMethod(name, receiver));
+                if (expected != null) found += 1;
+            }
+        }
+        assertTrue("only " + found + " methods found", found >= receivers.length * 10);
+    }
+
+    private MethodNode findMethod(String name, ClassNode receiver) throws Exception {
+        return (MethodNode) ReflectionUtils.throwableExecutePrivateMethod(indexClass, "findMethod",
+            new Class[] { String.class, String.class, String.class, ClassNode.class, VariableScope.class }, index,
+            new Object[] { name, AccessorSupport.GETTER.createAccessorName(name), AccessorSupport.SETTER.createAccessorName(name),
+                receiver, new VariableScope(null, null, false) });
+    }
+
+    /**
+     * Every method name of the default categories, and the property names of their accessors.
+     */
+    private static Set<String> getNames() {
+        Set<String> names = new TreeSet<String>();
+        for (ClassNode category : VariableScope.ALL_DEFAULT_CATEGORIES) {
+            for (ClassNode type = category; type != null; type = type.getSuperClass()) {
+                for (MethodNode method : type.getMethods()) {
+                    String name = method.getName();
+                    names.add(name);
+                    for (String prefix : new String[] { "get", "set", "is" }) {
+                        if (name.length() > prefix.length() && name.startsWith(prefix)) {
+                            String property = name.substring(prefix.length());
+                            names.add(Character.toLowerCase(property.charAt(0)) + property.substring(1));
+                        }
+                    }
+                }
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Goes through the default categories in order, and through the methods named <code>name</code>, then its getter, then its
+     * setter in each, like the lookup did before it used the index.
+     */
+    private static MethodNode scan(String name, ClassNode receiver) {
+        String getterName = AccessorSupport.GETTER.createAccessorName(name);
+        String setterName = AccessorSupport.SETTER.createAccessorName(name);
+        for (ClassNode category : VariableScope.ALL_DEFAULT_CATEGORIES) {
+            for (MethodNode method : category.getMethods(name)) {
+                if (isApplicable(method, receiver)) {
+                    return method;
+                }
+            }
+            if (getterName != null) {
+                for (MethodNode method : category.getMethods(getterName)) {
+                    if (method.isStatic() && AccessorSupport.findAccessorKind(method, true) == AccessorSupport.GETTER &&
+                            isApplicable(method, receiver)) {
+                        return method;
+                    }
+                }
+            }
+            if (setterName != null) {
+                for (MethodNode method : category.getMethods(setterName)) {
+                    if (method.isStatic() && AccessorSupport.findAccessorKind(method, true) == AccessorSupport.SETTER &&
+                            isApplicable(method, receiver)) {
+                        return method;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean isApplicable(MethodNode method, ClassNode receiver) {
+        Parameter[] params = method.getParameters();
+        if (params == null || params.length == 0) {
+            return false;
+        }
+        String targetName = params[0].getType().getName();
+        if (targetName.equals("java.lang.Object") || (receiver.getName().startsWith("[") && targetName.equals("[Ljava.lang.Object;"))) {
+            return true;
+        }
+        LinkedHashSet<ClassNode> hierarchy = new LinkedHashSet<ClassNode>();
+        VariableScope.createTypeHierarchy(receiver, hierarchy, false);
+        List<String> names = new ArrayList<String>();
+        for (ClassNode type : hierarchy) {
+            names.add(type.getName());
+        }
+        return names.contains(targetName);
+    }
+}
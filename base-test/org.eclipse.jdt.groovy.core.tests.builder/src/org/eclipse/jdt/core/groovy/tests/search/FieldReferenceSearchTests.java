@@ -15,10 +15,25 @@
  */
 package org.eclipse.jdt.core.groovy.tests.search;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 import junit.framework.Test;
 
+import org.codehaus.jdt.groovy.integration.IPropertyReferenceRequestor;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.search.IJavaSearchConstants;
+import org.eclipse.jdt.core.search.SearchEngine;
+import org.eclipse.jdt.core.search.SearchMatch;
+import org.eclipse.jdt.core.search.SearchParticipant;
+import org.eclipse.jdt.core.search.SearchPattern;
+import org.eclipse.jdt.core.search.SearchRequestor;
+import org.eclipse.jdt.internal.core.JavaModelManager;
+import org.eclipse.jdt.internal.core.index.EntryResult;
+import org.eclipse.jdt.internal.core.index.Index;
 
 /**
  * @author Andrew Eisenberg
@@ -146,6 +161,65 @@ public class FieldReferenceSearchTests extends AbstractGroovySearchTest {
     }
 
 
+    public void testPropertyReferenceIndex() throws Exception {
+        createUnit("First", FIRST_CONTENTS_CLASS_FOR_FIELDS);
+        createUnit("Second", "class Second {\n def m(First f) {\n f.getXxx()\n new First(yyy: 1)\n \"$f.zzz\"\n }\n}");
+        createUnit("Third", "class Third { }");
+        waitForIndexer();
+
+        assertEquals("[src/First.groovy, src/Second.groovy, src/Third.groovy]", queryPropertyIndex(IPropertyReferenceRequestor.INDEXED));
+        assertEquals("[src/First.groovy, src/Second.groovy]", queryPropertyIndex("xxx".toCharArray()));
+        assertEquals("[src/Second.groovy]", queryPropertyIndex("Xxx".toCharArray()));
+        assertEquals("[src/Second.groovy]", queryPropertyIndex("yyy".toCharArray()));
+        assertEquals("[src/Second.groovy]", queryPropertyIndex("zzz".toCharArray()));
+    }
+
+    public void testPropertyReferenceFilterSeesReindexedFiles() throws Exception {
+        SearchPattern pattern = SearchPattern.createPattern(
+            createUnit("First", FIRST_CONTENTS_CLASS_FOR_FIELDS).getType("First").getField("xxx"), IJavaSearchConstants.REFERENCES);
+        createUnit("Second", "class Second {\n def m(First f) {\n f.yyy\n }\n}");
+        waitForIndexer();
+        assertEquals("[]", searchReferences(pattern));
+
+        // the same pattern must not reuse what the index said before
+        createUnit("Second", "class Second {\n def m(First f) {\n f.xxx\n }\n}");
+        waitForIndexer();
+        assertEquals("[m]", searchReferences(pattern));
+    }
+
+    private String searchReferences(SearchPattern pattern) throws Exception {
+        final List<String> elements = new ArrayList<String>();
+        new SearchEngine().search(pattern, new SearchParticipant[] { SearchEngine.getDefaultSearchParticipant() },
+            SearchEngine.createJavaSearchScope(new IJavaElement[] { JavaCore.create(project) }), new SearchRequestor() {
+                @Override
+                public void acceptSearchMatch(SearchMatch match) {
+                    elements.add(((IJavaElement) match.getElement()).getElementName());
+                }
+            }, null);
+        return elements.toString();
+    }
+
+    private String queryPropertyIndex(char[] key) throws Exception {
+        Index index = JavaModelManager.getIndexManager().getIndex(project.getFullPath(), true, false);
+        List<String> documents = new ArrayList<String>();
+        index.monitor.enterRead();
+        try {
+            EntryResult[] results = index.query(new char[][] {IPropertyReferenceRequestor.PROPERTY_REF}, key,
+                    SearchPattern.R_EXACT_MATCH | SearchPattern.R_CASE_SENSITIVE);
+            if (results != null) {
+                for (EntryResult result : results) {
+                    for (String document : result.getDocumentNames(index)) {
+                        documents.add(document);
+                    }
+                }
+            }
+        } finally {
+            index.monitor.exitRead();
+        }
+        Collections.sort(documents);
+        return documents.toString();
+    }
+
     private void doTestForTwoFieldWritesInScript(String secondContents) throws JavaModelException {
         doTestForTwoFieldReferences(FIRST_CONTENTS_CLASS_FOR_FIELDS, secondContents, true, 3, "xxx", IJavaSearchConstants.WRITE_ACCESSES);
     }
@@ -15,15 +15,24 @@
  */
 package org.eclipse.jdt.core.groovy.tests.search;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import junit.framework.Test;
 
 import org.codehaus.groovy.ast.ASTNode;
+import org.codehaus.groovy.ast.ClassHelper;
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.MethodNode;
 import org.codehaus.groovy.eclipse.core.compiler.CompilerUtils;
 import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
+import org.eclipse.jdt.core.WorkingCopyOwner;
 import org.eclipse.jdt.core.tests.util.GroovyUtils;
 import org.eclipse.jdt.groovy.search.TypeInferencingVisitorWithRequestor;
+import org.eclipse.jdt.groovy.search.VariableScope;
 import org.osgi.framework.Version;
 
 /**
@@ -2007,6 +2016,104 @@ public final class InferencingTests extends AbstractInferencingTest {
                 "new Me().meth()");
     }
 
+    public void testNestedCategories() {
+        String contents =
+                "class Cat1 {\n" +
+                "    static String foo(String self) { '' }\n" +
+                "}\n" +
+                "class Cat2 {\n" +
+                "    static Integer foo(String self) { 0 }\n" +
+                "    static Integer bar(String self) { 0 }\n" +
+                "}\n" +
+                "use (Cat1) {\n" +
+                "    use (Cat2) {\n" +
+                "        'x'.foo()\n" +
+                "        'x'.bar()\n" +
+                "    }\n" +
+                "}\n";
+
+        // the categories of enclosing blocks come first
+        int start = contents.lastIndexOf("foo");
+        int end = start + "foo".length();
+        assertDeclaringType(contents, start, end, "Cat1");
+        assertType(contents, start, end, "java.lang.String");
+
+        start = contents.lastIndexOf("bar");
+        end = start + "bar".length();
+        assertDeclaringType(contents, start, end, "Cat2");
+    }
+
+    public void testRepeatedCategory() {
+        String contents =
+                "class Cat1 {\n" +
+                "    static String foo(String self) { '' }\n" +
+                "}\n" +
+                "class Cat2 {\n" +
+                "    static Integer foo(String self) { 0 }\n" +
+                "}\n" +
+                "use (Cat2) {\n" +
+                "    use (Cat1) {\n" +
+                "        use (Cat2) {\n" +
+                "            'x'.foo()\n" +
+                "        }\n" +
+                "        'x'.foo()\n" +
+                "    }\n" +
+                "}\n";
+
+        // declaring a category again does not move it behind the ones declared since
+        int start = contents.indexOf("foo()");
+        int end = start + "foo".length();
+        assertDeclaringType(contents, start, end, "Cat2");
+        start = contents.lastIndexOf("foo()");
+        end = start + "foo".length();
+        assertDeclaringType(contents, start, end, "Cat2");
+    }
+
+    public void testCategoryScopes() {
+        ClassNode cat1 = ClassHelper.make("p.Cat1"), cat2 = ClassHelper.make("p.Cat2");
+        VariableScope top = new VariableScope(null, null, false);
+        assertSame(VariableScope.ALL_DEFAULT_CATEGORIES, top.getCategoryNames());
+
+        VariableScope use1 = new VariableScope(top, null, false);
+        use1.setCategoryBeingDeclared(cat1);
+        VariableScope in1 = new VariableScope(use1, null, false);
+        Set<ClassNode> categories1 = in1.getCategoryNames();
+        assertCategories(categories1, cat1);
+        assertSame(categories1, in1.getCategoryNames());
+        assertSame(categories1, new VariableScope(in1, null, false).getCategoryNames());
+
+        VariableScope use2 = new VariableScope(in1, null, false);
+        use2.setCategoryBeingDeclared(cat2);
+        VariableScope in2 = new VariableScope(use2, null, false);
+        assertCategories(in2.getCategoryNames(), cat1, cat2);
+
+        // neither a repeated nor a default category is added again
+        VariableScope use1Again = new VariableScope(in2, null, false);
+        use1Again.setCategoryBeingDeclared(cat1);
+        assertCategories(new VariableScope(use1Again, null, false).getCategoryNames(), cat1, cat2);
+        VariableScope useDGM = new VariableScope(in2, null, false);
+        useDGM.setCategoryBeingDeclared(VariableScope.DGM_CLASS_NODE);
+        assertCategories(new VariableScope(useDGM, null, false).getCategoryNames(), cat1, cat2);
+
+        try {
+            categories1.add(cat2);
+            fail("categories in scope should not be modifiable");
+        } catch (UnsupportedOperationException expected) {
+        }
+    }
+
+    private static void assertCategories(Set<ClassNode> actual, ClassNode... declared) {
+        // same order and contents as a copy of the enclosing set with the declared category added
+        Set<ClassNode> expected = new LinkedHashSet<ClassNode>(VariableScope.ALL_DEFAULT_CATEGORIES);
+        expected.addAll(Arrays.asList(declared));
+        assertEquals(new ArrayList<ClassNode>(expected), new ArrayList<ClassNode>(actual));
+        assertEquals(expected.size(), actual.size());
+        for (ClassNode category : expected) {
+            assertTrue(actual.contains(category));
+        }
+        assertFalse(actual.contains(ClassHelper.make("p.NotACategory")));
+    }
+
     // GRECLIPSE-1304
     public void testNoGString1() {
         assertNoUnknowns("'$'\n'${}\n'${a}'\n'$a'");
@@ -2188,6 +2295,199 @@ public final class InferencingTests extends AbstractInferencingTest {
         assertType(contents, start, end, "java.lang.Integer");
     }
 
+    public void testLookupResultsSharedBetweenVisits() throws Exception {
+        String contents =
+                "class Foo {\n" +
+                "  def m() {\n" +
+                "    [1].collect { it.intValue() }.first().toString().trim()\n" +
+                "  }\n" +
+                "}";
+        GroovyCompilationUnit unit = createUnit("Foo", contents);
+        int start = contents.indexOf("trim");
+        int end = start + "trim".length();
+
+        unit.becomeWorkingCopy(null);
+        try {
+            SearchRequestor first = doVisit(start, end, unit, false);
+            SearchRequestor second = doVisit(start, end, unit, false);
+            assertEquals("java.lang.String", printTypeName(second.result.type));
+            assertSame(first.result.declaration, second.result.declaration);
+            assertNotSame("Reused result should be bound to the scope of its own visit", first.result.scope, second.result.scope);
+        } finally {
+            unit.discardWorkingCopy();
+        }
+    }
+
+    public void testLookupResultsOfFullAndRegionVisits() throws Exception {
+        String contents =
+                "class Foo {\n" +
+                "  String name\n" +
+                "  def m(Integer i) { i }\n" +
+                "  def m(String s) { s }\n" +
+                "  def other() {\n" +
+                "    def x = name\n" +
+                "    m(x)\n" +
+                "    x = x.length()\n" +
+                "    m(x)\n" +
+                "    [1].each { m(it); name.toUpperCase() }\n" +
+                "  }\n" +
+                "}\n" +
+                "def y = new Foo()\n" +
+                "y.other()\n";
+        GroovyCompilationUnit unit = createUnit("Foo", contents);
+        // flow typed variables, overloads chosen by argument type, closure parameters and script variables
+        List<int[]> targets = new ArrayList<int[]>();
+        for (int offset : new int[] { contents.indexOf("m(x)"), contents.indexOf("x)"), contents.lastIndexOf("m(x)"),
+                contents.lastIndexOf("x)"), contents.indexOf("it)"), contents.indexOf("toUpperCase"), contents.lastIndexOf("y"),
+                contents.indexOf("other()", contents.indexOf("y.")) }) {
+            int end = offset;
+            while (Character.isJavaIdentifierPart(contents.charAt(end))) end += 1;
+            targets.add(new int[] { offset, end });
+        }
+
+        // each visit of a private working copy has a module node of its own, so nothing is shared
+        List<String> expectedFull = new ArrayList<String>(), expectedRegion = new ArrayList<String>();
+        GroovyCompilationUnit copy = (GroovyCompilationUnit) unit.getWorkingCopy(new WorkingCopyOwner() {}, null);
+        try {
+            for (int[] target : targets) {
+                expectedFull.add(describe(visit(copy, target, false)));
+                expectedRegion.add(describe(visit(copy, target, true)));
+            }
+        } finally {
+            copy.discardWorkingCopy();
+        }
+        assertTrue(expectedFull.get(1), expectedFull.get(1).startsWith("java.lang.String "));
+        assertTrue(expectedFull.get(3), expectedFull.get(3).startsWith("java.lang.Integer "));
+
+        // visits of the shared working copy reuse each other's lookups
+        for (boolean regionFirst : new boolean[] { false, true }) {
+            unit.becomeWorkingCopy(null);
+            try {
+                for (int i = 0; i < targets.size(); i += 1) {
+                    int[] target = targets.get(i);
+                    String message = contents.substring(target[0], target[1]) + " at " + target[0];
+                    if (regionFirst) {
+                        assertEquals(message, expectedRegion.get(i), describe(visit(unit, target, true)));
+                        assertEquals(message, expectedFull.get(i), describe(visit(unit, target, false)));
+                    } else {
+                        assertEquals(message, expectedFull.get(i), describe(visit(unit, target, false)));
+                        assertEquals(message, expectedRegion.get(i), describe(visit(unit, target, true)));
+                    }
+                }
+            } finally {
+                unit.discardWorkingCopy();
+            }
+        }
+    }
+
+    private SearchRequestor visit(GroovyCompilationUnit unit, int[] target, boolean region) {
+        TypeInferencingVisitorWithRequestor visitor = factory.createVisitor(unit);
+        SearchRequestor requestor = new SearchRequestor(target[0], target[1]);
+        if (region) {
+            visitor.visitCompilationUnit(requestor, target[0]);
+        } else {
+            visitor.visitCompilationUnit(requestor);
+        }
+        assertNotNull("Did not find expected ASTNode at " + target[0], requestor.node);
+        return requestor;
+    }
+
+    private static String describe(SearchRequestor requestor) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(printTypeName(requestor.result.type)).append(' ');
+        sb.append(printTypeName(requestor.result.declaringType)).append(' ');
+        sb.append('(').append(requestor.result.confidence);
+        if (requestor.result.declaration instanceof MethodNode) {
+            sb.append(' ').append(((MethodNode) requestor.result.declaration).getTypeDescriptor());
+        }
+        return sb.append(')').toString();
+    }
+
+    public void testVisitEnclosingMemberOnly() throws Exception {
+        String contents =
+                "import static java.util.Collections.EMPTY_LIST\n" +
+                "class Foo {\n" +
+                "  String name\n" +
+                "  def other() {\n" +
+                "    name.length()\n" +
+                "  }\n" +
+                "  static class Bar {\n" +
+                "    def m() {\n" +
+                "      [1].collect { this }.first()\n" +
+                "      EMPTY_LIST\n" +
+                "    }\n" +
+                "  }\n" +
+                "}";
+        GroovyCompilationUnit unit = createUnit("Foo", contents);
+        int start = contents.indexOf("this");
+        int end = start + "this".length();
+
+        TypeInferencingVisitorWithRequestor visitor = factory.createVisitor(unit);
+        SearchRequestor requestor = new SearchRequestor(start, end);
+        visitor.visitCompilationUnit(requestor, start);
+        assertEquals("Foo$Bar", printTypeName(requestor.result.type));
+
+        start = contents.indexOf("EMPTY_LIST", end);
+        end = start + "EMPTY_LIST".length();
+        visitor = factory.createVisitor(unit);
+        requestor = new SearchRequestor(start, end);
+        visitor.visitCompilationUnit(requestor, start);
+        assertEquals("java.util.List", printTypeName(requestor.result.type));
+
+        // other members are skipped
+        start = contents.indexOf("length");
+        end = start + "length".length();
+        visitor = factory.createVisitor(unit);
+        requestor = new SearchRequestor(start, end);
+        visitor.visitCompilationUnit(requestor, contents.indexOf("first"));
+        assertNull(requestor.node);
+        visitor = factory.createVisitor(unit);
+        visitor.visitCompilationUnit(requestor, start);
+        assertEquals("java.lang.Integer", printTypeName(requestor.result.type));
+    }
+
+    public void testVisitBudget() throws Exception {
+        String contents =
+                "def x = 1\n" +
+                "x.intValue()\n" +
+                "x.toString().length()\n";
+        GroovyCompilationUnit unit = createUnit("Budget", contents);
+        int start = contents.indexOf("length");
+        int end = start + "length".length();
+
+        TypeInferencingVisitorWithRequestor visitor = factory.createVisitor(unit);
+        SearchRequestor requestor = new SearchRequestor(start, end);
+        visitor.setBudget(0, 3);
+        visitor.visitCompilationUnit(requestor);
+        assertTrue(visitor.isBudgetExceeded());
+        assertNull(requestor.node);
+
+        visitor = factory.createVisitor(unit);
+        requestor = new SearchRequestor(start, end);
+        visitor.setBudget(0, 1000);
+        visitor.visitCompilationUnit(requestor);
+        assertFalse(visitor.isBudgetExceeded());
+        assertEquals("java.lang.Integer", printTypeName(requestor.result.type));
+    }
+
+    public void testSameMemberOfDifferentParameterizations() {
+        String contents =
+                "List<String> strings = []\n" +
+                "List<Integer> numbers = []\n" +
+                "strings.get(0)\n" +
+                "numbers.get(0)\n" +
+                "strings.get(0)\n";
+
+        int start = contents.indexOf("get");
+        start = contents.indexOf("get", start + 1);
+        int end = start + "get".length();
+        assertType(contents, start, end, "java.lang.Integer");
+
+        start = contents.lastIndexOf("get");
+        end = start + "get".length();
+        assertType(contents, start, end, "java.lang.String");
+    }
+
     // GRECLIPSE-554
     public void testMapEntries1() {
         String contents =
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.jdt.core.groovy.tests.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.codehaus.jdt.groovy.integration.IPropertyReferenceRequestor;
+import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyParser;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.search.SearchPattern;
+import org.eclipse.jdt.internal.core.JavaModelManager;
+import org.eclipse.jdt.internal.core.index.EntryResult;
+import org.eclipse.jdt.internal.core.index.Index;
+import org.eclipse.jdt.internal.core.search.indexing.IIndexConstants;
+import org.eclipse.jdt.internal.core.search.indexing.IndexManager;
+
+/**
+ * Checks that indexing a project whose groovy files are parsed and visited on the parse workers writes the same index entries
+ * as indexing the files one after the other.
+ */
+public class ParallelIndexingTests extends AbstractGroovySearchTest {
+
+    public ParallelIndexingTests(String name) {
+        super(name);
+    }
+
+    private static final char[][] CATEGORIES = {
+        IIndexConstants.REF, IIndexConstants.ANNOTATION_REF, IIndexConstants.METHOD_REF, IIndexConstants.CONSTRUCTOR_REF,
+        IIndexConstants.SUPER_REF, IIndexConstants.TYPE_DECL, IIndexConstants.METHOD_DECL, IIndexConstants.CONSTRUCTOR_DECL,
+        IIndexConstants.FIELD_DECL, IPropertyReferenceRequestor.PROPERTY_REF
+    };
+
+    public void testIndexEntries() throws Exception {
+        // enough files for the project to go to the parse workers
+        int n = GroovyParser.PARSE_THRESHOLD + 4;
+        for (int i = 0; i < n; i += 1) {
+            createUnit("p" + (i % 3), "Unit" + i,
+                "package p" + (i % 3) + "\n" +
+                "class Unit" + i + (i + 1 < n ? " extends p" + ((i + 1) % 3) + ".Unit" + (i + 1) : "") + " {\n" +
+                "  String name" + i + "\n" +
+                "  Unit" + i + "(int x) { }\n" +
+                "  def m" + i + "(List list) {\n" +
+                "    list.collect { it.name" + i + " }\n" +
+                "    new Object().toString()\n" +
+                "    \"${getName" + i + "()}\"\n" +
+                "  }\n" +
+                "}\n");
+        }
+        createUnit("p0", "Script", "new p0.Unit0(1).m0([])\n");
+        createJavaUnit("p1", "JavaUnit", "package p1;\npublic class JavaUnit extends Unit1 { JavaUnit() { super(1); } }");
+        fullBuild(project.getFullPath());
+
+        int threads = GroovyParser.setParseThreads(1);
+        try {
+            Map<String, List<String>> serial = reindex();
+            assertFalse(serial.get("methodDecl").isEmpty());
+            assertTrue(serial.get("groovyPropertyRef").toString(), serial.get("groovyPropertyRef").contains("name5 [src/p2/Unit5.groovy]"));
+
+            GroovyParser.setParseThreads(4);
+            Map<String, List<String>> parallel = reindex();
+            assertEquals(serial, parallel);
+        } finally {
+            GroovyParser.setParseThreads(threads);
+        }
+    }
+
+    //--------------------------------------------------------------------------
+
+    /**
+     * Throws away the index of the project, indexes the project from scratch and reads back every entry.
+     *
+     * @return for each category, the words of its entries with the documents that have them, sorted
+     */
+    private Map<String, List<String>> reindex() throws Exception {
+        IndexManager manager = JavaModelManager.getIndexManager();
+        manager.removeIndex(project.getFullPath());
+        manager.indexAll(project);
+        waitForIndexer(JavaCore.create(project));
+
+        Map<String, List<String>> entries = new TreeMap<String, List<String>>();
+        Index index = manager.getIndex(project.getFullPath(), true, false);
+        assertNotNull(index);
+        index.monitor.enterRead();
+        try {
+            for (char[] category : CATEGORIES) {
+                List<String> words = new ArrayList<String>();
+                EntryResult[] results = index.query(new char[][] {category}, null,
+                        SearchPattern.R_EXACT_MATCH | SearchPattern.R_CASE_SENSITIVE);
+                if (results != null) {
+                    for (EntryResult result : results) {
+                        String[] documents = result.getDocumentNames(index);
+                        Arrays.sort(documents);
+                        words.add(new String(result.getWord()) + " " + Arrays.toString(documents));
+                    }
+                }
+                Collections.sort(words);
+                entries.put(new String(category), words);
+            }
+        } finally {
+            index.monitor.exitRead();
+        }
+        return entries;
+    }
+}
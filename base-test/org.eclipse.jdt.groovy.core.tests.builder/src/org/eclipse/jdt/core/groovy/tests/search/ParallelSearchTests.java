@@ -0,0 +1,178 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.jdt.core.groovy.tests.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.search.IJavaSearchConstants;
+import org.eclipse.jdt.core.search.SearchEngine;
+import org.eclipse.jdt.core.search.SearchMatch;
+import org.eclipse.jdt.core.search.SearchParticipant;
+import org.eclipse.jdt.core.search.SearchPattern;
+import org.eclipse.jdt.core.search.SearchRequestor;
+import org.eclipse.jdt.groovy.core.util.ReflectionUtils;
+import org.eclipse.jdt.groovy.search.TypeInferencingWorkers;
+
+/**
+ * Checks that a search whose units are inferred on the {@link TypeInferencingWorkers} reports the same matches, in the same order
+ * and on the same thread, as a search that infers one unit after the other, and that the workers let go of a canceled search.
+ */
+public class ParallelSearchTests extends AbstractGroovySearchTest {
+
+    public ParallelSearchTests(String name) {
+        super(name);
+    }
+
+    private static final int UNITS = 12;
+
+    private Object threads;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        threads = ReflectionUtils.throwableGetPrivateField(TypeInferencingWorkers.class, "THREADS", null);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        ReflectionUtils.setPrivateField(TypeInferencingWorkers.class, "THREADS", null, threads);
+        super.tearDown();
+    }
+
+    public void testMatchOrder() throws Exception {
+        GroovyCompilationUnit first = createUnit("a", "First", "package a\nclass First { def xxx() { } }\n");
+        for (int i = 0; i < UNITS; i += 1) {
+            StringBuilder contents = new StringBuilder();
+            contents.append("package p").append(i % 3).append('\n');
+            contents.append("import a.First\n");
+            contents.append("class Ref").append(i).append(" {\n");
+            contents.append("  def m(First f) {\n");
+            for (int j = 0; j <= i; j += 1) {
+                contents.append("    f.xxx()\n");
+            }
+            contents.append("  }\n}\n");
+            createUnit("p" + (i % 3), "Ref" + i, contents.toString());
+        }
+        fullBuild(project.getFullPath());
+        waitForIndexer();
+
+        IMethod method = first.getType("First").getMethod("xxx", new String[0]);
+        SearchPattern pattern = SearchPattern.createPattern(method, IJavaSearchConstants.REFERENCES);
+
+        List<String> serial = search(pattern, 0);
+        assertEquals(serial.toString(), UNITS * (UNITS + 1) / 2, serial.size());
+        // fewer workers than units, so that some units wait for a worker
+        assertEquals(serial, search(pattern, 4));
+    }
+
+    public void testCancelMidStream() throws Exception {
+        GroovyCompilationUnit first = createUnit("a", "First", "package a\nclass First { def xxx() { } }\n");
+        // more matches per unit than a worker may queue up
+        final int calls = 200;
+        for (int i = 0; i < UNITS; i += 1) {
+            StringBuilder contents = new StringBuilder();
+            contents.append("package p").append(i % 3).append('\n');
+            contents.append("import a.First\n");
+            contents.append("class Ref").append(i).append(" {\n");
+            contents.append("  def m(First f) {\n");
+            for (int j = 0; j < calls; j += 1) {
+                contents.append("    f.xxx()\n");
+            }
+            contents.append("  }\n}\n");
+            createUnit("p" + (i % 3), "Ref" + i, contents.toString());
+        }
+        fullBuild(project.getFullPath());
+        waitForIndexer();
+
+        IMethod method = first.getType("First").getMethod("xxx", new String[0]);
+        SearchPattern pattern = SearchPattern.createPattern(method, IJavaSearchConstants.REFERENCES);
+        ReflectionUtils.setPrivateField(TypeInferencingWorkers.class, "THREADS", null, 4);
+
+        final NullProgressMonitor monitor = new NullProgressMonitor();
+        final int[] accepted = new int[1];
+        try {
+            new SearchEngine().search(pattern, new SearchParticipant[] { SearchEngine.getDefaultSearchParticipant() },
+                SearchEngine.createJavaSearchScope(new IJavaElement[] { JavaCore.create(project) }), new SearchRequestor() {
+                    @Override
+                    public void acceptSearchMatch(SearchMatch match) {
+                        accepted[0] += 1;
+                        if (accepted[0] == 10) {
+                            monitor.setCanceled(true);
+                        }
+                    }
+                }, monitor);
+        } catch (OperationCanceledException e) {
+            // expected
+        }
+        assertTrue(String.valueOf(accepted[0]), accepted[0] >= 10 && accepted[0] < calls);
+
+        // the workers drop their units instead of waiting for the search thread to take more matches
+        assertWorkersIdle();
+    }
+
+    //--------------------------------------------------------------------------
+
+    /**
+     * Waits for every inferencing worker to wait for a new task, as opposed to waiting for room in the queue of a match stream,
+     * which is a timed wait.
+     */
+    private static void assertWorkersIdle() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        List<String> busy;
+        do {
+            busy = new ArrayList<String>();
+            for (Thread thread : Thread.getAllStackTraces().keySet()) {
+                if (thread.getName().startsWith("Groovy Inferencing Worker") && thread.getState() != Thread.State.WAITING) {
+                    busy.add(thread.getName() + " " + thread.getState());
+                }
+            }
+            if (busy.isEmpty()) {
+                return;
+            }
+            Thread.sleep(100);
+        } while (System.currentTimeMillis() < deadline);
+        fail("workers still busy after the search was canceled: " + busy);
+    }
+
+    private List<String> search(SearchPattern pattern, int workers) throws Exception {
+        ReflectionUtils.setPrivateField(TypeInferencingWorkers.class, "THREADS", null, workers);
+        assertEquals(workers > 1, TypeInferencingWorkers.isEnabled());
+
+        final Thread searchThread = Thread.currentThread();
+        final List<String> matches = new ArrayList<String>();
+        final List<String> otherThreads = new ArrayList<String>();
+        new SearchEngine().search(pattern, new SearchParticipant[] { SearchEngine.getDefaultSearchParticipant() },
+            SearchEngine.createJavaSearchScope(new IJavaElement[] { JavaCore.create(project) }), new SearchRequestor() {
+                @Override
+                public void acceptSearchMatch(SearchMatch match) {
+                    if (Thread.currentThread() != searchThread) {
+                        otherThreads.add(Thread.currentThread().getName());
+                    }
+                    matches.add(((IJavaElement) match.getElement()).getHandleIdentifier() + " @" + match.getOffset() + ":" +
+                        match.getLength() + " " + match.getAccuracy());
+                }
+            }, null);
+        assertEquals("matches reported on other threads", "[]", otherThreads.toString());
+        return matches;
+    }
+}
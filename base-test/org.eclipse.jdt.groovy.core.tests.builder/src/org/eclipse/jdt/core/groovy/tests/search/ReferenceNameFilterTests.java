@@ -0,0 +1,143 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.jdt.core.groovy.tests.search;
+
+import junit.framework.TestCase;
+
+import org.eclipse.jdt.core.search.IJavaSearchConstants;
+import org.eclipse.jdt.core.search.SearchPattern;
+import org.eclipse.jdt.groovy.search.ReferenceNameFilter;
+
+/**
+ * Tests for {@link ReferenceNameFilter}, which tells apart the units that cannot match a search from those that might.
+ */
+public class ReferenceNameFilterTests extends TestCase {
+
+    public ReferenceNameFilterTests(String name) {
+        super(name);
+    }
+
+    private static final int EXACT = SearchPattern.R_EXACT_MATCH | SearchPattern.R_CASE_SENSITIVE;
+
+    public void testExactField() {
+        ReferenceNameFilter filter = create("foo", IJavaSearchConstants.FIELD, EXACT);
+        assertNotNull(filter);
+        assertMayMatch(filter, "x.foo");
+        assertMayMatch(filter, "foo = 1");
+        assertMayMatch(filter, "\"${x}$foo\"");
+        assertMayMatch(filter, "x.getFoo()");
+        assertMayMatch(filter, "x.setFoo(1)");
+        assertMayMatch(filter, "x.isFoo()");
+        assertCannotMatch(filter, "x.food");
+        assertCannotMatch(filter, "afoo");
+        assertCannotMatch(filter, "x.Foo");
+        assertCannotMatch(filter, "");
+        assertTrue("unknown contents", filter.mayMatch(null));
+    }
+
+    public void testExactMethod() {
+        ReferenceNameFilter filter = create("getName", IJavaSearchConstants.METHOD, EXACT);
+        assertNotNull(filter);
+        assertMayMatch(filter, "x.getName()");
+        assertMayMatch(filter, "x.name");
+        assertMayMatch(filter, "x.Name");
+        assertCannotMatch(filter, "x.getNames()");
+        assertCannotMatch(filter, "x.other");
+
+        filter = create("bar", IJavaSearchConstants.METHOD, EXACT);
+        assertMayMatch(filter, "x.bar()");
+        assertMayMatch(filter, "x.&bar");
+        assertCannotMatch(filter, "x.barrel()");
+    }
+
+    public void testExactConstructor() {
+        ReferenceNameFilter filter = create("Foo", IJavaSearchConstants.CONSTRUCTOR, EXACT);
+        assertNotNull(filter);
+        assertMayMatch(filter, "new Foo()");
+        assertCannotMatch(filter, "new Foos()");
+    }
+
+    public void testImplicitMethods() {
+        // called for operators, without the name in the source
+        assertNull(create("plus", IJavaSearchConstants.METHOD, EXACT));
+        assertNull(create("getAt", IJavaSearchConstants.METHOD, EXACT));
+        assertNull(create("call", IJavaSearchConstants.METHOD, EXACT));
+    }
+
+    public void testCaseInsensitive() {
+        assertNull(create("foo", IJavaSearchConstants.FIELD, SearchPattern.R_EXACT_MATCH));
+        assertNull(create("foo", IJavaSearchConstants.METHOD, SearchPattern.R_EXACT_MATCH));
+    }
+
+    public void testPrefix() {
+        assertNull(create("foo", IJavaSearchConstants.FIELD, SearchPattern.R_PREFIX_MATCH | SearchPattern.R_CASE_SENSITIVE));
+        assertNull(create("foo", IJavaSearchConstants.METHOD, SearchPattern.R_PREFIX_MATCH | SearchPattern.R_CASE_SENSITIVE));
+    }
+
+    public void testPattern() {
+        assertNull(create("fo*", IJavaSearchConstants.FIELD, SearchPattern.R_PATTERN_MATCH | SearchPattern.R_CASE_SENSITIVE));
+        assertNull(create("f?o", IJavaSearchConstants.METHOD, SearchPattern.R_PATTERN_MATCH | SearchPattern.R_CASE_SENSITIVE));
+    }
+
+    public void testCamelCase() {
+        assertNull(create("fB", IJavaSearchConstants.METHOD, SearchPattern.R_CAMELCASE_MATCH));
+        assertNull(create("fB", IJavaSearchConstants.FIELD, SearchPattern.R_CAMELCASE_SAME_PART_COUNT_MATCH));
+    }
+
+    public void testOtherPatterns() {
+        assertNull(create("Foo", IJavaSearchConstants.TYPE, EXACT));
+    }
+
+    public void testOrPattern() {
+        SearchPattern or = SearchPattern.createOrPattern(
+            SearchPattern.createPattern("foo", IJavaSearchConstants.FIELD, IJavaSearchConstants.REFERENCES, EXACT),
+            SearchPattern.createPattern("bar", IJavaSearchConstants.METHOD, IJavaSearchConstants.REFERENCES, EXACT));
+        ReferenceNameFilter filter = ReferenceNameFilter.create(or);
+        assertNotNull(filter);
+        assertMayMatch(filter, "x.foo");
+        assertMayMatch(filter, "x.bar()");
+        assertMayMatch(filter, "x.getFoo()");
+        assertCannotMatch(filter, "x.baz()");
+
+        // one inexact part is enough not to filter
+        or = SearchPattern.createOrPattern(
+            SearchPattern.createPattern("foo", IJavaSearchConstants.FIELD, IJavaSearchConstants.REFERENCES, EXACT),
+            SearchPattern.createPattern("ba*", IJavaSearchConstants.METHOD, IJavaSearchConstants.REFERENCES,
+                SearchPattern.R_PATTERN_MATCH | SearchPattern.R_CASE_SENSITIVE));
+        assertNull(ReferenceNameFilter.create(or));
+
+        or = SearchPattern.createOrPattern(
+            SearchPattern.createPattern("foo", IJavaSearchConstants.FIELD, IJavaSearchConstants.REFERENCES, EXACT),
+            SearchPattern.createPattern("Foo", IJavaSearchConstants.TYPE, IJavaSearchConstants.REFERENCES, EXACT));
+        assertNull(ReferenceNameFilter.create(or));
+    }
+
+    //--------------------------------------------------------------------------
+
+    private static ReferenceNameFilter create(String name, int searchFor, int matchRule) {
+        SearchPattern pattern = SearchPattern.createPattern(name, searchFor, IJavaSearchConstants.REFERENCES, matchRule);
+        assertNotNull(pattern);
+        return ReferenceNameFilter.create(pattern);
+    }
+
+    private static void assertMayMatch(ReferenceNameFilter filter, String contents) {
+        assertTrue(contents, filter.mayMatch(contents.toCharArray()));
+    }
+
+    private static void assertCannotMatch(ReferenceNameFilter filter, String contents) {
+        assertFalse(contents, filter.mayMatch(contents.toCharArray()));
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.jdt.core.groovy.tests.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import org.codehaus.groovy.ast.ClassHelper;
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
+import org.eclipse.jdt.groovy.search.VariableScope;
+
+/**
+ * Checks that the hierarchies that {@link VariableScope} keeps for an inference session are the same as the ones computed
+ * without the cache.
+ */
+public class TypeHierarchyCacheTests extends AbstractGroovySearchTest {
+
+    public TypeHierarchyCacheTests(String name) {
+        super(name);
+    }
+
+    private List<ClassNode> createTypes() throws Exception {
+        GroovyCompilationUnit unit = createUnit("Hierarchy",
+            "interface I<T> { }\n" +
+            "interface J extends I<String>, Serializable { }\n" +
+            "class A<T> implements I<T> { }\n" +
+            "abstract class B extends A<Integer> implements J, Comparable<B> { }\n" +
+            "abstract class C extends B implements I<Number> { }\n");
+        List<ClassNode> types = new ArrayList<ClassNode>(unit.getModuleNode().getClasses());
+        ClassNode c = types.get(4);
+        assertEquals("C", c.getName());
+        // parameterizations and redirects of the same types
+        types.add(c.getUnresolvedSuperClass());
+        types.add(types.get(3).getUnresolvedSuperClass());
+        types.add(types.get(3).getUnresolvedInterfaces()[1]);
+        types.add(ClassHelper.make(ArrayList.class));
+        types.add(ClassHelper.make("java.util.HashMap"));
+        types.add(ClassHelper.Integer_TYPE);
+        types.add(ClassHelper.OBJECT_TYPE);
+        return types;
+    }
+
+    public void testTypeHierarchy() throws Exception {
+        List<ClassNode> types = createTypes();
+        for (boolean useResolved : new boolean[] { true, false }) {
+            VariableScope scope = new VariableScope(null, null, false);
+            for (ClassNode type : types) {
+                ClassNode[] cached = scope.getTypeHierarchy(type, useResolved);
+                assertSameTypes(type + " " + useResolved, createTypeHierarchy(type, useResolved), cached);
+                assertSame(cached, scope.getTypeHierarchy(type, useResolved));
+            }
+        }
+    }
+
+    public void testAllInterfaces() throws Exception {
+        List<ClassNode> types = createTypes();
+        for (boolean useResolved : new boolean[] { true, false }) {
+            VariableScope scope = new VariableScope(null, null, false);
+            for (ClassNode type : types) {
+                ClassNode[] cached = scope.getAllInterfaces(type, useResolved);
+                assertSameTypes(type + " " + useResolved, findAllInterfaces(type, useResolved), cached);
+                assertSame(cached, scope.getAllInterfaces(type, useResolved));
+            }
+        }
+    }
+
+    public void testOrderOfQueries() throws Exception {
+        // a type's entry does not depend on which of its super or sub types were looked up before it
+        List<ClassNode> types = createTypes();
+        List<ClassNode> reversed = new ArrayList<ClassNode>(types);
+        Collections.reverse(reversed);
+        for (boolean useResolved : new boolean[] { true, false }) {
+            VariableScope forward = new VariableScope(null, null, false);
+            VariableScope backward = new VariableScope(null, null, false);
+            for (ClassNode type : types) {
+                forward.getTypeHierarchy(type, useResolved);
+                forward.getAllInterfaces(type, useResolved);
+            }
+            for (ClassNode type : reversed) {
+                backward.getAllInterfaces(type, useResolved);
+                backward.getTypeHierarchy(type, useResolved);
+            }
+            for (ClassNode type : types) {
+                assertSameTypes(type.toString(), Arrays.asList(forward.getTypeHierarchy(type, useResolved)),
+                    backward.getTypeHierarchy(type, useResolved));
+                assertSameTypes(type.toString(), Arrays.asList(forward.getAllInterfaces(type, useResolved)),
+                    backward.getAllInterfaces(type, useResolved));
+            }
+        }
+    }
+
+    public void testScopesShareTheCache() throws Exception {
+        ClassNode type = createTypes().get(4);
+        VariableScope top = new VariableScope(null, null, false);
+        VariableScope nested = new VariableScope(top, null, false);
+        assertSame(top.getTypeHierarchy(type, false), nested.getTypeHierarchy(type, false));
+        // but not with the scopes of another session
+        assertNotSame(top.getTypeHierarchy(type, false), new VariableScope(null, null, false).getTypeHierarchy(type, false));
+    }
+
+    //--------------------------------------------------------------------------
+
+    private static List<ClassNode> createTypeHierarchy(ClassNode type, boolean useResolved) {
+        LinkedHashSet<ClassNode> hierarchy = new LinkedHashSet<ClassNode>();
+        VariableScope.createTypeHierarchy(type, hierarchy, useResolved);
+        return new ArrayList<ClassNode>(hierarchy);
+    }
+
+    private static List<ClassNode> findAllInterfaces(ClassNode type, boolean useResolved) {
+        LinkedHashSet<ClassNode> interfaces = new LinkedHashSet<ClassNode>();
+        VariableScope.findAllInterfaces(type, interfaces, useResolved);
+        return new ArrayList<ClassNode>(interfaces);
+    }
+
+    private static void assertSameTypes(String message, List<ClassNode> expected, ClassNode[] actual) {
+        assertEquals(message, expected.toString(), Arrays.toString(actual));
+        for (int i = 0; i < actual.length; i += 1) {
+            // the same nodes, not just equal ones, so that generics are preserved
+            assertSame(message + " at " + i, expected.get(i), actual[i]);
+        }
+    }
+}
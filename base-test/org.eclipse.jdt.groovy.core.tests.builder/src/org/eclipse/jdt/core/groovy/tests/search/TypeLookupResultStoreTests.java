@@ -0,0 +1,162 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.jdt.core.groovy.tests.search;
+
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.codehaus.groovy.ast.ClassHelper;
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.MethodNode;
+import org.codehaus.groovy.ast.Parameter;
+import org.codehaus.groovy.ast.expr.ConstantExpression;
+import org.codehaus.groovy.ast.expr.Expression;
+import org.codehaus.groovy.ast.expr.VariableExpression;
+import org.codehaus.groovy.ast.stmt.BlockStatement;
+import org.eclipse.jdt.groovy.core.util.ReflectionUtils;
+import org.eclipse.jdt.groovy.search.CategoryTypeLookup;
+import org.eclipse.jdt.groovy.search.ITypeLookup;
+import org.eclipse.jdt.groovy.search.SimpleTypeLookup;
+import org.eclipse.jdt.groovy.search.TypeLookupResult;
+import org.eclipse.jdt.groovy.search.TypeLookupResultStore;
+import org.eclipse.jdt.groovy.search.VariableScope;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Checks that {@link TypeLookupResultStore} hands out a stored answer only when the scope is in the same state as when the answer
+ * was stored.
+ */
+public class TypeLookupResultStoreTests extends TestCase {
+
+    public TypeLookupResultStoreTests(String name) {
+        super(name);
+    }
+
+    private final TypeLookupResultStore store = new TypeLookupResultStore();
+    private final SimpleTypeLookup simpleLookup = new SimpleTypeLookup();
+    private VariableScope top;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        top = new VariableScope(null, null, false);
+        simpleLookup.initialize(null, top);
+    }
+
+    public void testOnlyBuiltInLookupsAreStored() {
+        assertTrue(TypeLookupResultStore.isStorable(simpleLookup));
+        assertTrue(TypeLookupResultStore.isStorable(new CategoryTypeLookup()));
+        assertFalse(TypeLookupResultStore.isStorable(new SimpleTypeLookup() {}));
+    }
+
+    public void testFlowTypes() {
+        // the same reference after assignments of different types, as seen by visits that took different paths
+        VariableExpression x = new VariableExpression("x");
+        assertEquals("java.lang.String", lookupType(simpleLookup, x, null, scopeWithX(ClassHelper.STRING_TYPE)).type.getName());
+        assertEquals("java.lang.Integer", lookupType(simpleLookup, x, null, scopeWithX(ClassHelper.Integer_TYPE)).type.getName());
+        assertEquals("java.lang.String", lookupType(simpleLookup, x, null, scopeWithX(ClassHelper.STRING_TYPE)).type.getName());
+    }
+
+    public void testMethodCallArgumentTypes() throws Exception {
+        ClassNode foo = new ClassNode("Foo", Opcodes.ACC_PUBLIC, ClassHelper.OBJECT_TYPE);
+        MethodNode one = foo.addMethod("m", Opcodes.ACC_PUBLIC, ClassHelper.OBJECT_TYPE,
+            new Parameter[] { new Parameter(ClassHelper.Integer_TYPE, "i") }, ClassNode.EMPTY_ARRAY, new BlockStatement());
+        MethodNode two = foo.addMethod("m", Opcodes.ACC_PUBLIC, ClassHelper.OBJECT_TYPE,
+            new Parameter[] { new Parameter(ClassHelper.STRING_TYPE, "s"), new Parameter(ClassHelper.STRING_TYPE, "t") },
+            ClassNode.EMPTY_ARRAY, new BlockStatement());
+        ConstantExpression m = new ConstantExpression("m");
+
+        assertSame(one, lookupType(simpleLookup, m, foo, callScope(ClassHelper.Integer_TYPE)).declaration);
+        assertSame(two, lookupType(simpleLookup, m, foo, callScope(ClassHelper.STRING_TYPE, ClassHelper.STRING_TYPE)).declaration);
+        assertSame(one, lookupType(simpleLookup, m, foo, callScope(ClassHelper.Integer_TYPE)).declaration);
+    }
+
+    public void testCallOfVariable() throws Exception {
+        // c() where c is a local variable, like a closure, as seen by visits that took different paths
+        ClassNode foo = new ClassNode("Foo", Opcodes.ACC_PUBLIC, ClassHelper.OBJECT_TYPE);
+        ConstantExpression c = new ConstantExpression("c");
+        assertEquals("groovy.lang.Closure", lookupType(simpleLookup, c, null, callScopeWithC(foo, ClassHelper.CLOSURE_TYPE)).type.getName());
+        assertEquals("java.lang.String", lookupType(simpleLookup, c, null, callScopeWithC(foo, ClassHelper.STRING_TYPE)).type.getName());
+        assertEquals("groovy.lang.Closure", lookupType(simpleLookup, c, null, callScopeWithC(foo, ClassHelper.CLOSURE_TYPE)).type.getName());
+    }
+
+    public void testLeftHandSide() {
+        ClassNode foo = new ClassNode("Foo", Opcodes.ACC_PUBLIC, ClassHelper.OBJECT_TYPE);
+        ConstantExpression name = new ConstantExpression("name");
+        for (int i = 0; i < 2; i += 1) {
+            // like the lookup itself, a stored answer takes the left-hand side out of the wormhole
+            VariableScope scope = new VariableScope(top, null, false);
+            scope.getWormhole().put("lhs", name);
+            lookupType(simpleLookup, name, foo, scope);
+            assertNull("lookup " + i, scope.getWormhole().get("lhs"));
+        }
+    }
+
+    public void testCategories() {
+        ClassNode category = new ClassNode("Cat", Opcodes.ACC_PUBLIC, ClassHelper.OBJECT_TYPE);
+        MethodNode foo = category.addMethod("foo", Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, ClassHelper.Integer_TYPE,
+            new Parameter[] { new Parameter(ClassHelper.STRING_TYPE, "self") }, ClassNode.EMPTY_ARRAY, new BlockStatement());
+        CategoryTypeLookup categoryLookup = new CategoryTypeLookup();
+        ConstantExpression name = new ConstantExpression("foo");
+
+        assertNull(lookupType(categoryLookup, name, ClassHelper.STRING_TYPE, new VariableScope(top, null, false)));
+        VariableScope use = new VariableScope(top, null, false);
+        use.setCategoryBeingDeclared(category);
+        assertSame(foo, lookupType(categoryLookup, name, ClassHelper.STRING_TYPE, new VariableScope(use, null, false)).declaration);
+        assertNull(lookupType(categoryLookup, name, ClassHelper.STRING_TYPE, new VariableScope(top, null, false)));
+    }
+
+    public void testResultBoundToScope() {
+        VariableExpression x = new VariableExpression("x");
+        VariableScope first = scopeWithX(ClassHelper.STRING_TYPE);
+        VariableScope second = scopeWithX(ClassHelper.STRING_TYPE);
+
+        TypeLookupResult one = lookupType(simpleLookup, x, null, first);
+        TypeLookupResult two = lookupType(simpleLookup, x, null, second);
+        assertSame(one.type, two.type);
+        assertSame(first, one.scope);
+        assertSame(second, two.scope);
+    }
+
+    //--------------------------------------------------------------------------
+
+    private TypeLookupResult lookupType(ITypeLookup lookup, Expression node, ClassNode objectExprType, VariableScope scope) {
+        return store.lookupType(lookup, node, objectExprType, false, scope);
+    }
+
+    private VariableScope scopeWithX(ClassNode type) {
+        VariableScope scope = new VariableScope(top, null, false);
+        scope.addVariable("x", type, ClassHelper.OBJECT_TYPE);
+        return scope;
+    }
+
+    private VariableScope callScopeWithC(ClassNode thiz, ClassNode type) throws Exception {
+        VariableScope scope = callScope();
+        scope.addVariable("this", thiz, thiz);
+        scope.addVariable("c", type, thiz);
+        return scope;
+    }
+
+    private VariableScope callScope(ClassNode... argumentTypes) throws Exception {
+        VariableScope scope = new VariableScope(top, null, false);
+        List<ClassNode> types = Arrays.asList(argumentTypes);
+        ReflectionUtils.throwableExecutePrivateMethod(VariableScope.class, "setMethodCallArgumentTypes", new Class[] { List.class },
+            scope, new Object[] { types });
+        return scope;
+    }
+}
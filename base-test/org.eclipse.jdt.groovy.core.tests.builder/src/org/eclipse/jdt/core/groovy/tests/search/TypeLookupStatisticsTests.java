@@ -0,0 +1,117 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.jdt.core.groovy.tests.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.codehaus.groovy.ast.ASTNode;
+import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.groovy.core.util.ReflectionUtils;
+import org.eclipse.jdt.groovy.search.ITypeRequestor;
+import org.eclipse.jdt.groovy.search.SimpleTypeLookup;
+import org.eclipse.jdt.groovy.search.TypeLookupResult;
+import org.eclipse.jdt.groovy.search.TypeLookupStatistics;
+
+/**
+ * Checks that keeping {@link TypeLookupStatistics} changes nothing about the types that are inferred.
+ */
+public class TypeLookupStatisticsTests extends AbstractInferencingTest {
+
+    public TypeLookupStatisticsTests(String name) {
+        super(name);
+    }
+
+    private Object enabled;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        enabled = ReflectionUtils.throwableGetPrivateField(TypeLookupStatistics.class, "ENABLED", null);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        ReflectionUtils.setPrivateField(TypeLookupStatistics.class, "ENABLED", null, enabled);
+        super.tearDown();
+    }
+
+    private GroovyCompilationUnit createUnit() {
+        return createUnit("Stats",
+            "class Foo {\n" +
+            "  String name\n" +
+            "  def m(Integer i) { i }\n" +
+            "  def m(String s) { s.length() }\n" +
+            "}\n" +
+            "def foo = new Foo(name: 'x')\n" +
+            "def x = foo.name\n" +
+            "x = foo.m(1)\n" +
+            "foo.m(x).intValue()\n" +
+            "[1, 2].collect { it + x }.first()\n" +
+            "use (Collections) { [3].max() }\n" +
+            "foo.with { name.toUpperCase() }\n" +
+            "unknown.thing\n");
+    }
+
+    public void testSameResults() throws Exception {
+        GroovyCompilationUnit unit = createUnit();
+        List<String> plain = inferAll(unit, false);
+        List<String> counted = inferAll(unit, true);
+        assertEquals(plain, counted);
+        // and the other way around
+        assertEquals(counted, inferAll(unit, false));
+    }
+
+    public void testDisabled() throws Exception {
+        GroovyCompilationUnit unit = createUnit();
+        String before = TypeLookupStatistics.report();
+        inferAll(unit, false);
+        assertEquals(before, TypeLookupStatistics.report());
+    }
+
+    public void testEnabled() throws Exception {
+        GroovyCompilationUnit unit = createUnit();
+        String before = TypeLookupStatistics.report();
+        inferAll(unit, true);
+        String after = TypeLookupStatistics.report();
+        assertFalse(before.equals(after));
+        assertTrue(after, after.contains("VariableExpression (local): "));
+        assertTrue(after, after.contains("MethodCallExpression: "));
+        assertTrue(after, after.contains("    " + SimpleTypeLookup.class.getName() + ": "));
+    }
+
+    //--------------------------------------------------------------------------
+
+    /**
+     * @return the type and confidence of each node, in the order visited
+     */
+    private List<String> inferAll(GroovyCompilationUnit unit, boolean withStatistics) {
+        ReflectionUtils.setPrivateField(TypeLookupStatistics.class, "ENABLED", null, withStatistics);
+        assertEquals(withStatistics, TypeLookupStatistics.isEnabled());
+
+        final List<String> results = new ArrayList<String>();
+        factory.createVisitor(unit).visitCompilationUnit(new ITypeRequestor() {
+            public VisitStatus acceptASTNode(ASTNode node, TypeLookupResult result, IJavaElement enclosingElement) {
+                results.add(node.getClass().getSimpleName() + " " + node.getStart() + "-" + node.getEnd() + " " +
+                    printTypeName(result.type) + " " + printTypeName(result.declaringType) + " " + result.confidence);
+                return VisitStatus.CONTINUE;
+            }
+        });
+        assertFalse(results.isEmpty());
+        return results;
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.jdt.core.groovy.tests.search;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.codehaus.groovy.ast.ClassHelper;
+import org.codehaus.groovy.ast.ClassNode;
+import org.eclipse.jdt.groovy.search.VariableScope;
+import org.eclipse.jdt.groovy.search.VariableScope.VariableInfo;
+
+/**
+ * Tests for the variable tables of {@link VariableScope}, in particular once a scope holds more variables than its table had room
+ * for at first.
+ */
+public class VariableScopeTests extends TestCase {
+
+    public VariableScopeTests(String name) {
+        super(name);
+    }
+
+    private static final int MANY = 20;
+
+    private static final ClassNode[] TYPES = {
+        ClassHelper.STRING_TYPE, ClassHelper.Integer_TYPE, ClassHelper.LIST_TYPE, ClassHelper.MAP_TYPE, ClassHelper.CLOSURE_TYPE
+    };
+
+    private final ClassNode declaringType = ClassHelper.make("Foo");
+
+    public void testNoVariables() {
+        VariableScope scope = new VariableScope(null, null, false);
+        assertNull(scope.lookupName("x"));
+        assertNull(scope.lookupNameInCurrentScope("x"));
+        assertFalse(scope.containsInThisScope("x"));
+        assertFalse(scope.updateVariable("x", ClassHelper.STRING_TYPE, null));
+        assertFalse(scope.variablesIterator().hasNext());
+    }
+
+    public void testLookupAfterGrowth() {
+        VariableScope scope = new VariableScope(null, null, false);
+        for (int i = 0; i < MANY; i += 1) {
+            scope.addVariable("v" + i, TYPES[i % TYPES.length], declaringType);
+            // everything added so far is still there
+            for (int j = 0; j <= i; j += 1) {
+                assertType("v" + j, TYPES[j % TYPES.length], scope.lookupName("v" + j));
+            }
+            assertNull(scope.lookupName("v" + (i + 1)));
+        }
+        for (int i = 0; i < MANY; i += 1) {
+            // names are equal to the declared ones, but not the same
+            String name = new String("v" + i);
+            assertTrue(name, scope.containsInThisScope(name));
+            assertType(name, TYPES[i % TYPES.length], scope.lookupNameInCurrentScope(name));
+            assertSame(declaringType, scope.lookupName(name).declaringType);
+        }
+    }
+
+    public void testShadowingAfterGrowth() {
+        VariableScope parent = new VariableScope(null, null, false);
+        VariableScope child = new VariableScope(parent, null, false);
+        VariableScope sibling = new VariableScope(parent, null, false);
+        for (int i = 0; i < MANY; i += 1) {
+            parent.addVariable("p" + i, ClassHelper.STRING_TYPE, null);
+            child.addVariable("c" + i, ClassHelper.Integer_TYPE, null);
+        }
+        // declared after both tables have grown
+        parent.addVariable("x", ClassHelper.STRING_TYPE, null);
+        child.addVariable("x", ClassHelper.Integer_TYPE, null);
+
+        assertType("x", ClassHelper.Integer_TYPE, child.lookupName("x"));
+        assertType("x", ClassHelper.STRING_TYPE, parent.lookupName("x"));
+        assertType("x", ClassHelper.STRING_TYPE, sibling.lookupName("x"));
+        assertType("p7", ClassHelper.STRING_TYPE, child.lookupName("p7"));
+        assertNull(child.lookupNameInCurrentScope("p7"));
+        assertNull(parent.lookupName("c7"));
+        assertNull(sibling.lookupName("c7"));
+
+        // a variable of an enclosing scope is updated where it is declared
+        assertTrue(child.updateVariable("p" + (MANY - 1), ClassHelper.MAP_TYPE, null));
+        assertType("p" + (MANY - 1), ClassHelper.MAP_TYPE, sibling.lookupName("p" + (MANY - 1)));
+        assertFalse(child.containsInThisScope("p" + (MANY - 1)));
+
+        // a shadowed variable is not
+        assertTrue(child.updateVariable("x", ClassHelper.LIST_TYPE, null));
+        assertType("x", ClassHelper.LIST_TYPE, child.lookupName("x"));
+        assertType("x", ClassHelper.STRING_TYPE, parent.lookupName("x"));
+        assertSame("declaring type is kept", VariableScope.OBJECT_CLASS_NODE, child.lookupName("x").declaringType);
+
+        child.updateOrAddVariable("y", ClassHelper.CLOSURE_TYPE, declaringType);
+        assertTrue(child.containsInThisScope("y"));
+        assertNull(parent.lookupName("y"));
+    }
+
+    public void testRedeclaration() {
+        VariableScope scope = new VariableScope(null, null, false);
+        for (int i = 0; i < MANY; i += 1) {
+            scope.addVariable("v" + i, ClassHelper.STRING_TYPE, null);
+        }
+        scope.addVariable("v3", ClassHelper.Integer_TYPE, null);
+        scope.addVariable(new String("v17"), ClassHelper.LIST_TYPE, null);
+
+        assertType("v3", ClassHelper.Integer_TYPE, scope.lookupName("v3"));
+        assertType("v17", ClassHelper.LIST_TYPE, scope.lookupName("v17"));
+        assertEquals(MANY, names(scope).size());
+    }
+
+    public void testIterationOrder() {
+        VariableScope parent = new VariableScope(null, null, false);
+        VariableScope child = new VariableScope(parent, null, false);
+        List<String> expected = new ArrayList<String>();
+        for (int i = 0; i < MANY; i += 1) {
+            child.addVariable("c" + i, ClassHelper.Integer_TYPE, null);
+            expected.add("c" + i);
+        }
+        child.addVariable("x", ClassHelper.Integer_TYPE, null);
+        expected.add("x");
+        for (int i = 0; i < MANY; i += 1) {
+            parent.addVariable("p" + i, ClassHelper.STRING_TYPE, null);
+            expected.add("p" + i);
+        }
+        parent.addVariable("x", ClassHelper.STRING_TYPE, null);
+        expected.add("x");
+
+        // the innermost scope first, each in declaration order; shadowed variables are included
+        assertEquals(expected, names(child));
+
+        Iterator<Map.Entry<String, VariableInfo>> iter = child.variablesIterator();
+        for (int i = 0; i < MANY; i += 1) {
+            iter.next();
+        }
+        Map.Entry<String, VariableInfo> x = iter.next();
+        assertEquals("x", x.getKey());
+        assertSame(ClassHelper.Integer_TYPE, x.getValue().type);
+    }
+
+    //--------------------------------------------------------------------------
+
+    private static void assertType(String name, ClassNode expected, VariableInfo info) {
+        assertNotNull(name + " not found", info);
+        assertSame(name, expected, info.type);
+    }
+
+    private static List<String> names(VariableScope scope) {
+        List<String> names = new ArrayList<String>();
+        for (Iterator<Map.Entry<String, VariableInfo>> iter = scope.variablesIterator(); iter.hasNext();) {
+            names.add(iter.next().getKey());
+        }
+        return names;
+    }
+}
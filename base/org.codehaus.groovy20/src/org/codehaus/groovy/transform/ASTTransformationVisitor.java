@@ -21,7 +21,6 @@ import groovy.transform.CompilationUnitAware;
 
 import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.URL;
 import java.util.ArrayList;
@@ -36,6 +35,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.WeakHashMap;
 
 import org.codehaus.groovy.GroovyException;
 import org.codehaus.groovy.ast.ASTNode;
@@ -263,94 +263,31 @@ public final class ASTTransformationVisitor extends ClassCodeVisitorSupport {
         GroovyClassLoader transformLoader = compilationUnit.getTransformLoader();
         Map<String, URL> transformNames = new LinkedHashMap<String, URL>();
         try {
-            Enumeration<URL> globalServices = transformLoader.getResources("META-INF/services/org.codehaus.groovy.transform.ASTTransformation");
-            while (globalServices.hasMoreElements()) {
-                URL service = globalServices.nextElement();
-                String className;
-
-                // GRECLIPSE: start: don't consume our own META-INF entries - bit of a hack...
-//                try {
-//                	// this unfortunately also prevents the execution of transforms from project dependencies!
-//					String file = service.getFile().toString();
-//					System.out.println("TRANSFORM: Processing META-INF file "+file);
-//					if (file.indexOf("jar!")==-1) {
-//						// it is a 'local' services file
-//						// eg. /META-INF/services/org.codehaus.groovy.transform.ASTTransformation
-//						// whereas a jar related one would be:
-//						// eg. file:/N:/workspaces/groovy35/org.codehaus.groovy/lib/groovy-all-1.7-rc-1.jar!/META-INF/services/org.codehaus.groovy.transform.ASTTransformation
-//						continue;
-//					}
-//                } catch (Throwable t) {
-//                	t.printStackTrace();
-//                }
-                // end
-                // GRECLIPSE start
-                // was
-                // BufferedReader svcIn = new BufferedReader(new InputStreamReader(service.openStream()));
-                // now
-
-           		BufferedReader svcIn = null;
-                InputStream is = service.openStream();
-                try {
-	                svcIn = new BufferedReader(new InputStreamReader(is));
- 	               // end
-   	               try {
-    	               className = svcIn.readLine();
-        	       } catch (IOException ioe) {
-            	       compilationUnit.getErrorCollector().addError(new SimpleMessage(
-                       	"IOException reading the service definition at "
-                       + service.toExternalForm() + " because of exception " + ioe.toString(), null));
-                    	continue;
-                   }
-                Set<String> disabledGlobalTransforms = compilationUnit.getConfiguration().getDisabledGlobalASTTransformations();
-                if (disabledGlobalTransforms==null) disabledGlobalTransforms=Collections.emptySet();
-                while (className != null) {
-                    if (!className.startsWith("#") && className.length() > 0) {
-                        if (!disabledGlobalTransforms.contains(className)) {
-                            if (transformNames.containsKey(className)) {
-                                if (!service.equals(transformNames.get(className))) {
-                                    compilationUnit.getErrorCollector().addWarning(
-                                        WarningMessage.POSSIBLE_ERRORS,
-                                        "The global transform for class " + className + " is defined in both "
+            // GRECLIPSE: start: service files are read once per transform loader
+            Set<String> disabledGlobalTransforms = compilationUnit.getConfiguration().getDisabledGlobalASTTransformations();
+            if (disabledGlobalTransforms==null) disabledGlobalTransforms=Collections.emptySet();
+            for (Map.Entry<String, URL> globalTransform : getGlobalTransformNames(compilationUnit, transformLoader, isFirstScan)) {
+                String className = globalTransform.getKey();
+                URL service = globalTransform.getValue();
+                if (!disabledGlobalTransforms.contains(className)) {
+                    if (transformNames.containsKey(className)) {
+                        if (!service.equals(transformNames.get(className))) {
+                            compilationUnit.getErrorCollector().addWarning(
+                                    WarningMessage.POSSIBLE_ERRORS,
+                                    "The global transform for class " + className + " is defined in both "
                                             + transformNames.get(className).toExternalForm()
                                             + " and "
                                             + service.toExternalForm()
                                             + " - the former definition will be used and the latter ignored.",
-                                        null,
-                                        null);
-                                }
-
-                            } else {
-                        	// GRECLIPSE: start
-                        	/*old{
-                        		transformNames.put(className, service);
-                        	}new*/
-                        	    if (compilationUnit.allowTransforms || globalTransformsAllowedInReconcile.contains(className)) {
-
-                        		    transformNames.put(className, service);
-                        	    }
-                        	// GRECLIPSE: end
-                            }
+                                    null,
+                                    null);
                         }
-                    }
-                    try {
-                        className = svcIn.readLine();
-                    } catch (IOException ioe) {
-                        compilationUnit.getErrorCollector().addError(new SimpleMessage(
-                            "IOException reading the service definition at "
-                            + service.toExternalForm() + " because of exception " + ioe.toString(), null));
-                        //noinspection UnnecessaryContinue
-                        continue;
+                    } else if (compilationUnit.allowTransforms || globalTransformsAllowedInReconcile.contains(className)) {
+                        transformNames.put(className, service);
                     }
                 }
-                } finally {
-                  if (svcIn!=null)
-                  svcIn.close();
-                }
-                // GRECLIPSE: start
-                is.close();
-                // end
             }
+            // GRECLIPSE: end
         } catch (IOException e) {
             //FIXME the warning message will NPE with what I have :(
             compilationUnit.getErrorCollector().addError(new SimpleMessage(
@@ -394,6 +331,89 @@ public final class ASTTransformationVisitor extends ClassCodeVisitorSupport {
         }
     }
 
+    // GRECLIPSE: start
+    private static class GlobalTransformNames {
+        final int urlCount;
+        final List<Map.Entry<String, URL>> names;
+
+        GlobalTransformNames(int urlCount, List<Map.Entry<String, URL>> names) {
+            this.urlCount = urlCount;
+            this.names = names;
+        }
+    }
+
+    private static class GlobalTransformName implements Map.Entry<String, URL> {
+        private final String className;
+        private final URL service;
+
+        GlobalTransformName(String className, URL service) {
+            this.className = className;
+            this.service = service;
+        }
+
+        public String getKey() {
+            return className;
+        }
+
+        public URL getValue() {
+            return service;
+        }
+
+        public URL setValue(URL value) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static final Map<ClassLoader, GlobalTransformNames> globalTransformNamesCache = new WeakHashMap<ClassLoader, GlobalTransformNames>();
+
+    /**
+     * Reads the class names listed by the global transform service files visible to the transform loader, in the order they are
+     * found. The result of a first scan is kept for as long as the loader lives and has the same URLs; the IDE creates a new
+     * loader whenever a project's classpath changes.
+     */
+    private static List<Map.Entry<String, URL>> getGlobalTransformNames(CompilationUnit compilationUnit, GroovyClassLoader transformLoader, boolean isFirstScan) throws IOException {
+        int urlCount = transformLoader.getURLs().length;
+        if (isFirstScan) {
+            synchronized (globalTransformNamesCache) {
+                GlobalTransformNames cached = globalTransformNamesCache.get(transformLoader);
+                if (cached != null && cached.urlCount == urlCount) {
+                    return cached.names;
+                }
+            }
+        }
+        List<Map.Entry<String, URL>> names = new ArrayList<Map.Entry<String, URL>>();
+        boolean complete = true;
+        Enumeration<URL> globalServices = transformLoader.getResources("META-INF/services/org.codehaus.groovy.transform.ASTTransformation");
+        while (globalServices.hasMoreElements()) {
+            URL service = globalServices.nextElement();
+            BufferedReader svcIn = null;
+            try {
+                svcIn = new BufferedReader(new InputStreamReader(service.openStream()));
+                for (String className = svcIn.readLine(); className != null; className = svcIn.readLine()) {
+                    if (!className.startsWith("#") && className.length() > 0) {
+                        names.add(new GlobalTransformName(className, service));
+                    }
+                }
+            } catch (IOException ioe) {
+                complete = false;
+                compilationUnit.getErrorCollector().addError(new SimpleMessage(
+                        "IOException reading the service definition at "
+                                + service.toExternalForm() + " because of exception " + ioe.toString(), null));
+            } finally {
+                if (svcIn != null)
+                    svcIn.close();
+            }
+        }
+        if (isFirstScan && complete) {
+            names = Collections.unmodifiableList(names);
+            synchronized (globalTransformNamesCache) {
+                globalTransformNamesCache.put(transformLoader, new GlobalTransformNames(urlCount, names));
+            }
+        }
+        return names;
+    }
+    // GRECLIPSE: end
+
     // GRECLIPSE: start
     private static List<String> globalTransformsAllowedInReconcile = null;
 
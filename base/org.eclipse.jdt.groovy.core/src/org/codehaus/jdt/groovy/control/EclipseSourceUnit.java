@@ -35,6 +35,8 @@ public class EclipseSourceUnit extends SourceUnit {
 
     final private IFile file;
     final public JDTResolver resolver;
+    // set when parsing and conversion have already been done by prepare()
+    private boolean prepared;
 
     public EclipseSourceUnit(IFile resource, String filepath, String string, CompilerConfiguration groovyCompilerConfig,
             GroovyClassLoader classLoader, ErrorCollector errorCollector, JDTResolver resolver) {
@@ -50,9 +52,33 @@ public class EclipseSourceUnit extends SourceUnit {
         return file;
     }
 
+    /**
+     * Runs the parsing and conversion steps for this source unit on the current thread, ahead of the compilation unit asking for
+     * them. Everything touched here is private to this source unit, so several units can be prepared concurrently. The module node
+     * is only added to the compilation unit later, when it reaches conversion and calls {@link #convert()}.
+     *
+     * @return true if the unit is now waiting on conversion, false if it failed and should be discarded
+     */
+    public boolean prepare() {
+        try {
+            parse();
+            completePhase();
+            super.convert();
+            super.cst = null;
+            prepared = true;
+        } catch (Throwable t) {
+            prepared = false;
+        }
+        return prepared;
+    }
+
     @Override
     public void convert() throws CompilationFailedException {
-        super.convert();
+        if (prepared) {
+            prepared = false;
+        } else {
+            super.convert();
+        }
         super.cst = null;
     }
 
@@ -16,7 +16,9 @@
 package org.codehaus.jdt.groovy.integration.internal;
 
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.codehaus.jdt.groovy.integration.ISupplementalIndexer;
 import org.eclipse.jdt.core.compiler.CharOperation;
@@ -29,10 +31,14 @@ import org.eclipse.jdt.internal.compiler.classfmt.ClassFileReader;
  */
 public class BinaryGroovySupplementalIndexer implements ISupplementalIndexer {
 
+    /**
+     * Returns each name found in the string constants of the class file once. Descriptors, signatures and other strings that are
+     * not dotted identifiers are skipped. The indexer records one method reference per name, which matches any arity.
+     */
     public List<char[]> extractNamedReferences(byte[] contents, ClassFileReader reader) {
         int[] constantPoolOffsets = reader.getConstantPoolOffsets();
         int constantPoolCount = constantPoolOffsets.length;
-        List<char[]> refs = new ArrayList<char[]>();
+        Set<String> names = new LinkedHashSet<String>();
         for (int i = 1; i < constantPoolCount; i++) {
             int tag = reader.u1At(constantPoolOffsets[i]);
             switch (tag) {
@@ -41,11 +47,18 @@ public class BinaryGroovySupplementalIndexer implements ISupplementalIndexer {
                     if (isValidId(strConst)) {
                         char[][] splits = CharOperation.splitOn('.', strConst);
                         for (char[] split : splits) {
-                            refs.add(split);
+                            // skip the empty and numeric segments of strings like "a..b" or "v.1"
+                            if (split.length > 0 && Character.isJavaIdentifierStart(split[0])) {
+                                names.add(String.valueOf(split));
+                            }
                         }
                     }
             }
         }
+        List<char[]> refs = new ArrayList<char[]>(names.size());
+        for (String name : names) {
+            refs.add(name.toCharArray());
+        }
         return refs;
     }
 
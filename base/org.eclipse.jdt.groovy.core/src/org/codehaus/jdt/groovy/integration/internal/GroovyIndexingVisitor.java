@@ -15,6 +15,9 @@
  */
 package org.codehaus.jdt.groovy.integration.internal;
 
+import java.util.HashSet;
+import java.util.Set;
+
 import org.codehaus.groovy.ast.AnnotationNode;
 import org.codehaus.groovy.ast.ClassCodeVisitorSupport;
 import org.codehaus.groovy.ast.ClassNode;
@@ -25,6 +28,7 @@ import org.codehaus.groovy.ast.ImportNodeCompatibilityWrapper;
 import org.codehaus.groovy.ast.MethodNode;
 import org.codehaus.groovy.ast.ModuleNode;
 import org.codehaus.groovy.ast.Parameter;
+import org.codehaus.groovy.ast.PropertyNode;
 import org.codehaus.groovy.ast.expr.CastExpression;
 import org.codehaus.groovy.ast.expr.ClassExpression;
 import org.codehaus.groovy.ast.expr.ClosureExpression;
@@ -35,9 +39,11 @@ import org.codehaus.groovy.ast.expr.FieldExpression;
 import org.codehaus.groovy.ast.expr.MethodCallExpression;
 import org.codehaus.groovy.ast.expr.VariableExpression;
 import org.codehaus.groovy.ast.stmt.Statement;
+import org.codehaus.jdt.groovy.integration.IPropertyReferenceRequestor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.jdt.groovy.core.Activator;
+import org.eclipse.jdt.groovy.search.AccessorSupport;
 import org.eclipse.jdt.internal.compiler.ISourceElementRequestor;
 import org.eclipse.jdt.internal.compiler.ast.ImportReference;
 import org.eclipse.jdt.internal.core.util.Util;
@@ -52,11 +58,19 @@ public class GroovyIndexingVisitor extends ClassCodeVisitorSupport {
 
     private ISourceElementRequestor requestor;
 
+    /** Receives the property names for the Groovy-specific index category, or null if the requestor does not keep it */
+    private IPropertyReferenceRequestor propertyRequestor;
+    private Set<String> propertyReferences;
+
     // used for GRECLIPSE-741, remove when issue is solved
     private ModuleNode module;
 
     public GroovyIndexingVisitor(ISourceElementRequestor requestor) {
         this.requestor = requestor;
+        if (requestor instanceof IPropertyReferenceRequestor) {
+            this.propertyRequestor = (IPropertyReferenceRequestor) requestor;
+            this.propertyReferences = new HashSet<String>();
+        }
     }
 
     void doVisit(ModuleNode node, ImportReference pkg) {
@@ -67,6 +81,9 @@ public class GroovyIndexingVisitor extends ClassCodeVisitorSupport {
 
         // used for GRECLIPSE-741, remove when issue is solved
         module = node;
+        if (propertyRequestor != null) {
+            propertyRequestor.acceptPropertyReference(IPropertyReferenceRequestor.INDEXED);
+        }
         try {
             this.visitImports(node);
 
@@ -88,6 +105,7 @@ public class GroovyIndexingVisitor extends ClassCodeVisitorSupport {
                 String importFieldName = ImportNodeCompatibilityWrapper.getFieldName(importNode);
                 if (importFieldName != null) {
                     requestor.acceptUnknownReference(importFieldName.toCharArray(), 0);
+                    handlePropertyReference(importFieldName);
                 }
             }
         }
@@ -104,6 +122,7 @@ public class GroovyIndexingVisitor extends ClassCodeVisitorSupport {
         int start = call.getStart();
         // also could be a field reference
         requestor.acceptFieldReference(methodName, start);
+        handlePropertyReference(methodStr);
         // we don't know how many arguments the method has, so go up to 7.
         for (int i = 0; i < 7; i++) {
             requestor.acceptMethodReference(methodName, i, start);
@@ -114,6 +133,7 @@ public class GroovyIndexingVisitor extends ClassCodeVisitorSupport {
     public void visitFieldExpression(FieldExpression expression) {
         super.visitFieldExpression(expression);
         requestor.acceptFieldReference(expression.getFieldName().toCharArray(), expression.getStart());
+        handlePropertyReference(expression.getFieldName());
     }
 
     @Override
@@ -123,6 +143,10 @@ public class GroovyIndexingVisitor extends ClassCodeVisitorSupport {
             char[] constName = expression.getValue().toString().toCharArray();
             int start = expression.getStart();
             requestor.acceptFieldReference(constName, start);
+            // property names of property expressions and keys of named arguments
+            if (expression.getValue() instanceof String) {
+                handlePropertyReference((String) expression.getValue());
+            }
             // also could be a method reference
             // we don't know how many arguments the method has, so go up to 7.
             for (int i = 0; i < 7; i++) {
@@ -154,6 +178,10 @@ public class GroovyIndexingVisitor extends ClassCodeVisitorSupport {
     @Override
     public void visitDeclarationExpression(DeclarationExpression expression) {
         handleType(expression.getLeftExpression().getType(), false, true);
+        // script fields are still declarations at this point
+        if (expression.getLeftExpression() instanceof VariableExpression) {
+            handlePropertyReference(((VariableExpression) expression.getLeftExpression()).getName());
+        }
         expression.getRightExpression().visit(this);
         // super.visitDeclarationExpression(expression);
     }
@@ -161,17 +189,27 @@ public class GroovyIndexingVisitor extends ClassCodeVisitorSupport {
     @Override
     public void visitVariableExpression(VariableExpression expression) {
         requestor.acceptUnknownReference(expression.getName().toCharArray(), expression.getStart());
+        // could be a property of this or of a closure's delegate
+        handlePropertyReference(expression.getName());
     }
 
     @Override
     public void visitField(FieldNode node) {
         // handleType(node.getType(), false);
+        handlePropertyReference(node.getName());
         super.visitField(node);
     }
 
+    @Override
+    public void visitProperty(PropertyNode node) {
+        handlePropertyReference(node.getName());
+        super.visitProperty(node);
+    }
+
     @Override
     public void visitMethod(MethodNode node) {
         if (!node.isSynthetic()) {
+            handlePropertyReference(node.getName());
             handleType(node.getReturnType(), false, true);
             for (Parameter param : node.getParameters()) {
                 handleType(param.getType(), false, true);
@@ -215,6 +253,29 @@ public class GroovyIndexingVisitor extends ClassCodeVisitorSupport {
         super.visitAnnotation(node);
     }
 
+    /**
+     * Records a name that may refer to a property. An accessor name also records the name of its property, both as spelled in the
+     * accessor and with a lower-case first letter, so that a property is found under its own name however it is referred to.
+     */
+    private void handlePropertyReference(String name) {
+        if (propertyRequestor == null || name.length() == 0) {
+            return;
+        }
+        acceptPropertyReference(name);
+        AccessorSupport kind = AccessorSupport.create(name, false);
+        if (kind.isAccessor()) {
+            String property = name.substring(kind == AccessorSupport.ISSER ? 2 : 3);
+            acceptPropertyReference(property);
+            acceptPropertyReference(Character.toLowerCase(property.charAt(0)) + property.substring(1));
+        }
+    }
+
+    private void acceptPropertyReference(String name) {
+        if (propertyReferences.add(name)) {
+            propertyRequestor.acceptPropertyReference(name.toCharArray());
+        }
+    }
+
     // may not be resolved
     private void handleType(ClassNode node, boolean isAnnotation, boolean useQualifiedName) {
         if (node == null) {
@@ -15,11 +15,13 @@
  */
 package org.codehaus.jdt.groovy.integration.internal;
 
+import java.io.Closeable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 import org.codehaus.groovy.control.CompilerConfiguration;
 import org.codehaus.groovy.control.ErrorCollector;
@@ -36,20 +38,28 @@ import org.codehaus.jdt.groovy.model.GroovyClassFileWorkingCopy;
 import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
 import org.codehaus.jdt.groovy.model.GroovyNature;
 import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.ISourceRange;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.WorkingCopyOwner;
 import org.eclipse.jdt.core.search.IJavaSearchScope;
+import org.eclipse.jdt.core.search.SearchMatch;
 import org.eclipse.jdt.core.search.SearchPattern;
 import org.eclipse.jdt.core.search.SearchRequestor;
 import org.eclipse.jdt.groovy.core.util.ContentTypeUtils;
 import org.eclipse.jdt.groovy.core.util.GroovyUtils;
 import org.eclipse.jdt.groovy.core.util.ReflectionUtils;
 import org.eclipse.jdt.groovy.search.ITypeRequestor;
+import org.eclipse.jdt.groovy.search.ITypeRequestor.VisitStatus;
+import org.eclipse.jdt.groovy.search.PropertyReferenceFilter;
+import org.eclipse.jdt.groovy.search.ReferenceNameFilter;
+import org.eclipse.jdt.groovy.search.SearchMatchStream;
 import org.eclipse.jdt.groovy.search.TypeInferencingVisitorFactory;
 import org.eclipse.jdt.groovy.search.TypeInferencingVisitorWithRequestor;
+import org.eclipse.jdt.groovy.search.TypeInferencingVisitorWithRequestor.VisitCompleted;
+import org.eclipse.jdt.groovy.search.TypeInferencingWorkers;
 import org.eclipse.jdt.groovy.search.TypeRequestorFactory;
 import org.eclipse.jdt.internal.codeassist.complete.CompletionParser;
 import org.eclipse.jdt.internal.compiler.CompilationResult;
@@ -190,8 +200,107 @@ public class GroovyLanguageSupport implements LanguageSupport {
         return ContentTypeUtils.isGroovyLikeFileName(fileName);
     }
 
-    public boolean maybePerformDelegatedSearch(PossibleMatch possibleMatch, SearchPattern pattern, SearchRequestor requestor) {
+    /**
+     * Starts the delegated searches of a batch of possible matches on the inferencing workers (if enabled). The matches found for
+     * each unit are streamed to the search requestor by {@link #maybePerformDelegatedSearch(PossibleMatch, SearchPattern,
+     * SearchRequestor, IProgressMonitor)} as soon as they are found, so that they reach it in the same order and on the same thread as without the
+     * workers. The property reference filter of the search is created here too, and handed to each unit along with its stream.
+     */
+    public void prepareDelegatedSearch(PossibleMatch[] possibleMatches, int start, int length, SearchPattern pattern,
+            final IProgressMonitor monitor) {
+        PropertyReferenceFilter propertyFilter = PropertyReferenceFilter.create(pattern);
+        if (propertyFilter != null) {
+            for (int i = start, n = start + length; i < n; i += 1) {
+                if (possibleMatches[i].isInterestingSourceFile()) {
+                    possibleMatches[i].preparedDelegatedSearch = new PreparedSearch(propertyFilter);
+                }
+            }
+        }
+        if (!TypeInferencingWorkers.isEnabled() || length < TypeInferencingWorkers.THRESHOLD) {
+            return;
+        }
+        ReferenceNameFilter filter = ReferenceNameFilter.create(pattern);
+        List<PossibleMatch> prepared = new ArrayList<PossibleMatch>(length);
+        List<SearchMatchStream> streams = new ArrayList<SearchMatchStream>(length);
+        List<Callable<Object>> tasks = new ArrayList<Callable<Object>>(length);
+        for (int i = start, n = start + length; i < n; i += 1) {
+            final PossibleMatch possibleMatch = possibleMatches[i];
+            if (!possibleMatch.isInterestingSourceFile() || possibleMatch.openable == null || !possibleMatch.openable.exists()) {
+                continue;
+            }
+            if ((propertyFilter != null && !propertyFilter.mayMatch(possibleMatch)) ||
+                    (filter != null && !filter.mayMatch(possibleMatch.getContents()))) {
+                // left to maybePerformDelegatedSearch, which filters it out again without inferencing
+                continue;
+            }
+            final SearchMatchStream stream = new SearchMatchStream(monitor);
+            final ITypeRequestor typeRequestor = new TypeRequestorFactory().createRequestor(possibleMatch, pattern, stream);
+            if (typeRequestor == null) {
+                continue;
+            }
+            prepared.add(possibleMatch);
+            streams.add(stream);
+            tasks.add(new Callable<Object>() {
+                public Object call() {
+                    if (!stream.start()) {
+                        // the search thread got to this unit first
+                        return null;
+                    }
+                    try {
+                        // if canceled, nobody is waiting for the matches any more
+                        if (!stream.isCanceled()) {
+                            TypeInferencingVisitorWithRequestor visitor = new TypeInferencingVisitorFactory().createVisitor(possibleMatch);
+                            if (visitor != null) {
+                                visitor.visitCompilationUnit(typeRequestor);
+                            }
+                        }
+                    } catch (RuntimeException e) {
+                        Util.log(e, "Error in delegated search for " + new String(possibleMatch.getFileName()));
+                    } finally {
+                        stream.finish();
+                    }
+                    return null;
+                }
+            });
+        }
+        if (tasks.size() < TypeInferencingWorkers.THRESHOLD) {
+            return;
+        }
+        for (int i = 0, n = prepared.size(); i < n; i += 1) {
+            PossibleMatch possibleMatch = prepared.get(i);
+            if (possibleMatch.preparedDelegatedSearch == null) {
+                possibleMatch.preparedDelegatedSearch = new PreparedSearch(null);
+            }
+            ((PreparedSearch) possibleMatch.preparedDelegatedSearch).stream = streams.get(i);
+        }
+        TypeInferencingWorkers.submitAll(tasks);
+    }
+
+    public boolean maybePerformDelegatedSearch(PossibleMatch possibleMatch, SearchPattern pattern, SearchRequestor requestor,
+            IProgressMonitor monitor) {
+        PreparedSearch prepared = (PreparedSearch) possibleMatch.preparedDelegatedSearch;
+        PropertyReferenceFilter propertyFilter = null;
+        if (prepared != null) {
+            possibleMatch.preparedDelegatedSearch = null;
+            if (prepared.stream != null && prepared.stream.drainTo(requestor)) {
+                return true;
+            }
+            // no worker has started on the unit, so search it here
+            propertyFilter = prepared.propertyFilter;
+        }
         if (possibleMatch.openable != null && possibleMatch.openable.exists()) {
+            if (propertyFilter != null && !propertyFilter.mayMatch(possibleMatch)) {
+                // the index shows that the unit does not refer to the property
+                return true;
+            }
+            ReferenceNameFilter filter = ReferenceNameFilter.create(pattern);
+            if (filter != null && !filter.mayMatch(possibleMatch.getContents())) {
+                // the unit does not mention the name, so there is nothing to infer
+                return true;
+            }
+            if (monitor != null) {
+                requestor = new CancelableSearchRequestor(requestor, monitor);
+            }
             ITypeRequestor typeRequestor = new TypeRequestorFactory().createRequestor(possibleMatch, pattern, requestor);
             if (typeRequestor != null) {
                 TypeInferencingVisitorWithRequestor visitor = new TypeInferencingVisitorFactory().createVisitor(possibleMatch);
@@ -202,6 +311,47 @@ public class GroovyLanguageSupport implements LanguageSupport {
         return false;
     }
 
+    /**
+     * What {@link #prepareDelegatedSearch(PossibleMatch[], int, int, SearchPattern, IProgressMonitor)} hands to a possible match:
+     * the property reference filter of the search, if any, and the stream of the unit's search on the workers, if started.
+     */
+    private static class PreparedSearch implements Closeable {
+        final PropertyReferenceFilter propertyFilter;
+        SearchMatchStream stream;
+
+        PreparedSearch(PropertyReferenceFilter propertyFilter) {
+            this.propertyFilter = propertyFilter;
+        }
+
+        public void close() {
+            if (stream != null) {
+                stream.close();
+            }
+        }
+    }
+
+    /**
+     * Checks the search monitor before each match of a delegated search that runs on the search thread, and ends the visit once
+     * the search is canceled.
+     */
+    private static class CancelableSearchRequestor extends SearchRequestor {
+        private final SearchRequestor requestor;
+        private final IProgressMonitor monitor;
+
+        CancelableSearchRequestor(SearchRequestor requestor, IProgressMonitor monitor) {
+            this.requestor = requestor;
+            this.monitor = monitor;
+        }
+
+        @Override
+        public void acceptSearchMatch(SearchMatch match) throws CoreException {
+            if (monitor.isCanceled()) {
+                throw new VisitCompleted(VisitStatus.STOP_VISIT);
+            }
+            requestor.acceptSearchMatch(match);
+        }
+    }
+
     public EventHandler getEventHandler() {
         // FIXASC could be une singleton?
         return new GroovyEventHandler();
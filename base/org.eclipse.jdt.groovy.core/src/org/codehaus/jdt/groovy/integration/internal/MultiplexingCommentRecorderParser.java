@@ -22,6 +22,7 @@ import org.eclipse.jdt.internal.compiler.ast.CompilationUnitDeclaration;
 import org.eclipse.jdt.internal.compiler.env.ICompilationUnit;
 import org.eclipse.jdt.internal.compiler.impl.CompilerOptions;
 import org.eclipse.jdt.internal.compiler.problem.ProblemReporter;
+import org.eclipse.jdt.internal.core.CompilationUnitProblemFinder;
 import org.eclipse.jdt.internal.core.util.CommentRecorderParser;
 
 /**
@@ -59,8 +60,11 @@ public class MultiplexingCommentRecorderParser extends CommentRecorderParser {
             }
             // FIXASC Is it ok to use a new parser here everytime? If we don't we sometimes recurse back into the first one
             // FIXASC ought to reuse to ensure types end up in same groovy CU
-            return new GroovyParser(this.groovyParser.requestor, this.groovyParser.getCompilerOptions(),
-                    this.groovyParser.problemReporter, allowTransforms, true).dietParse(sourceUnit, compilationResult);
+            GroovyParser parser = new GroovyParser(this.groovyParser.requestor, this.groovyParser.getCompilerOptions(),
+                    this.groovyParser.problemReporter, allowTransforms, true);
+            // only editor reconciles benefit from re-parsing just the edited member
+            parser.setIncrementalReparseEnabled(this.groovyParser.requestor instanceof CompilationUnitProblemFinder);
+            return parser.dietParse(sourceUnit, compilationResult);
             // return groovyParser.dietParse(sourceUnit, compilationResult);
         } else {
             return super.dietParse(sourceUnit, compilationResult);
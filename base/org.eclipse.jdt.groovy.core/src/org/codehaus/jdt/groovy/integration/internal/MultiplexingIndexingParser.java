@@ -15,11 +15,26 @@
  */
 package org.codehaus.jdt.groovy.integration.internal;
 
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
+import org.codehaus.jdt.groovy.integration.IBatchIndexingParser;
+import org.codehaus.jdt.groovy.integration.IPropertyReferenceRequestor;
 import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyCompilationUnitDeclaration;
 import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyParser;
+import org.eclipse.core.resources.IFile;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jdt.core.compiler.CharOperation;
 import org.eclipse.jdt.groovy.core.util.ContentTypeUtils;
 import org.eclipse.jdt.groovy.core.util.ReflectionUtils;
 import org.eclipse.jdt.internal.compiler.CompilationResult;
@@ -33,14 +48,16 @@ import org.eclipse.jdt.internal.compiler.ast.FieldDeclaration;
 import org.eclipse.jdt.internal.compiler.ast.TypeDeclaration;
 import org.eclipse.jdt.internal.compiler.env.ICompilationUnit;
 import org.eclipse.jdt.internal.compiler.impl.CompilerOptions;
+import org.eclipse.jdt.internal.compiler.problem.ProblemReporter;
 import org.eclipse.jdt.internal.compiler.util.HashtableOfObjectToInt;
 import org.eclipse.jdt.internal.core.search.indexing.IndexingParser;
+import org.eclipse.jdt.internal.core.util.Util;
 
 /**
  * @author Andrew Eisenberg
  * @created Aug 27, 2009
  */
-public class MultiplexingIndexingParser extends IndexingParser {
+public class MultiplexingIndexingParser extends IndexingParser implements IBatchIndexingParser {
     SourceElementNotifier notifier;
     boolean groovyReportReferenceInfo;
     ISourceElementRequestor requestor;
@@ -62,28 +79,191 @@ public class MultiplexingIndexingParser extends IndexingParser {
     @Override
     public CompilationUnitDeclaration parseCompilationUnit(ICompilationUnit unit, boolean fullParse, IProgressMonitor pm) {
         if (ContentTypeUtils.isGroovyLikeFileName(unit.getFileName())) {
+            PreparedDocument prepared = takePreparedDocument(unit);
+            if (prepared != null) {
+                prepared.replay(requestor);
+                return prepared.cud;
+            }
 
             // ASSUMPTIONS:
             // 1) there is no difference between a diet and full parse in the groovy works, so can ignore the fullParse parameter
             // 2) parsing is for the entire CU (ie- from character 0, to unit.getContents().length)
             // 3) nodesToCategories map is not necessary. I think it has something to do with JavaDoc, but not sure
 
-            CompilationResult compilationResult = new CompilationResult(unit, 0, 0, this.options.maxProblemsPerUnit);
+            return parseAndNotify(unit, problemReporter, requestor, notifier);
+        } else {
+            return super.parseCompilationUnit(unit, fullParse, pm);
+        }
+    }
 
-            // FIXASC Is it ok to use a new parser here everytime? If we don't we sometimes recurse back into the first one
-            GroovyCompilationUnitDeclaration cud = (GroovyCompilationUnitDeclaration) new GroovyParser(this.options,
-                    problemReporter, false, true).dietParse(unit, compilationResult);
+    private GroovyCompilationUnitDeclaration parseAndNotify(ICompilationUnit unit, ProblemReporter problemReporter,
+            ISourceElementRequestor requestor, SourceElementNotifier notifier) {
+        CompilationResult compilationResult = new CompilationResult(unit, 0, 0, this.options.maxProblemsPerUnit);
 
-            // CompilationUnitDeclaration cud groovyParser.dietParse(sourceUnit, compilationResult);
-            HashtableOfObjectToInt sourceEnds = createSourceEnds(cud);
-            GroovyIndexingVisitor visitor = new GroovyIndexingVisitor(requestor);
-            visitor.doVisit(cud.getModuleNode(), cud.currentPackage);
+        // FIXASC Is it ok to use a new parser here everytime? If we don't we sometimes recurse back into the first one
+        GroovyParser groovyParser = new GroovyParser(this.options, problemReporter, false, true);
+        // indexing only visits the converted module node, so unchanged files can be served from the parse cache
+        groovyParser.setParseCacheEnabled(true);
+        GroovyCompilationUnitDeclaration cud = (GroovyCompilationUnitDeclaration) groovyParser.dietParse(unit, compilationResult);
 
-            notifier.notifySourceElementRequestor(cud, 0, unit.getContents().length, groovyReportReferenceInfo, sourceEnds,
-            /* We don't care about the @category tag, so pass empty map */Collections.EMPTY_MAP);
-            return cud;
-        } else {
-            return super.parseCompilationUnit(unit, fullParse, pm);
+        // CompilationUnitDeclaration cud groovyParser.dietParse(sourceUnit, compilationResult);
+        HashtableOfObjectToInt sourceEnds = createSourceEnds(cud);
+        GroovyIndexingVisitor visitor = new GroovyIndexingVisitor(requestor);
+        visitor.doVisit(cud.getModuleNode(), cud.currentPackage);
+
+        notifier.notifySourceElementRequestor(cud, 0, unit.getContents().length, groovyReportReferenceInfo, sourceEnds,
+        /* We don't care about the @category tag, so pass empty map */Collections.EMPTY_MAP);
+        return cud;
+    }
+
+    //--------------------------------------------------------------------------
+    // parallel indexing
+
+    /** How many files of a batch may be parsed and visited ahead of the file that is being indexed */
+    private static final int PREPARE_AHEAD = 32;
+
+    /** The groovy files of the batch, in the order the index manager asks for them */
+    private List<IFile> batchFiles;
+    private int nextToPrepare;
+    /** The documents handed to the parse workers and not yet asked for, by document path */
+    private Map<String, Future<PreparedDocument>> preparedDocuments;
+
+    /**
+     * Parses, converts and visits the groovy files of a project on the parse worker pool, ahead of the index manager asking for
+     * each of them through {@link #parseCompilationUnit(ICompilationUnit, boolean, IProgressMonitor)}. Each worker records what it
+     * would tell the requestor; the recording is replayed to the real requestor on the indexing thread, so writes to the index
+     * stay serialized and in the original order.
+     */
+    public void prepareToIndex(IFile[] files, int count) {
+        if (!GroovyParser.isParallelParsingEnabled()) {
+            return;
+        }
+        List<IFile> groovyFiles = new ArrayList<IFile>();
+        for (int i = 0; i < count; i += 1) {
+            if (ContentTypeUtils.isGroovyLikeFileName(files[i].getName())) {
+                groovyFiles.add(files[i]);
+            }
+        }
+        if (groovyFiles.size() < GroovyParser.PARSE_THRESHOLD) {
+            return;
+        }
+        batchFiles = groovyFiles;
+        nextToPrepare = 0;
+        preparedDocuments = new HashMap<String, Future<PreparedDocument>>();
+        for (int i = 0; i < PREPARE_AHEAD; i += 1) {
+            prepareNext();
+        }
+    }
+
+    private void prepareNext() {
+        if (nextToPrepare < batchFiles.size()) {
+            final IFile file = batchFiles.get(nextToPrepare++);
+            preparedDocuments.put(file.getFullPath().toString(), GroovyParser.getParsePool().submit(new Callable<PreparedDocument>() {
+                public PreparedDocument call() throws Exception {
+                    return prepare(file);
+                }
+            }));
+        }
+    }
+
+    private PreparedDocument prepare(IFile file) throws Exception {
+        char[] contents = Util.getResourceContentsAsCharArray(file);
+        if (contents == null) {
+            return null;
+        }
+        // same kind of unit as the one the source indexer will pass in, so that both share parse cache entries
+        ICompilationUnit unit = new org.eclipse.jdt.internal.core.jdom.CompilationUnit(contents,
+                file.getFullPath().toString().toCharArray());
+        ProblemReporter reporter = new ProblemReporter(problemReporter.policy, options, problemReporter.problemFactory);
+
+        PreparedDocument prepared = new PreparedDocument(contents);
+        // the real requestor is only known when the document is asked for
+        ISourceElementRequestor recorder = (ISourceElementRequestor) Proxy.newProxyInstance(
+                ISourceElementRequestor.class.getClassLoader(),
+                new Class<?>[] {ISourceElementRequestor.class, IPropertyReferenceRequestor.class}, prepared);
+        prepared.cud = parseAndNotify(unit, reporter, recorder, new SourceElementNotifier(recorder, groovyReportReferenceInfo));
+        return prepared;
+    }
+
+    /**
+     * @return the prepared document for the unit, or null if the unit was not prepared, could not be prepared or has changed since
+     */
+    private PreparedDocument takePreparedDocument(ICompilationUnit unit) {
+        if (preparedDocuments == null) {
+            return null;
+        }
+        Future<PreparedDocument> future = preparedDocuments.remove(new String(unit.getFileName()));
+        prepareNext();
+        if (preparedDocuments.isEmpty()) {
+            batchFiles = null;
+            preparedDocuments = null;
+        }
+        if (future == null) {
+            return null;
+        }
+        try {
+            PreparedDocument prepared = future.get();
+            if (prepared != null && CharOperation.equals(prepared.contents, unit.getContents())) {
+                return prepared;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // index the unit the usual way, which reports whatever went wrong
+        }
+        return null;
+    }
+
+    /**
+     * A groovy file that has been parsed and visited by a parse worker, with the calls that were made to the requestor.
+     */
+    private static class PreparedDocument implements InvocationHandler {
+        final char[] contents;
+        GroovyCompilationUnitDeclaration cud;
+        private final List<Method> methods = new ArrayList<Method>();
+        private final List<Object[]> arguments = new ArrayList<Object[]>();
+
+        PreparedDocument(char[] contents) {
+            this.contents = contents;
+        }
+
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            if (method.getDeclaringClass() == Object.class) {
+                if (method.getName().equals("equals")) {
+                    return proxy == args[0];
+                }
+                if (method.getName().equals("hashCode")) {
+                    return System.identityHashCode(proxy);
+                }
+                return "PreparedDocument requestor";
+            }
+            // all requestor methods are void
+            methods.add(method);
+            arguments.add(args);
+            return null;
+        }
+
+        void replay(ISourceElementRequestor requestor) {
+            for (int i = 0, n = methods.size(); i < n; i += 1) {
+                Method method = methods.get(i);
+                if (!method.getDeclaringClass().isInstance(requestor)) {
+                    continue;
+                }
+                try {
+                    method.invoke(requestor, arguments.get(i));
+                } catch (InvocationTargetException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    if (cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    throw new IllegalStateException(cause);
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
         }
     }
 
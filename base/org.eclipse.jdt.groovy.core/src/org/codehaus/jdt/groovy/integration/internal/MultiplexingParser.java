@@ -15,6 +15,7 @@
  */
 package org.codehaus.jdt.groovy.integration.internal;
 
+import org.codehaus.jdt.groovy.integration.IBatchParser;
 import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyParser;
 import org.eclipse.jdt.groovy.core.util.ContentTypeUtils;
 import org.eclipse.jdt.internal.compiler.CompilationResult;
@@ -23,6 +24,7 @@ import org.eclipse.jdt.internal.compiler.env.ICompilationUnit;
 import org.eclipse.jdt.internal.compiler.impl.CompilerOptions;
 import org.eclipse.jdt.internal.compiler.parser.Parser;
 import org.eclipse.jdt.internal.compiler.problem.ProblemReporter;
+import org.eclipse.jdt.internal.core.hierarchy.HierarchyResolver;
 
 /**
  * The multiplexing parser can delegate file parsing to multiple parsers. In this scenario it subtypes 'Parser' (which is the Java
@@ -30,7 +32,7 @@ import org.eclipse.jdt.internal.compiler.problem.ProblemReporter;
  *
  * @author Andy Clement
  */
-public class MultiplexingParser extends Parser {
+public class MultiplexingParser extends Parser implements IBatchParser {
 
     private Object requestor;
     private CompilerOptions compilerOptions;
@@ -44,11 +46,20 @@ public class MultiplexingParser extends Parser {
         this.compilerOptions = compilerOptions;
     }
 
+    public void prepareToParse(ICompilationUnit[] sourceUnits, int count) {
+        if (GroovyParser.isParallelParsingEnabled()) {
+            if (groovyParser == null) {
+                groovyParser = createGroovyParser();
+            }
+            groovyParser.prepareToParse(sourceUnits, count);
+        }
+    }
+
     @Override
     public CompilationUnitDeclaration dietParse(ICompilationUnit sourceUnit, CompilationResult compilationResult) {
         if (ContentTypeUtils.isGroovyLikeFileName(sourceUnit.getFileName())) {
             if (groovyParser == null) {
-                groovyParser = new GroovyParser(this.requestor, this.compilerOptions, this.problemReporter, true, false);
+                groovyParser = createGroovyParser();
             }
             return groovyParser.dietParse(sourceUnit, compilationResult);
         } else {
@@ -56,6 +67,13 @@ public class MultiplexingParser extends Parser {
         }
     }
 
+    private GroovyParser createGroovyParser() {
+        GroovyParser parser = new GroovyParser(this.requestor, this.compilerOptions, this.problemReporter, true, false);
+        // the hierarchy resolver only needs the type declarations, so it can share parse results with other hierarchy requests
+        parser.setParseCacheEnabled(this.requestor instanceof HierarchyResolver);
+        return parser;
+    }
+
     @Override
     public void reset() {
         groovyParser = null;
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.jdt.groovy.internal.compiler.ast;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringTokenizer;
+
+/**
+ * Groovy-specific build state of a project that is kept on disk between sessions. It holds the contents of the global AST
+ * transform service files found on the project's transform classpath, so the first build after a restart does not have to search
+ * every jar for them. The state records the path, size and timestamp of each classpath entry it was derived from and is only used
+ * while all of them still match.
+ * <p>
+ * Type dependencies recorded during resolution are not part of this; they go into the JDT builder's own state, which is already
+ * persisted.
+ */
+public class GroovyBuildState {
+
+    static final String TRANSFORM_SERVICES = "META-INF/services/org.codehaus.groovy.transform.ASTTransformation";
+
+    private static final int MAGIC = 0x47425354, VERSION = 1;
+
+    public final String classpathIdentity;
+
+    /** Service file URL (external form) to service file contents, in lookup order. */
+    public final Map<String, byte[]> transformServices;
+
+    public GroovyBuildState(String classpathIdentity, Map<String, byte[]> transformServices) {
+        this.classpathIdentity = classpathIdentity;
+        this.transformServices = Collections.unmodifiableMap(transformServices);
+    }
+
+    /**
+     * Summarizes a classpath as the path, size and timestamp of each jar. For folders the service file is checked instead, since
+     * the timestamp of a folder does not change when a nested file does.
+     */
+    static String getClasspathIdentity(String classpath) {
+        if (classpath == null) {
+            return "";
+        }
+        StringBuilder identity = new StringBuilder(classpath.length() * 2);
+        for (StringTokenizer tokenizer = new StringTokenizer(classpath, File.pathSeparator); tokenizer.hasMoreTokens();) {
+            File entry = new File(tokenizer.nextToken());
+            if (entry.isDirectory()) {
+                entry = new File(entry, TRANSFORM_SERVICES);
+            }
+            identity.append(entry.getPath()).append('|').append(entry.length()).append('|').append(entry.lastModified()).append(';');
+        }
+        return identity.toString();
+    }
+
+    /**
+     * Loads the state from the given file. The file is read in one go and closed again, so it can be replaced right away.
+     *
+     * @return the state or null if the file is missing, damaged or written by a different version
+     */
+    public static GroovyBuildState read(File file) {
+        if (file == null || !file.isFile()) {
+            return null;
+        }
+        long length = file.length();
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            String classpathIdentity = new String(readBytes(in, length), "UTF-8");
+            int count = in.readInt();
+            if (count < 0 || count > length) {
+                return null;
+            }
+            Map<String, byte[]> services = new LinkedHashMap<String, byte[]>();
+            for (int i = 0; i < count; i += 1) {
+                String url = new String(readBytes(in, length), "UTF-8");
+                services.put(url, readBytes(in, length));
+            }
+            if (in.read() != -1) {
+                return null;
+            }
+            return new GroovyBuildState(classpathIdentity, services);
+        } catch (IOException e) {
+            return null;
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                }
+            }
+        }
+    }
+
+    /**
+     * @param limit the length of the file; a damaged length is not allowed to cause an allocation beyond it
+     */
+    private static byte[] readBytes(DataInputStream in, long limit) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > limit) {
+            throw new IOException("Invalid length: " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    /**
+     * Saves the state to the given file. The state is written to a temporary file first, so a reader never sees half of it.
+     */
+    public void write(File file) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeBytes(out, classpathIdentity.getBytes("UTF-8"));
+            out.writeInt(transformServices.size());
+            for (Map.Entry<String, byte[]> service : transformServices.entrySet()) {
+                writeBytes(out, service.getKey().getBytes("UTF-8"));
+                writeBytes(out, service.getValue());
+            }
+        } finally {
+            out.close();
+        }
+        if (!temp.renameTo(file) && !(file.delete() && temp.renameTo(file))) {
+            temp.delete();
+            throw new IOException("Unable to replace " + file);
+        }
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
@@ -166,6 +166,7 @@ public class GroovyCompilationUnitDeclaration extends CompilationUnitDeclaration
     }
 
     private boolean isScript = false;
+    private boolean isSharedSourceUnit = false;
     private TraitHelper traitHelper = new TraitHelper();
     private static final boolean DEBUG_TASK_TAGS = false;
 
@@ -192,6 +193,9 @@ public class GroovyCompilationUnitDeclaration extends CompilationUnitDeclaration
      * @return true if clean processing, false otherwise
      */
     public boolean processToPhase(int phase) {
+        if (isSharedSourceUnit && phase > Phases.CONVERSION) {
+            throw new IllegalStateException("Shared source unit cannot be processed beyond conversion: " + groovySourceUnit.getName());
+        }
         // GRECLIPSE-1776 start
         // Try to discard cached class loaders for traits
         if (phase == Phases.CANONICALIZATION) {
@@ -216,7 +220,9 @@ public class GroovyCompilationUnitDeclaration extends CompilationUnitDeclaration
                 Thread.currentThread().setContextClassLoader(cl);
             }
             if (groovySourceUnit.getErrorCollector().hasErrors()) {
-                recordProblems(groovySourceUnit.getErrorCollector().getErrors());
+                List<?> errors = groovySourceUnit.getErrorCollector().getErrors();
+                // recording consumes the messages, which must stay put for other users of a shared source unit
+                recordProblems(isSharedSourceUnit ? new ArrayList<Object>(errors) : errors);
                 return false;
             } else {
                 return true;
@@ -719,7 +725,7 @@ public class GroovyCompilationUnitDeclaration extends CompilationUnitDeclaration
     @Override
     public void cleanUp() {
         super.cleanUp();
-        if (groovySourceUnit instanceof EclipseSourceUnit) {
+        if (groovySourceUnit instanceof EclipseSourceUnit && ((EclipseSourceUnit) groovySourceUnit).resolver != null) {
             ((EclipseSourceUnit) groovySourceUnit).resolver.cleanUp();
         }
     }
@@ -862,6 +868,14 @@ public class GroovyCompilationUnitDeclaration extends CompilationUnitDeclaration
         this.isScript = true;
     }
 
+    /**
+     * Indicates that the source unit came from the parse cache and may be in use by other declarations, possibly on other threads.
+     * It is not part of the groovy compilation unit and its module node is read-only, so it may not be processed beyond conversion.
+     */
+    public void tagAsSharedSourceUnit() {
+        this.isSharedSourceUnit = true;
+    }
+
     //------------------------------------------------------------------------------------------------------------------
 
     /**
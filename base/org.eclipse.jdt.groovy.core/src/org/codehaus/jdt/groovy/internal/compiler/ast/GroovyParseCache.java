@@ -0,0 +1,282 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.jdt.groovy.internal.compiler.ast;
+
+import java.security.MessageDigest;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.codehaus.groovy.ast.ClassCodeVisitorSupport;
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.FieldNode;
+import org.codehaus.groovy.ast.MethodNode;
+import org.codehaus.groovy.ast.ModuleNode;
+import org.codehaus.groovy.ast.PropertyNode;
+import org.codehaus.groovy.ast.expr.ArgumentListExpression;
+import org.codehaus.groovy.ast.expr.BinaryExpression;
+import org.codehaus.groovy.ast.expr.ClosureExpression;
+import org.codehaus.groovy.ast.expr.ConstantExpression;
+import org.codehaus.groovy.ast.expr.ConstructorCallExpression;
+import org.codehaus.groovy.ast.expr.DeclarationExpression;
+import org.codehaus.groovy.ast.expr.GStringExpression;
+import org.codehaus.groovy.ast.expr.ListExpression;
+import org.codehaus.groovy.ast.expr.MapEntryExpression;
+import org.codehaus.groovy.ast.expr.MethodCallExpression;
+import org.codehaus.groovy.ast.expr.PropertyExpression;
+import org.codehaus.groovy.ast.expr.StaticMethodCallExpression;
+import org.codehaus.groovy.ast.expr.VariableExpression;
+import org.codehaus.groovy.ast.stmt.Statement;
+import org.codehaus.groovy.control.SourceUnit;
+import org.codehaus.jdt.groovy.control.EclipseSourceUnit;
+
+/**
+ * Workspace-wide cache of groovy source units that have been parsed and converted (ie- they have a module node but have not been
+ * through any later phase). Entries are keyed by file path, compiler options and a digest of the file contents, so an edited file
+ * simply misses and its old entry ages out. The cache is bounded by the total {@link #weigh(ModuleNode) weight} of the module
+ * nodes it holds and evicts the least recently used entries first.
+ * <p>
+ * A cached source unit is shared between callers, which may read its module node from several threads at once (the indexer and
+ * the hierarchy resolver do). Its module node is therefore read-only: it must never be taken past conversion, transformed or
+ * annotated with node metadata. Only parsers whose results are read and then thrown away (indexing, hierarchy resolution) should
+ * use the cache; {@link GroovyCompilationUnitDeclaration#processToPhase(int)} refuses to take a shared unit past conversion.
+ */
+public class GroovyParseCache {
+
+    private final int maxWeight;
+    private int weight;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(64, 0.75f, true);
+
+    private static class Entry {
+        final String projectName;
+        final EclipseSourceUnit sourceUnit;
+        final int weight;
+
+        Entry(String projectName, EclipseSourceUnit sourceUnit, int weight) {
+            this.projectName = projectName;
+            this.sourceUnit = sourceUnit;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * @param maxWeight the most weight the cache may hold; zero or less disables the cache
+     */
+    public GroovyParseCache(int maxWeight) {
+        this.maxWeight = maxWeight;
+    }
+
+    public boolean isEnabled() {
+        return maxWeight > 0;
+    }
+
+    /**
+     * Builds the key for the given file, options fingerprint and contents, or returns null if the contents could not be digested.
+     */
+    public static String createKey(String filepath, String options, char[] contents) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            for (char c : contents) {
+                digest.update((byte) (c >> 8));
+                digest.update((byte) c);
+            }
+            StringBuilder key = new StringBuilder(filepath.length() + options.length() + 42);
+            key.append(filepath).append('\u0000').append(options).append('\u0000');
+            for (byte b : digest.digest()) {
+                key.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return key.toString();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    public synchronized EclipseSourceUnit get(String key) {
+        Entry entry = entries.get(key);
+        return (entry != null ? entry.sourceUnit : null);
+    }
+
+    /**
+     * @param size the weight of the source unit's module node; see {@link #weigh(ModuleNode)}
+     */
+    public synchronized void put(String key, String projectName, EclipseSourceUnit sourceUnit, int size) {
+        if (size > maxWeight) {
+            return;
+        }
+        Entry entry = new Entry(projectName, sourceUnit, size);
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            weight -= previous.weight;
+        }
+        weight += size;
+        for (Iterator<Entry> iter = entries.values().iterator(); weight > maxWeight && iter.hasNext();) {
+            Entry eldest = iter.next();
+            iter.remove();
+            weight -= eldest.weight;
+        }
+    }
+
+    /**
+     * Discards all entries that were created for the given project.
+     */
+    public synchronized void evict(String projectName) {
+        for (Iterator<Map.Entry<String, Entry>> iter = entries.entrySet().iterator(); iter.hasNext();) {
+            Entry entry = iter.next().getValue();
+            if (projectName == null ? entry.projectName == null : projectName.equals(entry.projectName)) {
+                iter.remove();
+                weight -= entry.weight;
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Estimates the memory held by a converted module as the number of its declarations, statements and commonly occurring
+     * expressions. The module is only read.
+     */
+    public static int weigh(ModuleNode module) {
+        NodeCounter counter = new NodeCounter();
+        for (ClassNode classNode : module.getClasses()) {
+            counter.visitClass(classNode);
+        }
+        return counter.count;
+    }
+
+    private static class NodeCounter extends ClassCodeVisitorSupport {
+        int count;
+
+        @Override
+        protected SourceUnit getSourceUnit() {
+            return null;
+        }
+
+        @Override
+        public void visitClass(ClassNode node) {
+            count += 1;
+            super.visitClass(node);
+        }
+
+        @Override
+        protected void visitConstructorOrMethod(MethodNode node, boolean isConstructor) {
+            count += 1 + node.getParameters().length;
+            super.visitConstructorOrMethod(node, isConstructor);
+        }
+
+        @Override
+        public void visitField(FieldNode node) {
+            count += 1;
+            super.visitField(node);
+        }
+
+        @Override
+        public void visitProperty(PropertyNode node) {
+            count += 1;
+            super.visitProperty(node);
+        }
+
+        @Override
+        protected void visitStatement(Statement statement) {
+            count += 1;
+        }
+
+        @Override
+        public void visitArgumentlistExpression(ArgumentListExpression expression) {
+            count += 1;
+            super.visitArgumentlistExpression(expression);
+        }
+
+        @Override
+        public void visitBinaryExpression(BinaryExpression expression) {
+            count += 1;
+            super.visitBinaryExpression(expression);
+        }
+
+        @Override
+        public void visitClosureExpression(ClosureExpression expression) {
+            count += 1;
+            super.visitClosureExpression(expression);
+        }
+
+        @Override
+        public void visitConstantExpression(ConstantExpression expression) {
+            count += 1;
+            super.visitConstantExpression(expression);
+        }
+
+        @Override
+        public void visitConstructorCallExpression(ConstructorCallExpression expression) {
+            count += 1;
+            super.visitConstructorCallExpression(expression);
+        }
+
+        @Override
+        public void visitDeclarationExpression(DeclarationExpression expression) {
+            count += 1;
+            super.visitDeclarationExpression(expression);
+        }
+
+        @Override
+        public void visitGStringExpression(GStringExpression expression) {
+            count += 1;
+            super.visitGStringExpression(expression);
+        }
+
+        @Override
+        public void visitListExpression(ListExpression expression) {
+            count += 1;
+            super.visitListExpression(expression);
+        }
+
+        @Override
+        public void visitMapEntryExpression(MapEntryExpression expression) {
+            count += 1;
+            super.visitMapEntryExpression(expression);
+        }
+
+        @Override
+        public void visitMethodCallExpression(MethodCallExpression expression) {
+            count += 1;
+            super.visitMethodCallExpression(expression);
+        }
+
+        @Override
+        public void visitPropertyExpression(PropertyExpression expression) {
+            count += 1;
+            super.visitPropertyExpression(expression);
+        }
+
+        @Override
+        public void visitStaticMethodCallExpression(StaticMethodCallExpression expression) {
+            count += 1;
+            super.visitStaticMethodCallExpression(expression);
+        }
+
+        @Override
+        public void visitVariableExpression(VariableExpression expression) {
+            count += 1;
+            super.visitVariableExpression(expression);
+        }
+    }
+}
@@ -21,10 +21,16 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.jar.JarFile;
 
 import groovy.lang.GroovyClassLoader;
@@ -37,7 +43,6 @@ import org.codehaus.groovy.control.CompilationUnit.ProgressListener;
 import org.codehaus.groovy.control.CompilerConfiguration;
 import org.codehaus.groovy.control.ErrorCollector;
 import org.codehaus.groovy.control.Phases;
-import org.codehaus.groovy.control.SourceUnit;
 import org.codehaus.groovy.control.customizers.CompilationCustomizer;
 import org.codehaus.groovy.eclipse.GroovyLogManager;
 import org.codehaus.groovy.eclipse.TraceCategory;
@@ -48,6 +53,8 @@ import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.jdt.core.compiler.CharOperation;
 import org.eclipse.jdt.core.util.CompilerUtils;
+import org.eclipse.jdt.groovy.core.Activator;
+import org.eclipse.jdt.groovy.core.util.ContentTypeUtils;
 import org.eclipse.jdt.groovy.core.util.GroovyUtils;
 import org.eclipse.jdt.groovy.core.util.ScriptFolderSelector;
 import org.eclipse.jdt.internal.compiler.CompilationResult;
@@ -99,9 +106,24 @@ public class GroovyParser {
         String classpath;
         GroovyClassLoader groovyClassLoader;
 
-        PathLoaderPair(String classpath) {
+        PathLoaderPair(String classpath, File stateFile) {
             this.classpath = classpath;
-            this.groovyClassLoader = new GroovyClassLoader(createConfigureLoader(classpath));
+            this.groovyClassLoader = new ProjectTransformLoader(createConfigureLoader(classpath), classpath, stateFile);
+        }
+    }
+
+    /**
+     * Determines where the {@link GroovyBuildState} of a project is kept.
+     *
+     * @return the file or null if the project has no working location
+     */
+    private static File getBuildStateFile(String projectName) {
+        try {
+            IPath location = ResourcesPlugin.getWorkspace().getRoot().getProject(projectName).getWorkingLocation(Activator.PLUGIN_ID);
+            return (location != null ? location.append("groovy.state").toFile() : null);
+        } catch (Throwable t) {
+            // no workspace or project is closed
+            return null;
         }
     }
 
@@ -142,6 +164,7 @@ public class GroovyParser {
         // This will orphan the loader on the heap
         projectToLoaderCache.remove(projectName);
         scriptFolderSelectorCache.remove(projectName);
+        parseCache.evict(projectName);
     }
 
     public static void closeClassLoader(String projectName) {
@@ -158,6 +181,90 @@ public class GroovyParser {
         projectToLoaderCache.clear();
     }
 
+    private static boolean REUSE_BATCH_LOADERS = false;
+
+    static {
+        try {
+            REUSE_BATCH_LOADERS = System.getProperty("greclipse.batchLoaderReuse", "false").equalsIgnoreCase("true");
+        } catch (Throwable t) {
+        }
+    }
+
+    /**
+     * Loaders for the jars on the classpath of batch compiles, keyed by the path, size and timestamp of each jar. These are only
+     * kept if the <code>greclipse.batchLoaderReuse</code> system property is set, which a long-lived batch compiler process (such
+     * as the daemon of the groovy-eclipse-compiler Maven plugin) does. Class folders are not shared, since their contents change
+     * from one compile to the next.
+     */
+    private static final Map<String, GroovyClassLoader> batchJarLoaderCache = new LinkedHashMap<String, GroovyClassLoader>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, GroovyClassLoader> eldest) {
+            return size() > 8;
+        }
+    };
+
+    private static GroovyClassLoader createBatchLoader(Classpath[] classpaths) {
+        if (!REUSE_BATCH_LOADERS) {
+            GroovyClassLoader gcl = new GroovyClassLoader();
+            if (classpaths != null) {
+                for (int i = 0; i < classpaths.length; i++) {
+                    gcl.addClasspath(classpaths[i].getPath());
+                }
+            }
+            return gcl;
+        }
+        StringBuilder jars = new StringBuilder();
+        List<String> folders = new ArrayList<String>();
+        if (classpaths != null) {
+            for (int i = 0; i < classpaths.length; i++) {
+                String path = classpaths[i].getPath();
+                if (new File(path).isFile()) {
+                    jars.append(path).append(File.pathSeparatorChar);
+                } else {
+                    folders.add(path);
+                }
+            }
+        }
+        String key = getClasspathIdentity(jars.toString());
+        if (key == null) {
+            key = "";
+        }
+        GroovyClassLoader jarLoader;
+        synchronized (batchJarLoaderCache) {
+            jarLoader = batchJarLoaderCache.get(key);
+            if (jarLoader == null) {
+                jarLoader = new GroovyClassLoader();
+                for (StringTokenizer tokenizer = new StringTokenizer(jars.toString(), File.pathSeparator); tokenizer.hasMoreTokens();) {
+                    jarLoader.addClasspath(tokenizer.nextToken());
+                }
+                batchJarLoaderCache.put(key, jarLoader);
+            }
+        }
+        GroovyClassLoader gcl = new GroovyClassLoader(jarLoader);
+        for (String folder : folders) {
+            gcl.addClasspath(folder);
+        }
+        return gcl;
+    }
+
+    /**
+     * Summarizes a classpath string as the path, size and timestamp of each of its entries, so that any change to the classpath
+     * or to one of its jars results in a different identity.
+     */
+    private static String getClasspathIdentity(String classpath) {
+        if (classpath == null || classpath.length() == 0) {
+            return null;
+        }
+        StringBuilder identity = new StringBuilder(classpath.length() * 2);
+        for (StringTokenizer tokenizer = new StringTokenizer(classpath, File.pathSeparator); tokenizer.hasMoreTokens();) {
+            File entry = new File(tokenizer.nextToken());
+            identity.append(entry.getPath()).append('|').append(entry.length()).append('|').append(entry.lastModified()).append(';');
+        }
+        return identity.toString();
+    }
+
     private GroovyClassLoader gclForBatch = null;
 
     private GroovyClassLoader getLoaderFor(String path) {
@@ -177,13 +284,7 @@ public class GroovyParser {
                                     Field f = FileSystem.class.getDeclaredField("classpaths");
                                     if (f != null) {
                                         f.setAccessible(true);
-                                        gclForBatch = new GroovyClassLoader();
-                                        Classpath[] classpaths = (Classpath[]) f.get(fileSystem);
-                                        if (classpaths != null) {
-                                            for (int i = 0; i < classpaths.length; i++) {
-                                                gclForBatch.addClasspath(classpaths[i].getPath());
-                                            }
-                                        }
+                                        gclForBatch = createBatchLoader((Classpath[]) f.get(fileSystem));
                                     } else {
                                         System.err.println("Cannot find classpaths field on FileSystem class");
                                     }
@@ -208,13 +309,13 @@ public class GroovyParser {
                         GroovyLogManager.manager.log(TraceCategory.AST_TRANSFORM,
                                 "Classpath for GroovyClassLoader (used to discover transforms): " + path);
                     }
-                    pathAndLoader = new PathLoaderPair(path);
+                    pathAndLoader = new PathLoaderPair(path, getBuildStateFile(projectName));
                     projectToLoaderCache.put(projectName, pathAndLoader);
                 } else {
                     if (!path.equals(pathAndLoader.classpath)) {
                         // classpath change detected
                         // System.out.println("Classpath change detected for " + projectName);
-                        pathAndLoader = new PathLoaderPair(path);
+                        pathAndLoader = new PathLoaderPair(path, getBuildStateFile(projectName));
                         projectToLoaderCache.put(projectName, pathAndLoader);
                     }
                 }
@@ -261,7 +362,36 @@ public class GroovyParser {
         this.compilationUnit.removeOutputPhaseOperation();
     }
 
+    /**
+     * Lets this parser share parse results with other parsers through the workspace-wide parse cache. Only parsers whose
+     * compilation unit declarations are never taken beyond conversion (ie- never resolved or generated) and whose callers only
+     * read the module nodes may do this.
+     */
+    public void setParseCacheEnabled(boolean enabled) {
+        this.useParseCache = enabled;
+    }
+
+    private boolean useIncrementalReparse;
+
+    /**
+     * Lets successive parses of a file re-parse only the member that was edited (see {@link IncrementalParserPlugin}). Only the
+     * parsers of editor reconciles should do this; any other parser would push the edited files out of the plugin's small cache
+     * and keep the trees of files that nobody edits.
+     */
+    public void setIncrementalReparseEnabled(boolean enabled) {
+        this.useIncrementalReparse = enabled;
+        configureParserPlugin(this.compilationUnit.getConfiguration(), this.compilationUnit.isReconcile);
+    }
+
+    private void configureParserPlugin(CompilerConfiguration compilerConfiguration, boolean isReconcile) {
+        if (useIncrementalReparse && isReconcile && IncrementalParserPlugin.isEnabled()) {
+            // successive reconciles of a file only re-parse the member that was edited
+            compilerConfiguration.setPluginFactory(new IncrementalParserPlugin.Factory());
+        }
+    }
+
     public void reset() {
+        this.preparedSourceUnits = null;
         GroovyClassLoader gcl = getLoaderFor(gclClasspath);
         this.compilationUnit = makeCompilationUnit(
             new GrapeAwareGroovyClassLoader(gcl), gcl,
@@ -350,14 +480,194 @@ public class GroovyParser {
     }
 
     /**
-     * Call the groovy parser to drive the first few phases of
+     * Parses and converts the groovy units of a batch on the parse worker pool, ahead of the compiler asking for each of them
+     * through {@link #dietParse(ICompilationUnit, CompilationResult)}. Only the work that is private to each source unit is done
+     * here; adding the modules to the groovy compilation unit and everything that touches JDT bindings still happens in order on
+     * the compiler thread.
      */
-    public CompilationUnitDeclaration dietParse(ICompilationUnit sourceUnit, CompilationResult compilationResult) {
-        char[] sourceCode = sourceUnit.getContents();
-        if (sourceCode == null) {
-            sourceCode = CharOperation.NO_CHAR; // pretend empty from thereon
+    public void prepareToParse(ICompilationUnit[] sourceUnits, int count) {
+        if (!isParallelParsingEnabled() || count < PARSE_THRESHOLD) {
+            return;
+        }
+        final Map<ICompilationUnit, PreparedSourceUnit> prepared = new IdentityHashMap<ICompilationUnit, PreparedSourceUnit>();
+        List<Callable<Object>> tasks = new ArrayList<Callable<Object>>(count);
+        final ClassLoader transformLoader = compilationUnit.getTransformLoader();
+        for (int i = 0; i < count; i += 1) {
+            ICompilationUnit sourceUnit = sourceUnits[i];
+            if (!ContentTypeUtils.isGroovyLikeFileName(sourceUnit.getFileName())) {
+                continue;
+            }
+            final PreparedSourceUnit unit = new PreparedSourceUnit(sourceUnit);
+            prepared.put(sourceUnit, unit);
+            tasks.add(new Callable<Object>() {
+                public Object call() {
+                    Thread thread = Thread.currentThread();
+                    ClassLoader cl = thread.getContextClassLoader();
+                    try {
+                        thread.setContextClassLoader(transformLoader);
+                        unit.prepare();
+                    } finally {
+                        thread.setContextClassLoader(cl);
+                    }
+                    return null;
+                }
+            });
+        }
+        if (tasks.size() < PARSE_THRESHOLD) {
+            return;
+        }
+        try {
+            getParsePool().invokeAll(tasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        this.preparedSourceUnits = prepared;
+    }
+
+    /** The smallest batch that is worth handing to the parse workers */
+    public static final int PARSE_THRESHOLD = 10;
+    private static volatile int PARSE_THREADS = 0;
+    private static ExecutorService parsePool;
+
+    static {
+        try {
+            PARSE_THREADS = Integer.parseInt(System.getProperty("greclipse.parseThreads", "0"));
+            if (PARSE_THREADS < 0) {
+                PARSE_THREADS = Runtime.getRuntime().availableProcessors();
+            }
+        } catch (Throwable t) {
+        }
+    }
+
+    /**
+     * Parallel parsing is off unless the <code>greclipse.parseThreads</code> system property asks for two or more workers (or is
+     * negative, meaning one worker per available processor).
+     */
+    public static boolean isParallelParsingEnabled() {
+        return PARSE_THREADS > 1;
+    }
+
+    /**
+     * @return the parse worker pool, which is only created (and should only be used) when parallel parsing is enabled
+     */
+    public static synchronized ExecutorService getParsePool() {
+        if (parsePool == null) {
+            parsePool = Executors.newFixedThreadPool(PARSE_THREADS, new ThreadFactory() {
+                private int count = 0;
+
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "Groovy Parser Worker " + (++count));
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
         }
+        return parsePool;
+    }
 
+    /**
+     * Changes the number of parse workers, shutting down the current pool so that the next one gets the new size.
+     *
+     * @return the previous number of workers
+     */
+    // for testing
+    public static synchronized int setParseThreads(int threads) {
+        int previous = PARSE_THREADS;
+        PARSE_THREADS = threads;
+        if (parsePool != null) {
+            parsePool.shutdown();
+            parsePool = null;
+        }
+        return previous;
+    }
+
+    private Map<ICompilationUnit, PreparedSourceUnit> preparedSourceUnits;
+
+    private static int PARSE_CACHE_SIZE = 500000;
+
+    static {
+        try {
+            PARSE_CACHE_SIZE = Integer.parseInt(System.getProperty("greclipse.parseCacheSize", "500000"));
+        } catch (Throwable t) {
+        }
+    }
+
+    /**
+     * Converted source units shared by parsers that have {@link #setParseCacheEnabled(boolean) opted in}. The size is measured in
+     * AST nodes (see {@link GroovyParseCache#weigh}) and can be changed by the <code>greclipse.parseCacheSize</code> system
+     * property (zero turns it off).
+     */
+    private static final GroovyParseCache parseCache = new GroovyParseCache(PARSE_CACHE_SIZE);
+
+    private boolean useParseCache;
+    private String optionsFingerprint;
+
+    /**
+     * Looks for a converted source unit for the given contents in the parse cache, parsing and caching it on a miss.
+     *
+     * @return the shared source unit, or null if it could not be parsed and converted on its own
+     */
+    private EclipseSourceUnit getSharedSourceUnit(ICompilationUnit sourceUnit, char[] sourceCode) {
+        if (optionsFingerprint == null) {
+            optionsFingerprint = projectName + '|' + gclClasspath + '|' + compilerOptions.groovyCustomizerClassesList + '|' +
+                compilerOptions.groovyFlags + '|' + compilerOptions.groovyTransformsToRunOnReconcile + '|' +
+                compilationUnit.isReconcile + '|' + compilationUnit.allowTransforms;
+        }
+        String key = GroovyParseCache.createKey(new String(sourceUnit.getFileName()), optionsFingerprint, sourceCode);
+        if (key == null) {
+            return null;
+        }
+        EclipseSourceUnit groovySourceUnit = parseCache.get(key);
+        if (groovySourceUnit == null) {
+            // shared units are never resolved, so they do not hold on to this parser's resolver
+            groovySourceUnit = createSourceUnit(sourceUnit, sourceCode, null);
+            Thread thread = Thread.currentThread();
+            ClassLoader cl = thread.getContextClassLoader();
+            try {
+                thread.setContextClassLoader(compilationUnit.getTransformLoader());
+                if (!groovySourceUnit.prepare()) {
+                    return null;
+                }
+            } finally {
+                thread.setContextClassLoader(cl);
+            }
+            parseCache.put(key, projectName, groovySourceUnit, GroovyParseCache.weigh(groovySourceUnit.getAST()));
+        }
+        return groovySourceUnit;
+    }
+
+    /**
+     * A groovy source unit that is read, parsed and converted by a parse worker ahead of its call to dietParse.
+     */
+    private class PreparedSourceUnit {
+        final ICompilationUnit sourceUnit;
+        char[] sourceCode;
+        EclipseSourceUnit groovySourceUnit;
+        boolean ready;
+
+        PreparedSourceUnit(ICompilationUnit sourceUnit) {
+            this.sourceUnit = sourceUnit;
+        }
+
+        void prepare() {
+            try {
+                char[] contents = sourceUnit.getContents();
+                sourceCode = (contents != null ? contents : CharOperation.NO_CHAR);
+                groovySourceUnit = createSourceUnit(sourceUnit, sourceCode);
+                ready = groovySourceUnit.prepare();
+            } catch (Throwable t) {
+                // dietParse will start over with this unit and report whatever went wrong
+                ready = false;
+            }
+        }
+    }
+
+    private EclipseSourceUnit createSourceUnit(ICompilationUnit sourceUnit, char[] sourceCode) {
+        return createSourceUnit(sourceUnit, sourceCode, this.resolver);
+    }
+
+    private EclipseSourceUnit createSourceUnit(ICompilationUnit sourceUnit, char[] sourceCode, JDTResolver resolver) {
         ErrorCollector errorCollector = new GroovyErrorCollectorForJDT(compilationUnit.getConfiguration());
         String filepath = null;
 
@@ -385,14 +695,48 @@ public class GroovyParser {
             }
         }
 
-        SourceUnit groovySourceUnit = new EclipseSourceUnit(eclipseFile, filepath, new String(sourceCode),
-                compilationUnit.getConfiguration(), compilationUnit.getClassLoader(), errorCollector, this.resolver);
+        EclipseSourceUnit groovySourceUnit = new EclipseSourceUnit(eclipseFile, filepath, new String(sourceCode),
+                compilationUnit.getConfiguration(), compilationUnit.getClassLoader(), errorCollector, resolver);
         groovySourceUnit.isReconcile = compilationUnit.isReconcile;
+        return groovySourceUnit;
+    }
+
+    /**
+     * Call the groovy parser to drive the first few phases of
+     */
+    public CompilationUnitDeclaration dietParse(ICompilationUnit sourceUnit, CompilationResult compilationResult) {
+        char[] sourceCode;
+        EclipseSourceUnit groovySourceUnit = null;
+        boolean shared = false;
+        PreparedSourceUnit prepared = (preparedSourceUnits != null ? preparedSourceUnits.remove(sourceUnit) : null);
+        if (prepared != null && prepared.ready) {
+            sourceCode = prepared.sourceCode;
+            groovySourceUnit = prepared.groovySourceUnit;
+        } else {
+            sourceCode = sourceUnit.getContents();
+            if (sourceCode == null) {
+                sourceCode = CharOperation.NO_CHAR; // pretend empty from thereon
+            }
+            if (useParseCache && parseCache.isEnabled()) {
+                groovySourceUnit = getSharedSourceUnit(sourceUnit, sourceCode);
+                shared = (groovySourceUnit != null);
+            }
+            if (!shared) {
+                groovySourceUnit = createSourceUnit(sourceUnit, sourceCode);
+            }
+        }
+        IFile eclipseFile = groovySourceUnit.getEclipseFile();
+
         GroovyCompilationUnitDeclaration gcuDeclaration = new GroovyCompilationUnitDeclaration(problemReporter, compilationResult,
                 sourceCode.length, compilationUnit, groovySourceUnit, compilerOptions);
         // FIXASC get this from the Antlr parser
         compilationResult.lineSeparatorPositions = GroovyUtils.getSourceLineSeparatorsIn(sourceCode);
-        compilationUnit.addSource(groovySourceUnit);
+        if (!shared) {
+            compilationUnit.addSource(groovySourceUnit);
+        } else {
+            // already converted; keep it out of this compilation unit, which may go on to resolve its sources
+            gcuDeclaration.tagAsSharedSourceUnit();
+        }
 
         // Check if it is worth plugging in a callback listener for parse/generation
         if (requestor instanceof org.eclipse.jdt.internal.compiler.Compiler) {
@@ -510,6 +854,7 @@ public class GroovyParser {
                 compilerConfiguration.addCompilationCustomizers(customizers.toArray(new CompilationCustomizer[customizers.size()]));
             }
         }
+        configureParserPlugin(compilerConfiguration, isReconcile);
 
         CompilationUnit cu = new CompilationUnit(
             compilerConfiguration,
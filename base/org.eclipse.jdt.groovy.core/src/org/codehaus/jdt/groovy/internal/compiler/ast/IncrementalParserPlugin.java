@@ -0,0 +1,554 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.jdt.groovy.internal.compiler.ast;
+
+import groovyjarjarantlr.collections.AST;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.codehaus.groovy.antlr.AntlrParserPlugin;
+import org.codehaus.groovy.antlr.GroovySourceAST;
+import org.codehaus.groovy.antlr.LocationSupport;
+import org.codehaus.groovy.antlr.SourceBuffer;
+import org.codehaus.groovy.antlr.parser.GroovyTokenTypes;
+import org.codehaus.groovy.ast.Comment;
+import org.codehaus.groovy.ast.ModuleNode;
+import org.codehaus.groovy.control.CompilationFailedException;
+import org.codehaus.groovy.control.ErrorCollector;
+import org.codehaus.groovy.control.ParserPlugin;
+import org.codehaus.groovy.control.ParserPluginFactory;
+import org.codehaus.groovy.control.SourceUnit;
+import org.codehaus.groovy.control.messages.SimpleMessage;
+import org.codehaus.groovy.syntax.ParserException;
+import org.codehaus.groovy.syntax.Reduction;
+import org.eclipse.jdt.groovy.core.util.ReflectionUtils;
+
+/**
+ * Parser plugin for reconciling that remembers the syntax tree of the last few files it parsed. When a file is parsed again and
+ * everything that changed lies within a single method, constructor or field of a class (or within a method of a script), only the
+ * source of that member is parsed again. The new subtree replaces the old one, the positions of everything after it are shifted
+ * and conversion to a module node then proceeds as usual, on a copy of the tree since conversion adjusts some positions in the
+ * tree it walks. Edits anywhere else, edits that turn a member into a different kind of member, sources with unicode escapes and
+ * sources with syntax errors are given to the regular error-recovering parser.
+ * <p>
+ * The plugin is off unless the <code>greclipse.incrementalReconcile</code> system property gives the number of files to remember.
+ */
+class IncrementalParserPlugin extends AntlrParserPlugin {
+
+    private static int MAX_ENTRIES = 0;
+
+    static {
+        try {
+            MAX_ENTRIES = Integer.parseInt(System.getProperty("greclipse.incrementalReconcile", "0"));
+        } catch (Throwable t) {
+        }
+    }
+
+    // token types are looked up by name since they differ from one groovy version to the next
+    private static final int CLASS_DEF_TYPE = getTokenType("CLASS_DEF");
+    private static final int OBJBLOCK_TYPE = getTokenType("OBJBLOCK");
+    private static final int METHOD_DEF_TYPE = getTokenType("METHOD_DEF");
+    private static final int CTOR_IDENT_TYPE = getTokenType("CTOR_IDENT");
+    private static final int VARIABLE_DEF_TYPE = getTokenType("VARIABLE_DEF");
+    private static final int IDENT_TYPE = getTokenType("IDENT");
+    private static final int INSTANCE_INIT_TYPE = getTokenType("INSTANCE_INIT");
+
+    private static int getTokenType(String name) {
+        try {
+            return GroovyTokenTypes.class.getField(name).getInt(null);
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    /** Syntax trees of recently parsed sources, keyed by source unit name. */
+    private static final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private static class Entry {
+        final String text;
+        final AST ast;
+        final List<Comment> comments;
+
+        Entry(String text, AST ast, List<Comment> comments) {
+            this.text = text;
+            this.ast = ast;
+            this.comments = comments;
+        }
+    }
+
+    /** The class member or script method whose source range contains an edit. */
+    private static class Member {
+        GroovySourceAST node;
+        AST parent, previous;
+        String className;
+        int start, end;
+    }
+
+    static boolean isEnabled() {
+        return MAX_ENTRIES > 0 && CLASS_DEF_TYPE >= 0 && IDENT_TYPE >= 0;
+    }
+
+    static synchronized void clearCache() {
+        entries.clear();
+    }
+
+    /**
+     * Entries are removed while in use, so a tree is never modified by two parses at once.
+     */
+    private static synchronized Entry takeEntry(String name) {
+        return entries.remove(name);
+    }
+
+    private static synchronized void keepEntry(String name, Entry entry) {
+        entries.put(name, entry);
+    }
+
+    /** Number of parses that were brought up to date by re-parsing a single member */
+    private static final AtomicInteger incrementalParses = new AtomicInteger();
+
+    static int getIncrementalParseCount() {
+        return incrementalParses.get();
+    }
+
+    static class Factory extends ParserPluginFactory {
+        @Override
+        public ParserPlugin createParserPlugin() {
+            return new IncrementalParserPlugin();
+        }
+    }
+
+    //--------------------------------------------------------------------------
+
+    private ParserPlugin delegate;
+
+    @Override
+    public Reduction parseCST(SourceUnit sourceUnit, Reader reader) throws CompilationFailedException {
+        String text = null;
+        try {
+            StringBuilder sb = new StringBuilder();
+            char[] buf = new char[8192];
+            for (int n; (n = reader.read(buf)) != -1;) {
+                sb.append(buf, 0, n);
+            }
+            text = sb.toString();
+        } catch (IOException e) {
+            sourceUnit.getErrorCollector().addFatalError(new SimpleMessage(e.getMessage(), sourceUnit));
+        }
+        if (text == null) {
+            // nothing to remember; the regular parser makes what it can of the failed read
+            delegate = ParserPluginFactory.newInstance().createParserPlugin();
+            return delegate.parseCST(sourceUnit, new StringReader(""));
+        }
+
+        String name = sourceUnit.getName();
+        boolean escapes = (text.indexOf("\\u") >= 0);
+        Entry entry = (name != null ? takeEntry(name) : null);
+        if (entry != null && !escapes) {
+            try {
+                entry = reparse(sourceUnit, entry, text);
+                if (entry != null) {
+                    keepEntry(name, entry);
+                    incrementalParses.incrementAndGet();
+                    return null;
+                }
+            } catch (RuntimeException e) {
+                // the tree may be partly updated; it was taken out of the cache so just parse everything
+            }
+        }
+
+        ParserPlugin plugin = ParserPluginFactory.newInstance().createParserPlugin();
+        Reduction cst = plugin.parseCST(sourceUnit, new StringReader(text));
+        if (plugin instanceof AntlrParserPlugin) {
+            setController(sourceUnit);
+            ast = (AST) ReflectionUtils.getPrivateField(AntlrParserPlugin.class, "ast", plugin);
+            tokenNames = (String[]) ReflectionUtils.getPrivateField(AntlrParserPlugin.class, "tokenNames", plugin);
+            locations = (LocationSupport) ReflectionUtils.getPrivateField(AntlrParserPlugin.class, "locations", plugin);
+            if (name != null && !escapes && ast != null && !sourceUnit.getErrorCollector().hasErrors()) {
+                List<Comment> comments = sourceUnit.getComments();
+                keepEntry(name, new Entry(text, copyTree(ast), comments != null ? comments : new ArrayList<Comment>(0)));
+            }
+        } else {
+            delegate = plugin;
+        }
+        return cst;
+    }
+
+    @Override
+    public ModuleNode buildAST(SourceUnit sourceUnit, ClassLoader classLoader, Reduction cst) throws ParserException {
+        if (delegate != null) {
+            return delegate.buildAST(sourceUnit, classLoader, cst);
+        }
+        return super.buildAST(sourceUnit, classLoader, cst);
+    }
+
+    /**
+     * Brings the syntax tree of the given entry up to date with the new text by parsing the one member that changed.
+     *
+     * @return the updated entry or null if the edit cannot be handled this way
+     */
+    private Entry reparse(SourceUnit sourceUnit, Entry entry, String text) {
+        String prev = entry.text;
+        int prefix = 0, suffix = 0, max = Math.min(prev.length(), text.length());
+        while (prefix < max && prev.charAt(prefix) == text.charAt(prefix)) {
+            prefix += 1;
+        }
+        while (suffix < max - prefix && prev.charAt(prev.length() - 1 - suffix) == text.charAt(text.length() - 1 - suffix)) {
+            suffix += 1;
+        }
+        int delta = text.length() - prev.length();
+        int[] oldLines = getLineStarts(prev), newLines = getLineStarts(text);
+
+        AST root = entry.ast;
+        List<Comment> comments;
+        if (delta == 0 && prefix == prev.length()) {
+            comments = new ArrayList<Comment>(entry.comments.size());
+            for (Comment comment : entry.comments) {
+                comments.add(copyComment(comment, oldLines, oldLines, Integer.MAX_VALUE, 0));
+            }
+        } else {
+            Member member = findMember(root, null, prev, entry.comments, oldLines, prev.length(), prefix, prev.length() - suffix);
+            if (member == null) {
+                return null;
+            }
+            int newEnd = member.end + delta;
+            if (newEnd <= member.start || !isSeparator(text.charAt(newEnd - 1))) {
+                return null;
+            }
+
+            // parse the member by itself, at the same line and column as in the full source
+            String wrapper = "class " + (member.className != null ? member.className : "X") + "{";
+            char[] chars = new char[text.length() + 2];
+            for (int i = 0; i < text.length(); i += 1) {
+                char c = text.charAt(i);
+                chars[i] = (i >= member.start && i < newEnd) || c == '\n' || c == '\r' ? c : ' ';
+            }
+            chars[text.length()] = '\n';
+            chars[text.length() + 1] = ' ';
+            int wrapperStart = -1;
+            for (int i = member.start - 1, n = 0; i >= 0; i -= 1) {
+                if (chars[i] == '\n' || chars[i] == '\r') {
+                    n = 0;
+                } else if (++n == wrapper.length()) {
+                    wrapperStart = i;
+                    break;
+                }
+            }
+            if (wrapperStart < 0) {
+                return null;
+            }
+            wrapper.getChars(0, wrapper.length(), chars, wrapperStart);
+            for (int i = newEnd; i < chars.length; i += 1) {
+                if (chars[i] != '\n' && chars[i] != '\r') {
+                    chars[i] = '}';
+                    break;
+                }
+            }
+
+            String source = new String(chars);
+            SourceUnit memberUnit = new SourceUnit(sourceUnit.getName(), source, sourceUnit.getConfiguration(),
+                sourceUnit.getClassLoader(), new ErrorCollector(sourceUnit.getConfiguration()));
+            ParserPlugin plugin = ParserPluginFactory.newInstance().createParserPlugin();
+            if (!(plugin instanceof AntlrParserPlugin)) {
+                return null;
+            }
+            plugin.parseCST(memberUnit, new StringReader(source));
+            if (memberUnit.getErrorCollector().hasErrors()) {
+                return null;
+            }
+            AST memberRoot = (AST) ReflectionUtils.getPrivateField(AntlrParserPlugin.class, "ast", plugin);
+            if (memberRoot == null || memberRoot.getType() != CLASS_DEF_TYPE || memberRoot.getNextSibling() != null) {
+                return null;
+            }
+            AST objBlock = ((GroovySourceAST) memberRoot).childOfType(OBJBLOCK_TYPE);
+            GroovySourceAST node = (objBlock != null ? (GroovySourceAST) objBlock.getFirstChild() : null);
+            // a method that became a field (or the reverse) changes the shape of the type, which the full parse must handle
+            if (node == null || node.getNextSibling() != null || node.getType() != member.node.getType()) {
+                return null;
+            }
+
+            // splice the member into the tree and move everything after it
+            node.setNextSibling(member.node.getNextSibling());
+            if (member.previous != null) {
+                member.previous.setNextSibling(node);
+            } else if (member.parent != null) {
+                member.parent.setFirstChild(node);
+            } else {
+                root = node;
+            }
+            shiftPositions((GroovySourceAST) root, node, oldLines, newLines, member.end, delta);
+            int[] lineCol = getLineColumn(newLines, newEnd);
+            fillLastPositions(node, lineCol[0], lineCol[1]);
+
+            comments = new ArrayList<Comment>(entry.comments.size() + 4);
+            for (Comment comment : entry.comments) {
+                int offset = getOffset(oldLines, comment.sline, comment.scol);
+                if (offset < member.start) {
+                    comments.add(copyComment(comment, oldLines, newLines, member.end, delta));
+                }
+            }
+            if (memberUnit.getComments() != null) {
+                comments.addAll(memberUnit.getComments());
+            }
+            for (Comment comment : entry.comments) {
+                if (getOffset(oldLines, comment.sline, comment.scol) >= member.end) {
+                    comments.add(copyComment(comment, oldLines, newLines, member.end, delta));
+                }
+            }
+            tokenNames = (String[]) ReflectionUtils.getPrivateField(AntlrParserPlugin.class, "tokenNames", plugin);
+        }
+
+        SourceBuffer buffer = new SourceBuffer();
+        for (int i = 0, n = text.length(); i < n; i += 1) {
+            buffer.write(text.charAt(i));
+        }
+        setController(sourceUnit);
+        sourceUnit.setComments(comments);
+        locations = buffer.getLocationSupport();
+        ast = copyTree(root);
+        if (tokenNames == null) {
+            tokenNames = (String[]) ReflectionUtils.getPrivateField(AntlrParserPlugin.class, "tokenNames",
+                ParserPluginFactory.newInstance().createParserPlugin());
+        }
+        return new Entry(text, root, comments);
+    }
+
+    /**
+     * Finds the class member or script method whose source range contains the range of the edit. The range of a member extends
+     * from its first token to the first token of the next member (or the closing brace of its class).
+     */
+    private static Member findMember(AST first, AST parent, String text, List<Comment> comments, int[] lines, int limit, int editStart, int editEnd) {
+        AST previous = null;
+        for (AST node = first; node != null; previous = node, node = node.getNextSibling()) {
+            int start = getStartOffset(node, lines, Integer.MAX_VALUE);
+            int end = (node.getNextSibling() != null ? getStartOffset(node.getNextSibling(), lines, Integer.MAX_VALUE) : limit);
+            if (editStart < start || editEnd > end) {
+                continue;
+            }
+            if (node.getType() == CLASS_DEF_TYPE) {
+                GroovySourceAST objBlock = ((GroovySourceAST) node).childOfType(OBJBLOCK_TYPE);
+                if (objBlock == null || getOffset(lines, objBlock.getLine(), objBlock.getColumn()) >= editStart) {
+                    return null;
+                }
+                int close = findClosingBrace(objBlock, text, comments, lines);
+                if (close < 0 || editEnd > close) {
+                    return null;
+                }
+                Member member = findMember(objBlock.getFirstChild(), objBlock, text, comments, lines, close, editStart, editEnd);
+                if (member != null) {
+                    member.className = ((GroovySourceAST) node).childOfType(IDENT_TYPE).getText();
+                }
+                return member;
+            }
+            boolean isClassMember = (parent != null && isMemberType(node.getType()));
+            boolean isScriptMethod = (parent == null && node.getType() == METHOD_DEF_TYPE);
+            // an initializer block on the next line could be taken as a closure argument by the member
+            if ((isClassMember || isScriptMethod) && editStart > start &&
+                    (node.getNextSibling() == null || node.getNextSibling().getType() != INSTANCE_INIT_TYPE)) {
+                Member member = new Member();
+                member.node = (GroovySourceAST) node;
+                member.parent = parent;
+                member.previous = previous;
+                member.start = start;
+                member.end = end;
+                return member;
+            }
+            return null;
+        }
+        return null;
+    }
+
+    private static boolean isMemberType(int type) {
+        return type == METHOD_DEF_TYPE || type == CTOR_IDENT_TYPE || type == VARIABLE_DEF_TYPE;
+    }
+
+    private static boolean isSeparator(char c) {
+        return Character.isWhitespace(c) || c == '}' || c == ';';
+    }
+
+    /**
+     * The type block records the start of the token after its closing brace; anything between must be whitespace or comments.
+     */
+    private static int findClosingBrace(GroovySourceAST objBlock, String text, List<Comment> comments, int[] lines) {
+        int offset = Math.min(getOffset(lines, objBlock.getLineLast(), objBlock.getColumnLast()), text.length());
+        outer: for (int i = offset - 1; i >= 0; i -= 1) {
+            for (Comment comment : comments) {
+                int start = getOffset(lines, comment.sline, comment.scol), end = getOffset(lines, comment.eline, comment.ecol);
+                if (start <= i && i <= end) {
+                    i = start;
+                    continue outer;
+                }
+            }
+            char c = text.charAt(i);
+            if (c == '}') {
+                return i;
+            }
+            if (!Character.isWhitespace(c)) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    //--------------------------------------------------------------------------
+
+    /**
+     * Copies a node, its following siblings and all their children. AntlrParserPlugin moves the column of <code>this(...)</code>
+     * and <code>super(...)</code> calls to the keyword while converting, so the tree that is kept must never be converted itself.
+     */
+    private static GroovySourceAST copyTree(AST node) {
+        GroovySourceAST first = null, last = null;
+        for (; node != null; node = node.getNextSibling()) {
+            GroovySourceAST gsa = (GroovySourceAST) node;
+            GroovySourceAST copy = new GroovySourceAST();
+            copy.initialize(gsa.getType(), gsa.getText());
+            copy.setLine(gsa.getLine());
+            copy.setColumn(gsa.getColumn());
+            copy.setLineLast(gsa.getLineLast());
+            copy.setColumnLast(gsa.getColumnLast());
+            copy.setFirstChild(copyTree(gsa.getFirstChild()));
+            if (last != null) {
+                last.setNextSibling(copy);
+            } else {
+                first = copy;
+            }
+            last = copy;
+        }
+        return first;
+    }
+
+    /**
+     * Determines the offset of the first token of a node; annotations and modifiers can come before the position of the node.
+     */
+    private static int getStartOffset(AST node, int[] lines, int min) {
+        GroovySourceAST gsa = (GroovySourceAST) node;
+        if (gsa.getLine() > 0) {
+            min = Math.min(min, getOffset(lines, gsa.getLine(), gsa.getColumn()));
+        }
+        for (AST child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+            min = getStartOffset(child, lines, min);
+        }
+        return min;
+    }
+
+    private static void shiftPositions(GroovySourceAST node, GroovySourceAST skip, int[] oldLines, int[] newLines, int from, int delta) {
+        for (; node != null; node = (GroovySourceAST) node.getNextSibling()) {
+            if (node == skip) {
+                continue;
+            }
+            int offset = getOffset(oldLines, node.getLine(), node.getColumn());
+            if (node.getLine() > 0 && offset >= from) {
+                int[] lineCol = getLineColumn(newLines, offset + delta);
+                node.setLine(lineCol[0]);
+                node.setColumn(lineCol[1]);
+            }
+            offset = getOffset(oldLines, node.getLineLast(), node.getColumnLast());
+            if (node.getLineLast() > 0 && offset >= from) {
+                int[] lineCol = getLineColumn(newLines, offset + delta);
+                node.setLineLast(lineCol[0]);
+                node.setColumnLast(lineCol[1]);
+            }
+            shiftPositions((GroovySourceAST) node.getFirstChild(), skip, oldLines, newLines, from, delta);
+        }
+    }
+
+    /**
+     * The last node of the member has no following node to take its end position from when parsed by itself.
+     */
+    private static void fillLastPositions(GroovySourceAST node, int line, int column) {
+        if (node.getLineLast() == 0) {
+            node.setLineLast(line);
+            node.setColumnLast(column);
+        }
+        for (AST child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+            fillLastPositions((GroovySourceAST) child, line, column);
+        }
+    }
+
+    private static Comment copyComment(Comment comment, int[] oldLines, int[] newLines, int from, int delta) {
+        int sline = comment.sline, scol = comment.scol, eline = comment.eline, ecol = comment.ecol;
+        int start = getOffset(oldLines, sline, scol);
+        if (start >= from) {
+            int[] lineCol = getLineColumn(newLines, start + delta);
+            sline = lineCol[0];
+            scol = lineCol[1];
+            lineCol = getLineColumn(newLines, getOffset(oldLines, eline, ecol) + delta);
+            eline = lineCol[0];
+            ecol = lineCol[1];
+        }
+        String text = comment.toString();
+        return text.startsWith("//") ? Comment.makeSingleLineComment(sline, scol, eline, ecol, text) :
+            Comment.makeMultiLineComment(sline, scol, eline, ecol, text);
+    }
+
+    /**
+     * Determines the offset of the first character of each line. Like the lexer, this treats "\n", "\r\n" and "\r" as line breaks.
+     */
+    private static int[] getLineStarts(String text) {
+        int[] starts = new int[16];
+        int count = 1;
+        for (int i = 0, n = text.length(); i < n; i += 1) {
+            char c = text.charAt(i);
+            if (c == '\r' && i + 1 < n && text.charAt(i + 1) == '\n') {
+                i += 1;
+            } else if (c != '\r' && c != '\n') {
+                continue;
+            }
+            if (count == starts.length) {
+                int[] grown = new int[count * 2];
+                System.arraycopy(starts, 0, grown, 0, count);
+                starts = grown;
+            }
+            starts[count++] = i + 1;
+        }
+        int[] result = new int[count];
+        System.arraycopy(starts, 0, result, 0, count);
+        return result;
+    }
+
+    private static int getOffset(int[] lines, int line, int column) {
+        if (line < 1 || line > lines.length) {
+            return -1;
+        }
+        return lines[line - 1] + column - 1;
+    }
+
+    private static int[] getLineColumn(int[] lines, int offset) {
+        int lo = 0, hi = lines.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (lines[mid] <= offset) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return new int[] {lo + 1, offset - lines[lo] + 1};
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.jdt.groovy.internal.compiler.ast;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import groovy.lang.GroovyClassLoader;
+
+import org.codehaus.groovy.eclipse.GroovyLogManager;
+import org.codehaus.groovy.eclipse.TraceCategory;
+
+/**
+ * Loader for the AST transforms of a project. Lookups of the global transform service files are answered from the project's
+ * {@link GroovyBuildState} when it matches the classpath; otherwise the classpath is searched once and the state is saved for the
+ * next session. Service files contributed by the plug-ins themselves are always looked up directly.
+ */
+class ProjectTransformLoader extends GroovyClassLoader {
+
+    private final String classpath;
+    private final File stateFile;
+    private Map<String, byte[]> services;
+
+    ProjectTransformLoader(URLClassLoader parent, String classpath, File stateFile) {
+        super(parent);
+        this.classpath = classpath;
+        this.stateFile = stateFile;
+    }
+
+    @Override
+    public Enumeration<URL> getResources(String name) throws IOException {
+        ClassLoader bundleLoader = getParent().getParent();
+        if (!GroovyBuildState.TRANSFORM_SERVICES.equals(name) || bundleLoader == null || getURLs().length > 0) {
+            return super.getResources(name);
+        }
+        List<URL> result = Collections.list(bundleLoader.getResources(name));
+        for (Map.Entry<String, byte[]> service : getClasspathServices(result).entrySet()) {
+            result.add(new URL(null, service.getKey(), new ContentHandler(service.getValue())));
+        }
+        return Collections.enumeration(result);
+    }
+
+    /**
+     * Returns the contents of the service files found on the project classpath, excluding those already found by the plug-ins.
+     */
+    private synchronized Map<String, byte[]> getClasspathServices(List<URL> bundleServices) throws IOException {
+        if (services == null) {
+            String identity = GroovyBuildState.getClasspathIdentity(classpath);
+            GroovyBuildState state = GroovyBuildState.read(stateFile);
+            if (state != null && state.classpathIdentity.equals(identity)) {
+                services = state.transformServices;
+            } else {
+                Set<String> skip = new HashSet<String>();
+                for (URL url : bundleServices) {
+                    skip.add(url.toExternalForm());
+                }
+                Map<String, byte[]> found = new LinkedHashMap<String, byte[]>();
+                for (URL url : Collections.list(super.getResources(GroovyBuildState.TRANSFORM_SERVICES))) {
+                    if (!skip.contains(url.toExternalForm())) {
+                        found.put(url.toExternalForm(), readFully(url));
+                    }
+                }
+                state = new GroovyBuildState(identity, found);
+                services = state.transformServices;
+                if (stateFile != null) {
+                    try {
+                        stateFile.getParentFile().mkdirs();
+                        state.write(stateFile);
+                    } catch (IOException e) {
+                        if (GroovyLogManager.manager.hasLoggers()) {
+                            GroovyLogManager.manager.log(TraceCategory.AST_TRANSFORM, "Unable to save build state: " + e.getMessage());
+                        }
+                    }
+                }
+            }
+        }
+        return services;
+    }
+
+    private static byte[] readFully(URL url) throws IOException {
+        InputStream in = url.openStream();
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[1024];
+            for (int n; (n = in.read(buf)) != -1;) {
+                out.write(buf, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Serves saved contents for a service file URL, so it reads the same as the original.
+     */
+    private static class ContentHandler extends URLStreamHandler {
+        private final byte[] content;
+
+        ContentHandler(byte[] content) {
+            this.content = content;
+        }
+
+        @Override
+        protected URLConnection openConnection(URL url) {
+            return new URLConnection(url) {
+                @Override
+                public void connect() {
+                    connected = true;
+                }
+
+                @Override
+                public InputStream getInputStream() {
+                    return new ByteArrayInputStream(content);
+                }
+            };
+        }
+    }
+}
@@ -34,6 +34,7 @@ import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jdt.groovy.core.util.ReflectionUtils;
+import org.eclipse.jdt.groovy.search.TypeLookupResultStore;
 import org.eclipse.jdt.internal.compiler.CompilationResult;
 import org.eclipse.jdt.internal.core.JavaModelManager;
 import org.eclipse.jdt.internal.core.JavaModelManager.PerWorkingCopyInfo;
@@ -60,6 +61,9 @@ public class ModuleNodeMapper {
         public CompilationResult result;
         public final JDTResolver resolver;
 
+        /** Type lookups made by the editor features that visit this module. */
+        public final TypeLookupResultStore lookupResults = new TypeLookupResultStore();
+
         public final boolean isEmpty() {
             if (module == null || module.getClasses() == null || (module.getClasses().isEmpty() && module.getImports().isEmpty())) {
                 return true;
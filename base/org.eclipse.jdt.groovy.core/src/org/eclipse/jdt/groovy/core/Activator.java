@@ -25,6 +25,7 @@ import org.eclipse.core.runtime.Plugin;
 import org.eclipse.core.runtime.preferences.IEclipsePreferences;
 import org.eclipse.core.runtime.preferences.IScopeContext;
 import org.eclipse.core.runtime.preferences.InstanceScope;
+import org.eclipse.jdt.groovy.search.TypeLookupStatistics;
 import org.eclipse.jdt.internal.core.util.Util;
 import org.osgi.framework.BundleContext;
 import org.osgi.service.prefs.BackingStoreException;
@@ -63,6 +64,9 @@ public class Activator extends Plugin {
     }
 
     public void stop(BundleContext context) throws Exception {
+        if (TypeLookupStatistics.isEnabled()) {
+            TypeLookupStatistics.logReport();
+        }
         plugin = null;
         super.stop(context);
     }
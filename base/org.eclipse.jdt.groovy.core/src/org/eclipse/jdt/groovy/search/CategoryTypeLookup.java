@@ -15,8 +15,10 @@
  */
 package org.eclipse.jdt.groovy.search;
 
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.codehaus.groovy.ast.AnnotationNode;
@@ -56,8 +58,17 @@ public class CategoryTypeLookup implements ITypeLookup {
             String getterName = AccessorSupport.GETTER.createAccessorName(simpleName);
             String setterName = AccessorSupport.SETTER.createAccessorName(simpleName);
 
-            // go through all categories and look for a method with the given name
+            // the default categories come first in scope; look for a method with the given name through the index
+            MethodNode defaultCategoryMethod = DefaultCategoryIndex.INSTANCE.findMethod(simpleName, getterName, setterName, normalizedType, scope);
+            if (defaultCategoryMethod != null) {
+                return tryMatch(defaultCategoryMethod, scope, expectedType, normalizedType);
+            }
+
+            // go through all other categories and look for a method with the given name
             for (ClassNode category : scope.getCategoryNames()) {
+                if (VariableScope.ALL_DEFAULT_CATEGORIES.contains(category)) {
+                    continue;
+                }
                 for (MethodNode method : category.getMethods(simpleName)) {
                     if ((result = tryMatch(method, scope, expectedType, normalizedType)) != null) {
                         return result;
@@ -89,9 +100,9 @@ public class CategoryTypeLookup implements ITypeLookup {
 
     private TypeLookupResult tryMatch(MethodNode method, VariableScope scope, ClassNode expectedType, ClassNode normalizedType) {
         Parameter[] params = method.getParameters();
-        if (params != null && params.length > 0 && isAssignableFrom(normalizedType, params[0].getType())) {
+        if (params != null && params.length > 0 && isAssignableFrom(normalizedType, params[0].getType(), scope)) {
             ClassNode declaringClass = method.getDeclaringClass();
-            ClassNode returnType = SimpleTypeLookup.getTypeFromDeclaration(method, expectedType);
+            ClassNode returnType = SimpleTypeLookup.getTypeFromDeclaration(method, expectedType, scope);
             TypeConfidence confidence = getConfidence(declaringClass);
             if (confidence == TypeConfidence.LOOSELY_INFERRED) {
                 confidence = checkParameters(params, scope.getMethodCallArgumentTypes());
@@ -133,42 +144,130 @@ public class CategoryTypeLookup implements ITypeLookup {
         return TypeConfidence.EXACT;
     }
 
-    private void findAllSupers(ClassNode clazz, Set<String> allSupers) {
-        String name = clazz.getName();
-        if (!allSupers.contains(name)) {
-            allSupers.add(name);
-            if (clazz.getSuperClass() != null) {
-                findAllSupers(clazz.getSuperClass(), allSupers);
-            }
-            if (clazz.getInterfaces() != null) {
-                for (ClassNode superInterface : clazz.getInterfaces()) {
-                    findAllSupers(superInterface, allSupers);
-                }
-            }
-        }
-    }
-
     /**
      * Can {@code source} be assigned to {@code target}?
      */
-    private boolean isAssignableFrom(ClassNode source, ClassNode target) {
+    private boolean isAssignableFrom(ClassNode source, ClassNode target, VariableScope scope) {
         if (source == null || target == null) {
             return false;
         }
         String sourceName = source.getName(), targetName = target.getName();
-        Set<String> allSupers = new HashSet<String>();
-        allSupers.add("java.lang.Object");
-        if (sourceName.startsWith("["))
-            allSupers.add("[Ljava.lang.Object;");
-        findAllSupers(source, allSupers);
-        for (String superName : allSupers) {
-            if (targetName.equals(superName)) {
+        if (targetName.equals("java.lang.Object") || (sourceName.startsWith("[") && targetName.equals("[Ljava.lang.Object;"))) {
+            return true;
+        }
+        for (ClassNode superType : scope.getTypeHierarchy(source, false)) {
+            if (targetName.equals(superType.getName())) {
                 return true;
             }
         }
         return false;
     }
 
+    /**
+     * Methods of the default categories, indexed by name and by the name of their first parameter's type, so that a lookup probes
+     * the supertypes of the receiver instead of checking every method of every category. The default categories are those of the
+     * Groovy runtime, so the index is built once.
+     */
+    private static final class DefaultCategoryIndex {
+
+        static final DefaultCategoryIndex INSTANCE = new DefaultCategoryIndex(VariableScope.ALL_DEFAULT_CATEGORIES);
+
+        /** Kinds of lookup, in the order they are tried for each category. */
+        private static final int METHOD = 0, GETTER = 1, SETTER = 2;
+
+        private static class Entry {
+            final MethodNode method;
+            /** Position in the order of the original search: category, then kind of lookup, then method. */
+            final int rank;
+
+            Entry(MethodNode method, int rank) {
+                this.method = method;
+                this.rank = rank;
+            }
+        }
+
+        /** For each kind of lookup: method name to first parameter type name to the earliest method. */
+        private final List<Map<String, Map<String, Entry>>> tables = new ArrayList<Map<String, Map<String, Entry>>>(3);
+
+        private DefaultCategoryIndex(Set<ClassNode> categories) {
+            for (int kind = METHOD; kind <= SETTER; kind += 1) {
+                tables.add(new HashMap<String, Map<String, Entry>>());
+            }
+            int categoryIndex = 0;
+            for (ClassNode category : categories) {
+                // same order as getMethods(String), which includes the methods of super classes
+                int methodIndex = 0;
+                for (ClassNode type = category; type != null; type = type.getSuperClass()) {
+                    for (MethodNode method : type.getMethods()) {
+                        Parameter[] params = method.getParameters();
+                        if (params != null && params.length > 0) {
+                            String typeName = params[0].getType().getName();
+                            add(METHOD, method, typeName, categoryIndex, methodIndex);
+                            if (method.isStatic()) {
+                                AccessorSupport accessor = AccessorSupport.findAccessorKind(method, true);
+                                if (accessor == AccessorSupport.GETTER) {
+                                    add(GETTER, method, typeName, categoryIndex, methodIndex);
+                                } else if (accessor == AccessorSupport.SETTER) {
+                                    add(SETTER, method, typeName, categoryIndex, methodIndex);
+                                }
+                            }
+                        }
+                        methodIndex += 1;
+                    }
+                }
+                categoryIndex += 1;
+            }
+        }
+
+        private void add(int kind, MethodNode method, String typeName, int categoryIndex, int methodIndex) {
+            Map<String, Map<String, Entry>> table = tables.get(kind);
+            Map<String, Entry> byType = table.get(method.getName());
+            if (byType == null) {
+                byType = new HashMap<String, Entry>();
+                table.put(method.getName(), byType);
+            }
+            if (!byType.containsKey(typeName)) {
+                byType.put(typeName, new Entry(method, ((categoryIndex * 3 + kind) << 16) + methodIndex));
+            }
+        }
+
+        /**
+         * Finds the method that going through the default categories in order and checking the methods named
+         * <code>name</code>, <code>getterName</code> and <code>setterName</code> of each would find first.
+         */
+        MethodNode findMethod(String name, String getterName, String setterName, ClassNode receiverType, VariableScope scope) {
+            if (receiverType == null) {
+                return null;
+            }
+            Entry best = find(METHOD, name, receiverType, scope, null);
+            if (getterName != null) {
+                best = find(GETTER, getterName, receiverType, scope, best);
+            }
+            if (setterName != null) {
+                best = find(SETTER, setterName, receiverType, scope, best);
+            }
+            return best != null ? best.method : null;
+        }
+
+        private Entry find(int kind, String name, ClassNode receiverType, VariableScope scope, Entry best) {
+            Map<String, Entry> byType = tables.get(kind).get(name);
+            if (byType != null) {
+                best = better(byType.get("java.lang.Object"), best);
+                if (receiverType.getName().startsWith("[")) {
+                    best = better(byType.get("[Ljava.lang.Object;"), best);
+                }
+                for (ClassNode superType : scope.getTypeHierarchy(receiverType, false)) {
+                    best = better(byType.get(superType.getName()), best);
+                }
+            }
+            return best;
+        }
+
+        private static Entry better(Entry candidate, Entry best) {
+            return candidate != null && (best == null || candidate.rank < best.rank) ? candidate : best;
+        }
+    }
+
     public TypeLookupResult lookupType(FieldNode node, VariableScope scope) {
         return null;
     }
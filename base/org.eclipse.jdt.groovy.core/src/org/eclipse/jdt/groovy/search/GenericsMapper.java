@@ -87,6 +87,57 @@ public class GenericsMapper {
         return mapper;
     }
 
+    /**
+     * Describes the actual type arguments of a type, so that two parameterizations of the same type map generics the same way
+     * iff they have the same description.
+     *
+     * @return the description or null if the type arguments are nested too deeply to be described
+     */
+    public static String getParameterizationKey(ClassNode type) {
+        StringBuilder sb = new StringBuilder();
+        return appendParameterizationKey(type, sb, 0) ? sb.toString() : null;
+    }
+
+    private static boolean appendParameterizationKey(ClassNode type, StringBuilder sb, int depth) {
+        if (depth > 10) {
+            return false;
+        }
+        sb.append(type.getName());
+        GenericsType[] gts = type.getGenericsTypes();
+        if (gts != null) {
+            sb.append('<');
+            for (GenericsType gt : gts) {
+                if (gt.isPlaceholder()) {
+                    sb.append('#');
+                }
+                if (gt.isWildcard()) {
+                    sb.append('?');
+                }
+                sb.append(gt.getName()).append('=');
+                if (!appendParameterizationKey(gt.getType(), sb, depth + 1)) {
+                    return false;
+                }
+                if (gt.getLowerBound() != null) {
+                    sb.append(" super ");
+                    if (!appendParameterizationKey(gt.getLowerBound(), sb, depth + 1)) {
+                        return false;
+                    }
+                }
+                if (gt.getUpperBounds() != null) {
+                    for (ClassNode upperBound : gt.getUpperBounds()) {
+                        sb.append(" extends ");
+                        if (!appendParameterizationKey(upperBound, sb, depth + 1)) {
+                            return false;
+                        }
+                    }
+                }
+                sb.append(',');
+            }
+            sb.append('>');
+        }
+        return true;
+    }
+
     boolean hasGenerics() {
         return !allGenerics.isEmpty() && allGenerics.peek().size() > 0;
     }
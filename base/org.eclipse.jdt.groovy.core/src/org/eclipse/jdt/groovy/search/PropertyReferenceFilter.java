@@ -0,0 +1,138 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.jdt.groovy.search;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.codehaus.jdt.groovy.integration.IPropertyReferenceRequestor;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.compiler.CharOperation;
+import org.eclipse.jdt.core.search.SearchPattern;
+import org.eclipse.jdt.groovy.core.util.ReflectionUtils;
+import org.eclipse.jdt.internal.core.JavaModelManager;
+import org.eclipse.jdt.internal.core.index.EntryResult;
+import org.eclipse.jdt.internal.core.index.Index;
+import org.eclipse.jdt.internal.core.search.indexing.ReadWriteMonitor;
+import org.eclipse.jdt.internal.core.search.matching.FieldPattern;
+import org.eclipse.jdt.internal.core.search.matching.PossibleMatch;
+import org.eclipse.jdt.internal.core.search.matching.VariablePattern;
+
+/**
+ * Narrows the Groovy files searched for references to a property by looking the property up in the Groovy-specific index
+ * category that {@link org.codehaus.jdt.groovy.integration.internal.GroovyIndexingVisitor} writes. A file that was indexed with
+ * the category and does not refer to the property, by name or through one of its accessors, cannot match. Files that were indexed
+ * before the category existed, files in projects without an index and working copies are not filtered.
+ * <p>
+ * A filter belongs to one search: it reads the index of a project once, when it is first asked about a file of that project, and
+ * does not see files that are indexed later.
+ */
+public class PropertyReferenceFilter {
+
+    private final char[][] keys;
+
+    /** Project path to the project-relative paths of the files that refer to the property, or null if the index is unknown */
+    private final Map<String, Set<String>> referencingFiles = new HashMap<String, Set<String>>();
+    /** Project path to the project-relative paths of the files that were indexed with the property category */
+    private final Map<String, Set<String>> indexedFiles = new HashMap<String, Set<String>>();
+
+    /**
+     * @return the filter for the pattern or null if files cannot be filtered for it
+     */
+    public static PropertyReferenceFilter create(SearchPattern pattern) {
+        if (!(pattern instanceof FieldPattern) || !ReferenceNameFilter.isExactMatch(pattern)) {
+            return null;
+        }
+        char[] name = (char[]) ReflectionUtils.getPrivateField(VariablePattern.class, "name", pattern);
+        if (name == null || name.length == 0) {
+            return null;
+        }
+        return new PropertyReferenceFilter(name);
+    }
+
+    private PropertyReferenceFilter(char[] name) {
+        char[] decapitalized = CharOperation.subarray(name, 0, -1);
+        decapitalized[0] = Character.toLowerCase(decapitalized[0]);
+        keys = CharOperation.equals(name, decapitalized) ? new char[][] {name} : new char[][] {name, decapitalized};
+    }
+
+    /**
+     * @return false iff the index shows that the file of the possible match does not refer to the property
+     */
+    public boolean mayMatch(PossibleMatch possibleMatch) {
+        if (possibleMatch.openable instanceof ICompilationUnit && ((ICompilationUnit) possibleMatch.openable).isWorkingCopy()) {
+            // the index knows nothing of unsaved changes
+            return true;
+        }
+        String documentPath = possibleMatch.document.getPath();
+        Path path = new Path(documentPath);
+        if (path.segmentCount() < 2) {
+            return true;
+        }
+        String projectPath = path.uptoSegment(1).toString();
+        String relativePath = path.removeFirstSegments(1).toString();
+        synchronized (this) {
+            if (!referencingFiles.containsKey(projectPath)) {
+                readIndex(projectPath);
+            }
+            Set<String> indexed = indexedFiles.get(projectPath);
+            if (indexed == null || !indexed.contains(relativePath)) {
+                return true;
+            }
+            return referencingFiles.get(projectPath).contains(relativePath);
+        }
+    }
+
+    private void readIndex(String projectPath) {
+        Set<String> referencing = null, indexed = null;
+        Index index = JavaModelManager.getIndexManager().getIndex(new Path(projectPath), true, false);
+        ReadWriteMonitor monitor = (index != null ? index.monitor : null);
+        if (monitor != null) {
+            monitor.enterRead();
+            try {
+                indexed = queryDocuments(index, IPropertyReferenceRequestor.INDEXED);
+                referencing = new HashSet<String>();
+                for (char[] key : keys) {
+                    referencing.addAll(queryDocuments(index, key));
+                }
+            } catch (IOException e) {
+                indexed = null;
+            } finally {
+                monitor.exitRead();
+            }
+        }
+        referencingFiles.put(projectPath, referencing);
+        indexedFiles.put(projectPath, indexed);
+    }
+
+    private static Set<String> queryDocuments(Index index, char[] key) throws IOException {
+        Set<String> documents = new HashSet<String>();
+        EntryResult[] results = index.query(new char[][] {IPropertyReferenceRequestor.PROPERTY_REF}, key,
+                SearchPattern.R_EXACT_MATCH | SearchPattern.R_CASE_SENSITIVE);
+        if (results != null) {
+            for (EntryResult result : results) {
+                for (String document : result.getDocumentNames(index)) {
+                    documents.add(document);
+                }
+            }
+        }
+        return documents;
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.jdt.groovy.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.jdt.core.search.SearchPattern;
+import org.eclipse.jdt.groovy.core.util.ReflectionUtils;
+import org.eclipse.jdt.internal.core.search.matching.ConstructorPattern;
+import org.eclipse.jdt.internal.core.search.matching.FieldPattern;
+import org.eclipse.jdt.internal.core.search.matching.MethodPattern;
+import org.eclipse.jdt.internal.core.search.matching.OrPattern;
+import org.eclipse.jdt.internal.core.search.matching.VariablePattern;
+
+/**
+ * Cheap test of whether the source of a unit can contain a match for a search pattern, made before the types of the unit are
+ * inferred. The field, method and constructor requestors only match nodes that spell out the simple name of what is searched for
+ * (aliased imports spell it out in the import), so a unit that does not contain the name as a whole identifier cannot match. The
+ * accessor and property forms of the name are accepted as well. Other patterns, and methods that Groovy calls for operators or other
+ * syntax without naming them, are not filtered.
+ */
+public class ReferenceNameFilter {
+
+    private static final Set<String> IMPLICIT_METHODS = new HashSet<String>(Arrays.asList("call", "getAt", "putAt", "plus", "minus",
+            "multiply", "div", "intdiv", "mod", "power", "or", "and", "xor", "leftShift", "rightShift", "rightShiftUnsigned", "next",
+            "previous", "negative", "positive", "bitwiseNegate", "compareTo", "equals", "isCase", "asType", "asBoolean", "iterator",
+            "getProperty", "setProperty", "invokeMethod", "methodMissing", "propertyMissing"));
+
+    private final char[][] names;
+
+    /**
+     * @return a filter for the pattern or null if units cannot be filtered for it
+     */
+    public static ReferenceNameFilter create(SearchPattern pattern) {
+        List<char[]> names = new ArrayList<char[]>();
+        if (!addNames(pattern, names)) {
+            return null;
+        }
+        return new ReferenceNameFilter(names.toArray(new char[names.size()][]));
+    }
+
+    private ReferenceNameFilter(char[][] names) {
+        this.names = names;
+    }
+
+    private static boolean addNames(SearchPattern pattern, List<char[]> names) {
+        if (!(pattern instanceof OrPattern) && !isExactMatch(pattern)) {
+            // prefix, pattern and camel case matches need not spell out the name
+            return false;
+        }
+        if (pattern instanceof FieldPattern) {
+            char[] name = (char[]) ReflectionUtils.getPrivateField(VariablePattern.class, "name", pattern);
+            if (name == null || name.length == 0) {
+                return false;
+            }
+            String field = String.valueOf(name);
+            names.add(name);
+            for (AccessorSupport kind : new AccessorSupport[] {AccessorSupport.GETTER, AccessorSupport.SETTER, AccessorSupport.ISSER}) {
+                String accessor = kind.createAccessorName(field);
+                if (accessor != null) {
+                    names.add(accessor.toCharArray());
+                }
+            }
+            return true;
+        } else if (pattern instanceof MethodPattern) {
+            char[] name = (char[]) ReflectionUtils.getPrivateField(MethodPattern.class, "selector", pattern);
+            if (name == null || name.length == 0) {
+                return false;
+            }
+            String method = String.valueOf(name);
+            if (IMPLICIT_METHODS.contains(method)) {
+                return false;
+            }
+            names.add(name);
+            AccessorSupport kind = AccessorSupport.create(method, false);
+            if (kind.isAccessor()) {
+                String property = method.substring(kind == AccessorSupport.ISSER ? 2 : 3);
+                names.add(property.toCharArray());
+                names.add((Character.toLowerCase(property.charAt(0)) + property.substring(1)).toCharArray());
+            }
+            return true;
+        } else if (pattern instanceof ConstructorPattern) {
+            char[] name = ((ConstructorPattern) pattern).declaringSimpleName;
+            if (name == null || name.length == 0) {
+                return false;
+            }
+            names.add(name);
+            return true;
+        } else if (pattern instanceof OrPattern) {
+            SearchPattern[] patterns = (SearchPattern[]) ReflectionUtils.getPrivateField(OrPattern.class, "patterns", pattern);
+            for (SearchPattern orPattern : patterns) {
+                if (orPattern != null && !addNames(orPattern, names)) {
+                    return false;
+                }
+            }
+            return !names.isEmpty();
+        }
+        return false;
+    }
+
+    /**
+     * @return true iff the pattern only matches names that are spelled exactly like its own
+     */
+    static boolean isExactMatch(SearchPattern pattern) {
+        int rule = pattern.getMatchRule();
+        return (rule & SearchPattern.R_CASE_SENSITIVE) != 0 && (rule & (SearchPattern.R_PREFIX_MATCH | SearchPattern.R_PATTERN_MATCH |
+            SearchPattern.R_REGEXP_MATCH | SearchPattern.R_CAMELCASE_MATCH | SearchPattern.R_CAMELCASE_SAME_PART_COUNT_MATCH)) == 0;
+    }
+
+    /**
+     * @param contents the source of a unit or null if it is not available
+     * @return false iff the contents are known not to contain any of the names as a whole identifier
+     */
+    public boolean mayMatch(char[] contents) {
+        if (contents == null) {
+            return true;
+        }
+        for (char[] name : names) {
+            if (containsIdentifier(contents, name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean containsIdentifier(char[] contents, char[] name) {
+        char first = name[0];
+        for (int i = 0, n = contents.length - name.length; i <= n; i += 1) {
+            if (contents[i] != first) {
+                continue;
+            }
+            int j = 1;
+            while (j < name.length && contents[i + j] == name[j]) {
+                j += 1;
+            }
+            if (j == name.length && (i == 0 || isBoundary(contents[i - 1])) && (i + j == contents.length || isBoundary(contents[i + j]))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isBoundary(char c) {
+        // '$' also starts a reference in a GString
+        return c == '$' || !Character.isJavaIdentifierPart(c);
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.jdt.groovy.search;
+
+import java.io.Closeable;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jdt.core.search.SearchMatch;
+import org.eclipse.jdt.core.search.SearchRequestor;
+import org.eclipse.jdt.groovy.search.ITypeRequestor.VisitStatus;
+import org.eclipse.jdt.groovy.search.TypeInferencingVisitorWithRequestor.VisitCompleted;
+import org.eclipse.jdt.internal.core.util.Util;
+
+/**
+ * Hands the matches of a delegated search that runs on an inferencing worker to the search thread one at a time, as soon as each
+ * one is found. The worker blocks once {@link #CAPACITY} matches are waiting, so a unit with many matches does not pile them up
+ * while the search thread is busy with an earlier unit.
+ * <p>
+ * Either the worker or the search thread runs the search, whichever {@link #start() starts} it first. A worker never waits for a
+ * search thread that is itself waiting for a unit no worker has started, so a bounded pool cannot deadlock.
+ * <p>
+ * The stream must be {@link #close() closed} if the search thread does not get to the unit, for instance because the search
+ * fails, so that the worker does not wait for it.
+ */
+public class SearchMatchStream extends SearchRequestor implements Closeable {
+
+    static final int CAPACITY = 64;
+
+    private static final Object END = new Object();
+
+    private final BlockingQueue<Object> queue = new ArrayBlockingQueue<Object>(CAPACITY);
+    private final AtomicBoolean started = new AtomicBoolean();
+    /** Set once the search thread stops listening, for instance because the search was canceled */
+    private volatile boolean closed;
+
+    private final IProgressMonitor monitor;
+
+    /**
+     * @param monitor the progress monitor of the search, may be null
+     */
+    public SearchMatchStream(IProgressMonitor monitor) {
+        this.monitor = monitor;
+    }
+
+    /**
+     * @return true iff the search has been canceled, in which case the worker need not start it
+     */
+    public boolean isCanceled() {
+        return closed || (monitor != null && monitor.isCanceled());
+    }
+
+    /**
+     * @return true iff the caller is the first to start the search and so must run it
+     */
+    public boolean start() {
+        return started.compareAndSet(false, true);
+    }
+
+    /**
+     * Called on the worker for each match. Stops the visit once the search thread has stopped listening.
+     */
+    @Override
+    public void acceptSearchMatch(SearchMatch match) {
+        if (!offer(match)) {
+            throw new VisitCompleted(VisitStatus.STOP_VISIT);
+        }
+    }
+
+    /**
+     * Called on the worker when the search is over, however it ended.
+     */
+    public void finish() {
+        offer(END);
+    }
+
+    /**
+     * Called on the search thread once it stops listening. The worker's next match ends its visit.
+     */
+    public void close() {
+        closed = true;
+        queue.clear();
+    }
+
+    /**
+     * Waits for room in the queue until the search thread stops listening or the search is canceled.
+     *
+     * @return true iff the item was queued
+     */
+    private boolean offer(Object item) {
+        try {
+            while (!isCanceled()) {
+                if (queue.offer(item, 100, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    /**
+     * Passes the matches on to the requestor as they arrive, until the worker is done or the monitor is canceled. Cancellation is
+     * checked between matches.
+     *
+     * @return false if no worker had started the search, in which case the caller must run it instead
+     */
+    public boolean drainTo(SearchRequestor requestor) {
+        if (start()) {
+            return false;
+        }
+        try {
+            while (true) {
+                if (isCanceled()) {
+                    break;
+                }
+                Object item = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (item == END) {
+                    break;
+                }
+                if (item != null) {
+                    SearchMatch match = (SearchMatch) item;
+                    try {
+                        requestor.acceptSearchMatch(match);
+                    } catch (CoreException e) {
+                        Util.log(e, "Error accepting search match for " + match.getElement());
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            close();
+        }
+        return true;
+    }
+}
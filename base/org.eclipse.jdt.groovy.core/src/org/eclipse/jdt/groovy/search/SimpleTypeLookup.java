@@ -17,9 +17,9 @@ package org.eclipse.jdt.groovy.search;
 
 import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 import groovyjarjarasm.asm.Opcodes;
 import org.codehaus.groovy.ast.ASTNode;
@@ -67,8 +67,14 @@ public class SimpleTypeLookup implements ITypeLookupExtension {
 
     protected GroovyCompilationUnit unit;
 
+    /**
+     * Top-level scope of the current inference session; holds the type hierarchies computed so far.
+     */
+    protected VariableScope topLevelScope;
+
     public void initialize(GroovyCompilationUnit unit, VariableScope topLevelScope) {
         this.unit = unit;
+        this.topLevelScope = topLevelScope;
     }
 
     public TypeLookupResult lookupType(Expression node, VariableScope scope, ClassNode objectExpressionType) {
@@ -269,9 +275,7 @@ public class SimpleTypeLookup implements ITypeLookupExtension {
             if (!ownerType.isInterface()) {
                 candidates.addAll(ownerType.getMethods(methodName));
             } else {
-                LinkedHashSet<ClassNode> faces = new LinkedHashSet<ClassNode>();
-                VariableScope.findAllInterfaces(ownerType, faces, false);
-                for (ClassNode face : faces) {
+                for (ClassNode face : scope.getAllInterfaces(ownerType, false)) {
                     candidates.addAll(face.getMethods(methodName));
                 }
             }
@@ -357,7 +361,7 @@ public class SimpleTypeLookup implements ITypeLookupExtension {
         }
 
         if (declaration != null) {
-            type = getTypeFromDeclaration(declaration, declaringType);
+            type = getTypeFromDeclaration(declaration, declaringType, scope);
             realDeclaringType = getDeclaringTypeFromDeclaration(declaration, declaringType);
         } else if ("this".equals(name)) {
             // Fix for 'this' as property of ClassName
@@ -437,7 +441,7 @@ public class SimpleTypeLookup implements ITypeLookupExtension {
                 decl instanceof PropertyNode) {
                 // use field/method/property info
                 variableInfo = null;
-                type = getTypeFromDeclaration(decl, ((AnnotatedNode) decl).getDeclaringClass());
+                type = getTypeFromDeclaration(decl, ((AnnotatedNode) decl).getDeclaringClass(), scope);
             }
         } else if (accessedVar instanceof DynamicVariable) {
             // likely a reference to a field or method in a type in the hierarchy; find the declaration
@@ -450,7 +454,7 @@ public class SimpleTypeLookup implements ITypeLookupExtension {
                 // dynamic variables are not allowed outside of script mainline
                 if (variableInfo != null && !scope.inScriptRunMethod()) variableInfo = null;
             }
-            type = getTypeFromDeclaration(decl, declaringType);
+            type = getTypeFromDeclaration(decl, declaringType, scope);
         }
 
         if (variableInfo != null && !(decl instanceof MethodNode)) {
@@ -496,11 +500,8 @@ public class SimpleTypeLookup implements ITypeLookupExtension {
             return accessor;
         }
 
-        LinkedHashSet<ClassNode> typeHierarchy = new LinkedHashSet<ClassNode>();
-        VariableScope.createTypeHierarchy(declaringType, typeHierarchy, true);
-
         // look for property
-        for (ClassNode type : typeHierarchy) {
+        for (ClassNode type : topLevelScope.getTypeHierarchy(declaringType, true)) {
             PropertyNode property = type.getProperty(name);
             if (property != null) {
                 return property;
@@ -513,11 +514,8 @@ public class SimpleTypeLookup implements ITypeLookupExtension {
             return field;
         }
 
-        typeHierarchy.clear();
-        VariableScope.findAllInterfaces(declaringType, typeHierarchy, true);
-
         // look for constant in interfaces
-        for (ClassNode type : typeHierarchy) {
+        for (ClassNode type : topLevelScope.getAllInterfaces(declaringType, true)) {
             if (type == declaringType) {
                 continue;
             }
@@ -552,12 +550,11 @@ public class SimpleTypeLookup implements ITypeLookupExtension {
         // will return the current interface as well and this will avoid running this
         // method on the same interface twice
         if (declaringType.isInterface()) {
-            LinkedHashSet<ClassNode> superTypes = new LinkedHashSet<ClassNode>();
-            VariableScope.findAllInterfaces(declaringType, superTypes, true);
-            superTypes.add(ClassHelper.OBJECT_TYPE); // implicit super type
+            ClassNode[] superTypes = topLevelScope.getAllInterfaces(declaringType, true);
 
             MethodNode outerCandidate = null;
-            for (ClassNode superType : superTypes) {
+            for (int i = 0; i <= superTypes.length; i += 1) {
+                ClassNode superType = i < superTypes.length ? superTypes[i] : ClassHelper.OBJECT_TYPE; // implicit super type
                 MethodNode innerCandidate = null;
                 List<MethodNode> candidates = superType.getMethods(name);
                 if (!candidates.isEmpty()) {
@@ -653,6 +650,28 @@ public class SimpleTypeLookup implements ITypeLookupExtension {
      * @return class node with generics replaced by actual types
      */
     protected static ClassNode getTypeFromDeclaration(ASTNode declaration, ClassNode resolvedType) {
+        return getTypeFromDeclaration(declaration, resolvedType, null);
+    }
+
+    /**
+     * @param declaration the declaration to look up
+     * @param resolvedType the unredirected type that declares this declaration somewhere in its hierarchy
+     * @param scope if not null, the type is computed once per inference session of the scope for each parameterization of
+     *        <code>resolvedType</code>; the shared result must not be modified
+     * @return class node with generics replaced by actual types
+     */
+    protected static ClassNode getTypeFromDeclaration(ASTNode declaration, ClassNode resolvedType, VariableScope scope) {
+        // the types of expressions may still change, so only the types of members are kept
+        String key = scope != null && !(declaration instanceof Expression) ? GenericsMapper.getParameterizationKey(resolvedType) : null;
+        Map<String, ClassNode> parameterizedTypes = null;
+        if (key != null) {
+            parameterizedTypes = scope.getParameterizedTypes(declaration);
+            ClassNode parameterizedType = parameterizedTypes.get(key);
+            if (parameterizedType != null) {
+                return parameterizedType;
+            }
+        }
+
         ClassNode typeOfDeclaration, declaringType = getDeclaringTypeFromDeclaration(declaration, resolvedType);
         if (declaration instanceof PropertyNode) {
             FieldNode field = ((PropertyNode) declaration).getField();
@@ -680,8 +699,12 @@ public class SimpleTypeLookup implements ITypeLookupExtension {
         // now try to resolve generics
         // travel up the hierarchy and look for more generics
         // also look for generics on methods...(not doing this yet...)
-        GenericsMapper mapper = GenericsMapper.gatherGenerics(resolvedType, declaringType.redirect());
+        GenericsMapper mapper = scope != null ? scope.getGenericsMapper(resolvedType, declaringType.redirect()) :
+            GenericsMapper.gatherGenerics(resolvedType, declaringType.redirect());
         ClassNode resolvedTypeOfDeclaration = VariableScope.resolveTypeParameterization(mapper, VariableScope.clone(typeOfDeclaration));
+        if (parameterizedTypes != null) {
+            parameterizedTypes.put(key, resolvedTypeOfDeclaration);
+        }
         return resolvedTypeOfDeclaration;
     }
 
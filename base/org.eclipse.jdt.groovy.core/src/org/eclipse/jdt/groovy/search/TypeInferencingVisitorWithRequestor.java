@@ -143,6 +143,12 @@ public class TypeInferencingVisitorWithRequestor extends ClassCodeVisitorSupport
      */
     public boolean DEBUG = false;
 
+    /**
+     * Time limit in milliseconds for visits that editors make while reconciling, set by the
+     * <code>greclipse.reconcileInferenceTimeLimit</code> system property; see {@link #setBudget(long, int)}
+     */
+    public static final long RECONCILE_TIME_LIMIT = Long.getLong("greclipse.reconcileInferenceTimeLimit", 5000);
+
     // shared instances for several method checks below
     private static final String[] NO_PARAMS = new String[0];
     private static final Parameter[] NO_PARAMETERS = Parameter.EMPTY_ARRAY;
@@ -296,6 +302,25 @@ public class TypeInferencingVisitorWithRequestor extends ClassCodeVisitorSupport
 
     private final JDTResolver resolver;
 
+    /**
+     * Expression lookups already made in this revision of the unit, by this or another visitor; null if not shared
+     */
+    private final TypeLookupResultStore lookupResults;
+
+    /**
+     * Keeps lookup statistics; null unless enabled
+     */
+    private final TypeLookupStatistics.LookupCounter lookupCounter;
+
+    /**
+     * Limits on the elapsed time (in nanoseconds) and on the number of statements and expressions of a visit; zero means no limit
+     */
+    private long timeLimit;
+    private int nodeLimit;
+    private long deadline;
+    private int nodeCount;
+    private boolean budgetExceeded;
+
     private final AssignmentStorer assignmentStorer = new AssignmentStorer();
 
     private ClassNode inferredStaticMethodType;
@@ -316,7 +341,9 @@ public class TypeInferencingVisitorWithRequestor extends ClassCodeVisitorSupport
         ModuleNodeInfo info = createModuleNode(unit);
         this.enclosingDeclarationNode = info != null ? info.module : null;
         this.resolver = info != null ? info.resolver : null;
+        this.lookupResults = info != null ? info.lookupResults : null;
         this.lookups = lookups;
+        this.lookupCounter = TypeLookupStatistics.isEnabled() ? new TypeLookupStatistics.LookupCounter() : null;
         scopes = new Stack<VariableScope>();
         completeExpressionStack = new Stack<ASTNode>();
         primaryTypeStack = new Stack<ClassNode>();
@@ -324,6 +351,42 @@ public class TypeInferencingVisitorWithRequestor extends ClassCodeVisitorSupport
         dependentDeclarationStack = new Stack<Tuple>();
     }
 
+    /**
+     * Bounds the work of each following visit. Once a visit has taken longer than <code>timeLimit</code> milliseconds or has
+     * looked up <code>nodeLimit</code> statements and expressions, it stops as if the requestor had returned
+     * {@link VisitStatus#STOP_VISIT}: whatever has been reported so far stands and the rest of the unit is not visited. The time is
+     * checked between lookups, so a single slow lookup is not interrupted.
+     *
+     * @param timeLimit milliseconds, or zero for no limit
+     * @param nodeLimit statements and expressions, or zero for no limit
+     */
+    public void setBudget(long timeLimit, int nodeLimit) {
+        this.timeLimit = timeLimit * 1000000L;
+        this.nodeLimit = nodeLimit;
+    }
+
+    /**
+     * @return true iff the last visit was stopped by the limits given to {@link #setBudget(long, int)}, and so did not report all
+     *         of the nodes it would have otherwise
+     */
+    public boolean isBudgetExceeded() {
+        return budgetExceeded;
+    }
+
+    private void resetBudget() {
+        deadline = timeLimit > 0 ? System.nanoTime() + timeLimit : 0;
+        nodeCount = 0;
+        budgetExceeded = false;
+    }
+
+    private void checkBudget() {
+        nodeCount += 1;
+        if ((nodeLimit > 0 && nodeCount > nodeLimit) || (deadline != 0 && (nodeCount & 0xF) == 0 && System.nanoTime() > deadline)) {
+            budgetExceeded = true;
+            throw new VisitCompleted(VisitStatus.STOP_VISIT);
+        }
+    }
+
     public void visitCompilationUnit(ITypeRequestor requestor) {
         if (enclosingDeclarationNode == null) {
             // no module node, can't do anything
@@ -332,15 +395,8 @@ public class TypeInferencingVisitorWithRequestor extends ClassCodeVisitorSupport
 
         this.requestor = requestor;
         enclosingElement = unit;
-        VariableScope topLevelScope = new VariableScope(null, enclosingDeclarationNode, false);
-        scopes.push(topLevelScope);
-
-        for (ITypeLookup lookup : lookups) {
-            if (lookup instanceof ITypeResolver) {
-                ((ITypeResolver) lookup).setResolverInformation((ModuleNode) enclosingDeclarationNode, resolver);
-            }
-            lookup.initialize(unit, topLevelScope);
-        }
+        resetBudget();
+        pushTopLevelScope();
 
         try {
             visitPackage(((ModuleNode) enclosingDeclarationNode).getPackage());
@@ -370,6 +426,110 @@ public class TypeInferencingVisitorWithRequestor extends ClassCodeVisitorSupport
         }
     }
 
+    /**
+     * Visits only the field or method that encloses the given source offset, including its closures and local types. The scopes of
+     * the module and of the declaring types are set up as they would be by {@link #visitCompilationUnit(ITypeRequestor)}, but the
+     * other members, imports and type declarations are not visited, so the cost depends on the size of the member and not on the
+     * size of the unit. If the offset is not within a field or method, the enclosing type or else the whole unit is visited.
+     */
+    public void visitCompilationUnit(ITypeRequestor requestor, int offset) {
+        IJavaElement element = null;
+        try {
+            element = unit.getElementAt(offset);
+        } catch (JavaModelException e) {
+            Util.log(e, "Error finding element at " + offset + " in " + unit.getElementName());
+        }
+
+        // member types from the outermost down, followed by the field or method below them (if any)
+        LinkedList<IJavaElement> path = new LinkedList<IJavaElement>();
+        for (IJavaElement e = element; e != null && e.getElementType() != IJavaElement.COMPILATION_UNIT; e = e.getParent()) {
+            if (e.getElementType() == IJavaElement.TYPE) {
+                path.addFirst(e);
+            } else if (e.getElementType() == IJavaElement.METHOD || e.getElementType() == IJavaElement.FIELD) {
+                // local and anonymous types are visited along with their enclosing member
+                path.clear();
+                path.add(e);
+            } else {
+                path.clear();
+            }
+        }
+        if (path.isEmpty() || path.getFirst().getElementType() != IJavaElement.TYPE) {
+            visitCompilationUnit(requestor);
+            return;
+        }
+        if (enclosingDeclarationNode == null) {
+            // no module node, can't do anything
+            return;
+        }
+
+        this.requestor = requestor;
+        enclosingElement = unit;
+        resetBudget();
+        ModuleNode module = (ModuleNode) enclosingDeclarationNode;
+        int depth = scopes.size();
+        pushTopLevelScope();
+        try {
+            // static imports contribute to the top-level scope
+            for (ImportNode imp : new ImportNodeCompatibilityWrapper(module).getAllImportNodes()) {
+                assignmentStorer.storeImport(imp, scopes.peek());
+            }
+
+            IJavaElement member = path.removeLast();
+            for (IJavaElement type : path) {
+                ClassNode node = findClassWithName(createName((IType) type));
+                if (node == null) {
+                    // probably some sort of AST transformation is making this node invisible
+                    return;
+                }
+                if (resolver != null) {
+                    resolver.currentClass = node;
+                }
+                enclosingElement = type;
+                enclosingDeclarationNode = node;
+                VariableScope scope = new VariableScope(scopes.peek(), node, false);
+                scope.addVariable("this", node, node);
+                scopes.push(scope);
+            }
+
+            switch (member.getElementType()) {
+                case IJavaElement.METHOD:
+                    visitJDT((IMethod) member, requestor);
+                    break;
+                case IJavaElement.FIELD:
+                    visitJDT((IField) member, requestor);
+                    break;
+                default:
+                    visitJDT((IType) member, requestor);
+                    break;
+            }
+        } catch (VisitCompleted vc) {
+            // can ignore
+        } catch (Exception e) {
+            Util.log(e, "Error in inferencing engine for " + unit.getElementName());
+        } finally {
+            while (scopes.size() > depth) {
+                scopes.pop();
+            }
+            enclosingElement = unit;
+            enclosingDeclarationNode = module;
+        }
+        if (DEBUG) {
+            postVisitSanityCheck();
+        }
+    }
+
+    private void pushTopLevelScope() {
+        VariableScope topLevelScope = new VariableScope(null, enclosingDeclarationNode, false);
+        scopes.push(topLevelScope);
+
+        for (ITypeLookup lookup : lookups) {
+            if (lookup instanceof ITypeResolver) {
+                ((ITypeResolver) lookup).setResolverInformation((ModuleNode) enclosingDeclarationNode, resolver);
+            }
+            lookup.initialize(unit, topLevelScope);
+        }
+    }
+
     public void visitJDT(IType type, ITypeRequestor requestor) {
         IJavaElement oldEnclosing = enclosingElement;
         ASTNode oldEnclosingNode = enclosingDeclarationNode;
@@ -1963,6 +2123,7 @@ assert primaryExprType != null && dependentExprType != null;
     private boolean handleStatement(Statement node) {
         // don't check the lookups because statements have no type.
         // but individual requestors may choose to end the visit here
+        checkBudget();
         VariableScope scope = scopes.peek();
         ClassNode declaring = scope.getDelegateOrThis();
         scope.setPrimaryNode(false);
@@ -1992,6 +2153,7 @@ assert primaryExprType != null && dependentExprType != null;
     }
 
     private boolean handleSimpleExpression(Expression node) {
+        checkBudget();
         ClassNode primaryType;
         boolean isStatic;
         VariableScope scope = scopes.peek();
@@ -2036,14 +2198,24 @@ assert primaryExprType != null && dependentExprType != null;
     }
 
     private TypeLookupResult lookupExpressionType(Expression node, ClassNode objectExprType, boolean isStatic, VariableScope scope) {
+        TypeLookupResult result = lookupExpressionType0(node, objectExprType, isStatic, scope);
+        if (result.confidence == TypeConfidence.UNKNOWN && VariableScope.MAP_CLASS_NODE.equals(result.declaringType)) {
+            ClassNode inferredType = VariableScope.OBJECT_CLASS_NODE;
+            if (currentMapVariable != null && node instanceof ConstantExpression) {
+                inferredType = localMapProperties.get(currentMapVariable).get(((ConstantExpression) node).getConstantName());
+            }
+            result = new TypeLookupResult(inferredType, result.declaringType, result.declaration, TypeConfidence.INFERRED, result.scope);
+        }
+        return result;
+    }
+
+    private TypeLookupResult lookupExpressionType0(Expression node, ClassNode objectExprType, boolean isStatic, VariableScope scope) {
+        if (lookupCounter != null) {
+            return lookupExpressionTypeWithStatistics(node, objectExprType, isStatic, scope);
+        }
         TypeLookupResult result = null;
         for (ITypeLookup lookup : lookups) {
-            TypeLookupResult candidate;
-            if (lookup instanceof ITypeLookupExtension) {
-                candidate = ((ITypeLookupExtension) lookup).lookupType(node, scope, objectExprType, isStatic);
-            } else {
-                candidate = lookup.lookupType(node, scope, objectExprType);
-            }
+            TypeLookupResult candidate = lookupExpressionType(lookup, node, objectExprType, isStatic, scope);
             if (candidate != null) {
                 if (result == null || result.confidence.isLessPreciseThan(candidate.confidence)) {
                     result = candidate;
@@ -2053,13 +2225,43 @@ assert primaryExprType != null && dependentExprType != null;
                 }
             }
         }
-        if (result.confidence == TypeConfidence.UNKNOWN && VariableScope.MAP_CLASS_NODE.equals(result.declaringType)) {
-            ClassNode inferredType = VariableScope.OBJECT_CLASS_NODE;
-            if (currentMapVariable != null && node instanceof ConstantExpression) {
-                inferredType = localMapProperties.get(currentMapVariable).get(((ConstantExpression) node).getConstantName());
+        return result;
+    }
+
+    private TypeLookupResult lookupExpressionType(ITypeLookup lookup, Expression node, ClassNode objectExprType, boolean isStatic, VariableScope scope) {
+        if (lookupResults != null && TypeLookupResultStore.isStorable(lookup)) {
+            return lookupResults.lookupType(lookup, node, objectExprType, isStatic, scope);
+        }
+        if (lookup instanceof ITypeLookupExtension) {
+            return ((ITypeLookupExtension) lookup).lookupType(node, scope, objectExprType, isStatic);
+        }
+        return lookup.lookupType(node, scope, objectExprType);
+    }
+
+    /**
+     * Same as the loop in {@link #lookupExpressionType0(Expression, ClassNode, boolean, VariableScope)}, but keeps count of what
+     * each lookup does for {@link TypeLookupStatistics}.
+     */
+    private TypeLookupResult lookupExpressionTypeWithStatistics(Expression node, ClassNode objectExprType, boolean isStatic,
+            VariableScope scope) {
+        TypeLookupResult result = null;
+        ITypeLookup decision = null;
+        lookupCounter.begin(node);
+        for (ITypeLookup lookup : lookups) {
+            long start = System.nanoTime();
+            TypeLookupResult candidate = lookupExpressionType(lookup, node, objectExprType, isStatic, scope);
+            lookupCounter.record(lookup, candidate != null, System.nanoTime() - start);
+            if (candidate != null) {
+                if (result == null || result.confidence.isLessPreciseThan(candidate.confidence)) {
+                    result = candidate;
+                    decision = lookup;
+                }
+                if (TypeConfidence.LOOSELY_INFERRED.isLessPreciseThan(result.confidence)) {
+                    break;
+                }
             }
-            result = new TypeLookupResult(inferredType, result.declaringType, result.declaration, TypeConfidence.INFERRED, result.scope);
         }
+        lookupCounter.end(decision);
         return result;
     }
 
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.jdt.groovy.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Bounded pool of threads for inferring the types of several compilation units at the same time. Each unit gets its own
+ * {@link TypeInferencingVisitorWithRequestor}, and so its own variable scopes, type lookups and {@link
+ * org.codehaus.jdt.groovy.internal.compiler.ast.JDTResolver JDTResolver}; nothing else is shared between the visits. Requestors
+ * must not report to shared state while visiting: callers collect what is found for each unit and pass it on from their own
+ * thread, in the order the units were submitted.
+ * <p>
+ * The pool is off unless the <code>greclipse.inferenceThreads</code> system property asks for two or more workers (or is negative,
+ * meaning one worker per available processor).
+ */
+public class TypeInferencingWorkers {
+
+    /**
+     * Fewer units than this are not worth handing off.
+     */
+    public static final int THRESHOLD = 4;
+
+    private static int THREADS = 0;
+    private static ExecutorService pool;
+
+    static {
+        try {
+            THREADS = Integer.parseInt(System.getProperty("greclipse.inferenceThreads", "0"));
+            if (THREADS < 0) {
+                THREADS = Runtime.getRuntime().availableProcessors();
+            }
+        } catch (Throwable t) {
+        }
+    }
+
+    public static boolean isEnabled() {
+        return THREADS > 1;
+    }
+
+    /**
+     * Queues the tasks on the worker pool.
+     *
+     * @return the futures of the tasks, in the order given
+     */
+    public static <T> List<Future<T>> submitAll(List<Callable<T>> tasks) {
+        ExecutorService pool = getPool();
+        List<Future<T>> futures = new ArrayList<Future<T>>(tasks.size());
+        for (Callable<T> task : tasks) {
+            futures.add(pool.submit(task));
+        }
+        return futures;
+    }
+
+    private static synchronized ExecutorService getPool() {
+        if (pool == null) {
+            pool = Executors.newFixedThreadPool(THREADS, new ThreadFactory() {
+                private int count = 0;
+
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "Groovy Inferencing Worker " + (++count));
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return pool;
+    }
+}
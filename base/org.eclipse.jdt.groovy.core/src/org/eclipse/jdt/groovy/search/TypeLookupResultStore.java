@@ -0,0 +1,199 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.jdt.groovy.search;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.expr.ConstantExpression;
+import org.codehaus.groovy.ast.expr.Expression;
+import org.codehaus.groovy.ast.expr.VariableExpression;
+import org.codehaus.jdt.groovy.model.ModuleNodeMapper.ModuleNodeInfo;
+import org.eclipse.jdt.groovy.search.VariableScope.VariableInfo;
+
+/**
+ * Results of the expression lookups made while inferring types in one revision of a compilation unit. Semantic highlighting, mark
+ * occurrences, code select, hovers and content assist each run a {@link TypeInferencingVisitorWithRequestor} over the same module
+ * node after a reconcile; with the store, only the first visit asks the built-in lookups about an expression and the others reuse
+ * the answer.
+ * <p>
+ * What a lookup answers depends on the state of the scope as well as on the expression, and that state differs between visits: a
+ * visit of the enclosing member only, or one whose requestor cancels branches, sees other assignments and so other flow types.
+ * Only {@link SimpleTypeLookup} and {@link CategoryTypeLookup} are stored, because the parts of the scope that they read are known,
+ * and an answer is reused only when all of those parts are the same (see {@link Key}). Other lookups are always asked.
+ * <p>
+ * A store is held by the {@link ModuleNodeInfo} of a revision, so it goes away along with the module node. It may be used by
+ * several visitors at once.
+ */
+public class TypeLookupResultStore {
+
+    /**
+     * @return <code>true</code> if the results of the lookup can be stored
+     */
+    public static boolean isStorable(ITypeLookup lookup) {
+        // not subclasses, which may read more of the scope
+        return lookup.getClass() == SimpleTypeLookup.class || lookup.getClass() == CategoryTypeLookup.class;
+    }
+
+    /**
+     * The inputs of a lookup other than the expression itself. Types are compared by identity, since equal class nodes can have
+     * different generics.
+     */
+    private static class Key {
+        final Class<?> lookupClass;
+        final ClassNode objectExprType;
+        final boolean isStatic;
+        final boolean isStaticScope;
+        final boolean inScriptRunMethod;
+        /** 0 if there is no left-hand side in the wormhole, 1 if it is the expression, 2 if it is another node */
+        final int lhs;
+        final List<ClassNode> methodCallArgumentTypes;
+        final Object categories;
+        final ClassNode delegate;
+        final ClassNode thiz;
+        final ClassNode variableType;
+        final ClassNode variableDeclaringType;
+        final boolean isVariableKnown;
+        final Object enclosingMethod;
+        final Object enclosingType;
+
+        Key(ITypeLookup lookup, Expression node, ClassNode objectExprType, boolean isStatic, VariableScope scope) {
+            this.lookupClass = lookup.getClass();
+            this.objectExprType = objectExprType;
+            this.isStatic = isStatic;
+            this.isStaticScope = scope.isStatic();
+            this.inScriptRunMethod = scope.inScriptRunMethod();
+            Object lhsNode = scope.getWormhole().get("lhs");
+            this.lhs = lhsNode == null ? 0 : lhsNode == node ? 1 : 2;
+            List<ClassNode> argumentTypes = scope.getMethodCallArgumentTypes();
+            this.methodCallArgumentTypes = argumentTypes != null ? new ArrayList<ClassNode>(argumentTypes) : null;
+            // the default categories are a shared set; the set of a category block is made for each visit
+            Set<ClassNode> categoryNames = scope.getCategoryNames();
+            this.categories = categoryNames == VariableScope.ALL_DEFAULT_CATEGORIES ? categoryNames : new ArrayList<ClassNode>(categoryNames);
+            this.delegate = scope.getDelegate();
+            this.thiz = scope.getThis();
+            VariableInfo info = null;
+            if (node instanceof VariableExpression) {
+                info = scope.lookupName(((VariableExpression) node).getName());
+            } else if (node instanceof ConstantExpression && objectExprType == null && scope.isMethodCall()) {
+                // the name of a call with an implicit receiver may be a variable, like a local closure
+                info = scope.lookupName(((ConstantExpression) node).getText());
+            }
+            this.isVariableKnown = info != null;
+            this.variableType = info != null ? info.type : null;
+            this.variableDeclaringType = info != null ? info.declaringType : null;
+            this.enclosingMethod = scope.getEnclosingMethodDeclaration();
+            this.enclosingType = scope.getEnclosingTypeDeclaration();
+        }
+
+        boolean matches(Key that) {
+            return lookupClass == that.lookupClass && objectExprType == that.objectExprType && isStatic == that.isStatic &&
+                isStaticScope == that.isStaticScope && inScriptRunMethod == that.inScriptRunMethod && lhs == that.lhs &&
+                delegate == that.delegate && thiz == that.thiz && isVariableKnown == that.isVariableKnown &&
+                variableType == that.variableType && variableDeclaringType == that.variableDeclaringType &&
+                enclosingMethod == that.enclosingMethod && enclosingType == that.enclosingType &&
+                sameTypes(methodCallArgumentTypes, that.methodCallArgumentTypes) &&
+                (categories == that.categories || (categories instanceof List && categories.equals(that.categories)));
+        }
+
+        private static boolean sameTypes(List<ClassNode> these, List<ClassNode> those) {
+            if (these == null || those == null) {
+                return these == those;
+            }
+            if (these.size() != those.size()) {
+                return false;
+            }
+            for (int i = 0, n = these.size(); i < n; i += 1) {
+                if (these.get(i) != those.get(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static class Entry {
+        final Key key;
+        /** Detached from the scope of the visit that made it; null if the lookup had no answer */
+        final TypeLookupResult result;
+        /** Whether the lookup took the left-hand side out of the wormhole */
+        final boolean removedLhs;
+        final Entry next;
+
+        Entry(Key key, TypeLookupResult result, boolean removedLhs, Entry next) {
+            this.key = key;
+            this.result = result;
+            this.removedLhs = removedLhs;
+            this.next = next;
+        }
+    }
+
+    /** Visits that see the expression in many different states are not worth storing beyond this many answers */
+    private static final int MAX_ENTRIES_PER_NODE = 4;
+
+    private final Map<Expression, Entry> entries = new IdentityHashMap<Expression, Entry>();
+
+    /**
+     * Asks the lookup about the expression, unless it has already answered for the same state of the scope.
+     *
+     * @param lookup a lookup for which {@link #isStorable(ITypeLookup)} is true
+     * @return the answer of the lookup, bound to <code>scope</code>
+     */
+    public TypeLookupResult lookupType(ITypeLookup lookup, Expression node, ClassNode objectExprType, boolean isStatic, VariableScope scope) {
+        Key key = new Key(lookup, node, objectExprType, isStatic, scope);
+        Entry first;
+        synchronized (entries) {
+            first = entries.get(node);
+        }
+        int count = 0;
+        for (Entry entry = first; entry != null; entry = entry.next, count += 1) {
+            if (entry.key.matches(key)) {
+                if (entry.removedLhs) {
+                    scope.getWormhole().remove("lhs");
+                }
+                return entry.result != null ? copy(entry.result, scope) : null;
+            }
+        }
+
+        TypeLookupResult result;
+        if (lookup instanceof ITypeLookupExtension) {
+            result = ((ITypeLookupExtension) lookup).lookupType(node, scope, objectExprType, isStatic);
+        } else {
+            result = lookup.lookupType(node, scope, objectExprType);
+        }
+        boolean removedLhs = key.lhs != 0 && !scope.getWormhole().containsKey("lhs");
+        // the scope of the visit that made the lookup is not kept; it changes as that visit goes on
+        TypeLookupResult detached = result != null ? copy(result, null) : null;
+        if (count < MAX_ENTRIES_PER_NODE) {
+            synchronized (entries) {
+                entries.put(node, new Entry(key, detached, removedLhs, entries.get(node)));
+            }
+        }
+        return result;
+    }
+
+    private static TypeLookupResult copy(TypeLookupResult result, VariableScope scope) {
+        TypeLookupResult copy = new TypeLookupResult(result.type, result.declaringType, result.declaration, result.confidence, scope, result.extraDoc);
+        copy.isGroovy = result.isGroovy;
+        copy.enclosingAnnotation = result.enclosingAnnotation;
+        copy.enclosingAssignment = result.enclosingAssignment;
+        return copy;
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.jdt.groovy.search;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.codehaus.groovy.ast.Parameter;
+import org.codehaus.groovy.ast.expr.Expression;
+import org.codehaus.groovy.ast.expr.VariableExpression;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.jdt.groovy.core.Activator;
+import org.eclipse.jdt.internal.core.util.Util;
+
+/**
+ * Counts, for each type lookup and kind of expression, how often the lookup is asked for the type of an expression, how often it
+ * answers, how often its answer is the one that is used and how long it takes. Enabled by the <code>greclipse.lookupStatistics</code>
+ * system property; the counts are written to the log when the plug-in stops.
+ * <p>
+ * The counts only describe the lookups. The lookups are still asked in registry order, since a lookup that has not answered for a
+ * kind of expression so far may still answer for the next one, and some lookups change the scope when asked.
+ */
+public class TypeLookupStatistics {
+
+    private static boolean ENABLED = Boolean.getBoolean("greclipse.lookupStatistics");
+
+    private static class Counters {
+        final AtomicLong calls = new AtomicLong();
+        final AtomicLong answers = new AtomicLong();
+        final AtomicLong decisions = new AtomicLong();
+        final AtomicLong nanos = new AtomicLong();
+    }
+
+    private static class Kind {
+        final AtomicLong lookups = new AtomicLong();
+        /** lookup class name to its counters */
+        final ConcurrentMap<String, Counters> counters = new ConcurrentHashMap<String, Counters>();
+
+        Counters getCounters(ITypeLookup lookup) {
+            String name = lookup.getClass().getName();
+            Counters c = counters.get(name);
+            if (c == null) {
+                Counters newCounters = new Counters();
+                c = counters.putIfAbsent(name, newCounters);
+                if (c == null) {
+                    c = newCounters;
+                }
+            }
+            return c;
+        }
+    }
+
+    private static final ConcurrentMap<String, Kind> kinds = new ConcurrentHashMap<String, Kind>();
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * @return the kind of expression as far as the statistics are concerned, which is its class except that references to local
+     *         variables and parameters are told apart from other variable expressions
+     */
+    static String getKind(Expression node) {
+        if (node instanceof VariableExpression) {
+            Object accessed = ((VariableExpression) node).getAccessedVariable();
+            if (accessed instanceof Parameter || accessed instanceof VariableExpression) {
+                return "VariableExpression (local)";
+            }
+        }
+        return node.getClass().getSimpleName();
+    }
+
+    private static Kind getKind(String name) {
+        Kind kind = kinds.get(name);
+        if (kind == null) {
+            Kind newKind = new Kind();
+            kind = kinds.putIfAbsent(name, newKind);
+            if (kind == null) {
+                kind = newKind;
+            }
+        }
+        return kind;
+    }
+
+    /**
+     * Counts the lookups of one inferencing visitor. Not thread safe; each visitor has its own.
+     */
+    static class LookupCounter {
+        private Kind kind;
+
+        /**
+         * Starts the lookup of the given expression.
+         */
+        void begin(Expression node) {
+            kind = getKind(getKind(node));
+            kind.lookups.incrementAndGet();
+        }
+
+        void record(ITypeLookup lookup, boolean answered, long nanos) {
+            Counters c = kind.getCounters(lookup);
+            c.calls.incrementAndGet();
+            c.nanos.addAndGet(nanos);
+            if (answered) {
+                c.answers.incrementAndGet();
+            }
+        }
+
+        void end(ITypeLookup decision) {
+            if (decision != null) {
+                kind.getCounters(decision).decisions.incrementAndGet();
+            }
+            kind = null;
+        }
+    }
+
+    /**
+     * @return a table of the counts for each kind of expression and lookup
+     */
+    public static String report() {
+        StringBuilder sb = new StringBuilder("Type lookup statistics (kind, lookup: calls, answers, decisions, total ms)\n");
+        for (Map.Entry<String, Kind> kind : new TreeMap<String, Kind>(kinds).entrySet()) {
+            sb.append(kind.getKey()).append(": ").append(kind.getValue().lookups.get()).append('\n');
+            for (Map.Entry<String, Counters> entry : new TreeMap<String, Counters>(kind.getValue().counters).entrySet()) {
+                Counters c = entry.getValue();
+                sb.append("    ").append(entry.getKey()).append(": ").append(c.calls.get()).append(", ").append(c.answers.get())
+                        .append(", ").append(c.decisions.get()).append(", ").append(c.nanos.get() / 1000000).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes the table of counts to the log of the plug-in, if there are any counts.
+     */
+    public static void logReport() {
+        if (!kinds.isEmpty()) {
+            Util.log(new Status(IStatus.INFO, Activator.PLUGIN_ID, report()));
+        }
+    }
+}
@@ -25,10 +25,12 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -276,6 +278,20 @@ public class VariableScope {
          * true iff current scope is implicit run method of script
          */
         boolean isRunMethod;
+        /**
+         * linearized type hierarchies and interface closures; keyed by identity, since equal parameterizations of a type may
+         * still have different unresolved super types
+         */
+        final Map<ClassNode, ClassNode[]> typeHierarchies = new IdentityHashMap<ClassNode, ClassNode[]>();
+        final Map<ClassNode, ClassNode[]> resolvedTypeHierarchies = new IdentityHashMap<ClassNode, ClassNode[]>();
+        final Map<ClassNode, ClassNode[]> allInterfaces = new IdentityHashMap<ClassNode, ClassNode[]>();
+        final Map<ClassNode, ClassNode[]> resolvedAllInterfaces = new IdentityHashMap<ClassNode, ClassNode[]>();
+        /**
+         * generics mappers and the parameterized types of declarations, keyed by the parameterization of the receiving type (see
+         * {@link GenericsMapper#getParameterizationKey(ClassNode)})
+         */
+        final Map<String, GenericsMapper> genericsMappers = new HashMap<String, GenericsMapper>();
+        final Map<ASTNode, Map<String, ClassNode>> parameterizedTypes = new IdentityHashMap<ASTNode, Map<String, ClassNode>>();
     }
 
     /**
@@ -305,9 +321,20 @@ public class VariableScope {
      */
     private ClassNode categoryBeingDeclared;
 
+    /**
+     * Categories in this scope if it is the first scope inside a category block; see {@link #getCategoryNames()}
+     */
+    private CategoryChain categoryChain;
+
     private List<ClassNode> methodCallArgumentTypes;
 
-    private final Map<String, VariableInfo> nameVariableMap = new HashMap<String, VariableInfo>();
+    /**
+     * Names of the variables declared in this scope, in declaration order. Most scopes declare a handful of variables or none, so
+     * the table is a pair of small arrays that are not allocated until the first variable is added.
+     */
+    private String[] variableNames;
+    private VariableInfo[] variableInfos;
+    private int variableCount;
 
     //--------------------------------------------------------------------------
 
@@ -367,7 +394,8 @@ public class VariableScope {
     }
 
     /**
-     * The name of all categories in scope.
+     * The name of all categories in scope. Outside of category blocks this is {@link #ALL_DEFAULT_CATEGORIES}; inside, the
+     * categories of the enclosing scope followed by the declared one. The set is shared with other scopes and cannot be modified.
      */
     public Set<ClassNode> getCategoryNames() {
         if (parent != null) {
@@ -377,11 +405,67 @@ public class VariableScope {
             // is a category scope, the category type is only available from parent
             // scope
             if (parent.isCategoryBeingDeclared()) {
-                categories.add(parent.categoryBeingDeclared);
+                if (categoryChain == null || categoryChain.outer != categories || categoryChain.category != parent.categoryBeingDeclared) {
+                    categoryChain = new CategoryChain(categories, parent.categoryBeingDeclared);
+                }
+                return categoryChain;
             }
             return categories;
         } else {
-            return new LinkedHashSet<ClassNode>(ALL_DEFAULT_CATEGORIES);
+            return ALL_DEFAULT_CATEGORIES;
+        }
+    }
+
+    /**
+     * Categories of a category block: those of the enclosing scope plus the declared one, which comes last unless it is already in
+     * the enclosing scope.
+     */
+    private static class CategoryChain extends AbstractSet<ClassNode> {
+        final Set<ClassNode> outer;
+        final ClassNode category;
+        private final boolean isNew;
+
+        CategoryChain(Set<ClassNode> outer, ClassNode category) {
+            this.outer = outer;
+            this.category = category;
+            this.isNew = !outer.contains(category);
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return (isNew && category.equals(o)) || outer.contains(o);
+        }
+
+        @Override
+        public int size() {
+            return outer.size() + (isNew ? 1 : 0);
+        }
+
+        @Override
+        public Iterator<ClassNode> iterator() {
+            final Iterator<ClassNode> outerIter = outer.iterator();
+            return new Iterator<ClassNode>() {
+                private boolean categoryReturned = !isNew;
+
+                public boolean hasNext() {
+                    return outerIter.hasNext() || !categoryReturned;
+                }
+
+                public ClassNode next() {
+                    if (outerIter.hasNext()) {
+                        return outerIter.next();
+                    }
+                    if (categoryReturned) {
+                        throw new NoSuchElementException();
+                    }
+                    categoryReturned = true;
+                    return category;
+                }
+
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
         }
     }
 
@@ -408,22 +492,59 @@ public class VariableScope {
             }
         }
 
-        VariableInfo var = lookupNameInCurrentScope(name);
-        if (var == null && parent != null) {
-            var = parent.lookupName(name);
+        for (VariableScope scope = this; scope != null; scope = scope.parent) {
+            int index = scope.indexOf(name);
+            if (index >= 0) {
+                return new VariableInfo(scope.variableInfos[index], scope.scopeNode);
+            }
         }
-        return var;
+        return null;
     }
 
     /**
      * Finds the name in the current scope. Does not recur up to parent scopes.
      */
     public VariableInfo lookupNameInCurrentScope(String name) {
-        VariableInfo info = nameVariableMap.get(name);
-        if (info != null) {
-            info = new VariableInfo(info, scopeNode);
+        int index = indexOf(name);
+        return index >= 0 ? new VariableInfo(variableInfos[index], scopeNode) : null;
+    }
+
+    /**
+     * @return the index of the name in this scope's variable table or -1 if it is not declared in this scope
+     */
+    private int indexOf(String name) {
+        // names usually come from the same AST nodes (or are literals), so try identity first
+        for (int i = 0; i < variableCount; i += 1) {
+            if (variableNames[i] == name) {
+                return i;
+            }
         }
-        return info;
+        for (int i = 0; i < variableCount; i += 1) {
+            if (variableNames[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void putVariable(String name, VariableInfo info) {
+        int index = indexOf(name);
+        if (index < 0) {
+            if (variableNames == null) {
+                variableNames = new String[4];
+                variableInfos = new VariableInfo[4];
+            } else if (variableCount == variableNames.length) {
+                String[] names = new String[variableCount * 2];
+                VariableInfo[] infos = new VariableInfo[variableCount * 2];
+                System.arraycopy(variableNames, 0, names, 0, variableCount);
+                System.arraycopy(variableInfos, 0, infos, 0, variableCount);
+                variableNames = names;
+                variableInfos = infos;
+            }
+            index = variableCount++;
+            variableNames[index] = name;
+        }
+        variableInfos[index] = info;
     }
 
     public ClassNode getThis() {
@@ -461,7 +582,7 @@ public class VariableScope {
     }
 
     public void addVariable(String name, ClassNode type, ClassNode declaringType) {
-        nameVariableMap.put(name, new VariableInfo(type, declaringType != null ? declaringType : OBJECT_CLASS_NODE));
+        putVariable(name, new VariableInfo(type, declaringType != null ? declaringType : OBJECT_CLASS_NODE));
     }
 
     public void addVariable(Variable var) {
@@ -565,15 +686,15 @@ public class VariableScope {
      * Return true if the type has been udpated, false otherwise
      */
     private boolean internalUpdateVariable(String name, ClassNode type, ClassNode declaringType) {
-        VariableInfo info = lookupNameInCurrentScope(name);
-        if (info != null) {
-            nameVariableMap.put(name, new VariableInfo(type, declaringType == null ? info.declaringType : declaringType));
-            return true;
-        } else if (parent != null) {
-            return parent.internalUpdateVariable(name, type, declaringType);
-        } else {
-            return false;
+        for (VariableScope scope = this; scope != null; scope = scope.parent) {
+            int index = scope.indexOf(name);
+            if (index >= 0) {
+                VariableInfo info = scope.variableInfos[index];
+                scope.variableInfos[index] = new VariableInfo(type, declaringType == null ? info.declaringType : declaringType);
+                return true;
+            }
         }
+        return false;
     }
 
     public static ClassNode resolveTypeParameterization(GenericsMapper mapper, ClassNode typeToParameterize) {
@@ -808,10 +929,10 @@ public class VariableScope {
     /**
      * Does the following name exist in this scope (does not recur up to parent scopes).
      *
-     * @return {@code true} iff in the {@link #nameVariableMap}
+     * @return {@code true} iff declared in this scope
      */
     public boolean containsInThisScope(String name) {
-        return nameVariableMap.containsKey(name);
+        return indexOf(name) >= 0;
     }
 
     /**
@@ -833,24 +954,35 @@ public class VariableScope {
     public Iterator<Map.Entry<String, VariableInfo>> variablesIterator() {
         return new Iterator<Map.Entry<String, VariableInfo>>() {
             VariableScope currentScope = VariableScope.this;
-            Iterator<Map.Entry<String, VariableInfo>> currentIter = currentScope.nameVariableMap.entrySet().iterator();
+            int currentIndex = 0;
 
             public boolean hasNext() {
-                if (currentIter == null) {
-                    return false;
-                }
-                if (!currentIter.hasNext()) {
+                while (currentScope != null && currentIndex >= currentScope.variableCount) {
                     currentScope = currentScope.parent;
-                    currentIter = currentScope == null ? null : currentScope.nameVariableMap.entrySet().iterator();
+                    currentIndex = 0;
                 }
-                return currentIter != null && currentIter.hasNext();
+                return currentScope != null;
             }
 
             public Entry<String, VariableInfo> next() {
-                if (!currentIter.hasNext()) {
+                if (!hasNext()) {
                     throw new NoSuchElementException();
                 }
-                return currentIter.next();
+                final int index = currentIndex++;
+                final VariableScope scope = currentScope;
+                return new Entry<String, VariableInfo>() {
+                    public String getKey() {
+                        return scope.variableNames[index];
+                    }
+
+                    public VariableInfo getValue() {
+                        return scope.variableInfos[index];
+                    }
+
+                    public VariableInfo setValue(VariableInfo value) {
+                        throw new UnsupportedOperationException();
+                    }
+                };
             }
 
             public void remove() {
@@ -859,6 +991,77 @@ public class VariableScope {
         };
     }
 
+    /**
+     * Returns the types that {@link #createTypeHierarchy(ClassNode, LinkedHashSet, boolean)} finds for <code>type</code>. The
+     * hierarchy of each type is computed once and then shared by all scopes of this inference session, so the array must not be
+     * modified.
+     */
+    public ClassNode[] getTypeHierarchy(ClassNode type, boolean useResolved) {
+        if (!useResolved) {
+            type = type.redirect();
+        }
+        Map<ClassNode, ClassNode[]> cache = useResolved ? shared.resolvedTypeHierarchies : shared.typeHierarchies;
+        ClassNode[] hierarchy = cache.get(type);
+        if (hierarchy == null) {
+            LinkedHashSet<ClassNode> allClasses = new LinkedHashSet<ClassNode>();
+            createTypeHierarchy(type, allClasses, useResolved);
+            hierarchy = allClasses.toArray(new ClassNode[allClasses.size()]);
+            cache.put(type, hierarchy);
+        }
+        return hierarchy;
+    }
+
+    /**
+     * Returns the interfaces that {@link #findAllInterfaces(ClassNode, LinkedHashSet, boolean)} finds for <code>type</code>.
+     * Like {@link #getTypeHierarchy(ClassNode, boolean)}, the result is shared and must not be modified.
+     */
+    public ClassNode[] getAllInterfaces(ClassNode type, boolean useResolved) {
+        if (!useResolved) {
+            type = type.redirect();
+        }
+        Map<ClassNode, ClassNode[]> cache = useResolved ? shared.resolvedAllInterfaces : shared.allInterfaces;
+        ClassNode[] interfaces = cache.get(type);
+        if (interfaces == null) {
+            LinkedHashSet<ClassNode> faces = new LinkedHashSet<ClassNode>();
+            findAllInterfaces(type, faces, useResolved);
+            interfaces = faces.toArray(new ClassNode[faces.size()]);
+            cache.put(type, interfaces);
+        }
+        return interfaces;
+    }
+
+    /**
+     * Returns the mapper that {@link GenericsMapper#gatherGenerics(ClassNode, ClassNode)} creates for the given types. The mapper is
+     * shared by all scopes of this inference session and by all parameterizations of <code>resolvedType</code> with the same actual
+     * type arguments.
+     */
+    public GenericsMapper getGenericsMapper(ClassNode resolvedType, ClassNode declaringType) {
+        String key = GenericsMapper.getParameterizationKey(resolvedType);
+        if (key == null) {
+            return GenericsMapper.gatherGenerics(resolvedType, declaringType);
+        }
+        key = key + ' ' + declaringType.getName();
+        GenericsMapper mapper = shared.genericsMappers.get(key);
+        if (mapper == null) {
+            mapper = GenericsMapper.gatherGenerics(resolvedType, declaringType);
+            shared.genericsMappers.put(key, mapper);
+        }
+        return mapper;
+    }
+
+    /**
+     * @return the types of the declaration that have been computed in this inference session, keyed by the parameterization of the
+     *         receiving type
+     */
+    Map<String, ClassNode> getParameterizedTypes(ASTNode declaration) {
+        Map<String, ClassNode> types = shared.parameterizedTypes.get(declaration);
+        if (types == null) {
+            types = new HashMap<String, ClassNode>(4);
+            shared.parameterizedTypes.put(declaration, types);
+        }
+        return types;
+    }
+
     /**
      * Finds all interfaces transitively implemented by the type passed in (including <code>type</code> if it is an interface). The
      * ordering is that the interfaces closest to type are first (in declared order) and then interfaces declared on super
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.compiler;
+
+import java.io.PrintWriter;
+
+import org.eclipse.jdt.core.compiler.CompilationProgress;
+import org.eclipse.jdt.internal.compiler.ClassFile;
+import org.eclipse.jdt.internal.compiler.CompilationResult;
+import org.eclipse.jdt.internal.compiler.batch.Main;
+
+/**
+ * Batch compiler that reports problems to a {@link ProblemListener} and, if a {@link UnitListener} is given, the class files
+ * and references of each unit it compiled.
+ */
+class BatchCompiler extends Main {
+
+    private final UnitListener unitListener;
+
+    BatchCompiler(PrintWriter out, PrintWriter err, CompilationProgress progress, ProblemListener problemListener,
+            UnitListener unitListener) {
+        super(out, err, false/* systemExit */, null/* options */, progress);
+        ProblemLogger.install(this, out, err, problemListener);
+        this.unitListener = unitListener;
+        if (unitListener != null) {
+            // same as -referenceInfo; makes the compiler keep the names each unit refers to
+            this.produceRefInfo = true;
+        }
+    }
+
+    @Override
+    public void outputClassFiles(CompilationResult unitResult) {
+        super.outputClassFiles(unitResult);
+        if (unitListener != null && unitResult != null && !unitResult.hasErrors()) {
+            ClassFile[] classFiles = unitResult.getClassFiles();
+            String[] classFileNames = new String[classFiles.length];
+            for (int i = 0; i < classFiles.length; i += 1) {
+                classFileNames[i] = new String(classFiles[i].fileName()) + ".class";
+            }
+            char[][] simpleNames = unitResult.simpleNameReferences;
+            String[] references = new String[simpleNames != null ? simpleNames.length : 0];
+            for (int i = 0; i < references.length; i += 1) {
+                references[i] = new String(simpleNames[i]);
+            }
+            unitListener.acceptUnit(new String(unitResult.getFileName()), classFileNames, references);
+        }
+    }
+}
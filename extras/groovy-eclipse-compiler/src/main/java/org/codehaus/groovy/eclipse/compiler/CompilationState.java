@@ -0,0 +1,253 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.compiler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * State of the incremental mode, kept next to the output folder between builds. For each source that compiled without errors it
+ * records the timestamp the source had when its compile started, the class files it produced and the simple names it refers to.
+ * A later build recompiles the sources that were added or changed, or whose class files are gone, plus the sources that refer to
+ * a type defined by any of them or by a removed source, and so on for the sources that refer to those. The state only applies while the compiler options (including the
+ * classpath) stay the same; otherwise everything is compiled.
+ * <p>
+ * Like {@link GroovyEclipseCompiler}, this class must not reference any JDT classes.
+ */
+class CompilationState implements UnitListener {
+
+    private static final int MAGIC = 0x47454353, VERSION = 1;
+
+    private static final int MAX_OPTIONS_LENGTH = 64 * 1024 * 1024;
+
+    private static class Entry {
+        final long lastModified;
+        final String[] classFiles;
+        final String[] references;
+
+        Entry(long lastModified, String[] classFiles, String[] references) {
+            this.lastModified = lastModified;
+            this.classFiles = classFiles;
+            this.references = references;
+        }
+    }
+
+    final String optionsKey;
+
+    /** Source path to what its last successful compile produced. */
+    private final Map<String, Entry> entries = new TreeMap<String, Entry>();
+
+    /** Source path to its timestamp when it was found to be stale, i.e. before it was compiled. */
+    private final Map<String, Long> staleTimestamps = new HashMap<String, Long>();
+
+    CompilationState(String optionsKey) {
+        this.optionsKey = optionsKey;
+    }
+
+    /**
+     * Determines the sources to compile and deletes the class files of changed and removed sources, since a source may no longer
+     * produce all of them (closures and inner classes).
+     *
+     * @param sources
+     *            all sources of the module
+     * @return the sources to compile, in the order given
+     */
+    Set<File> computeStaleSources(Collection<File> sources, File outputDirectory) {
+        Set<String> current = new HashSet<String>();
+        Set<String> changed = new LinkedHashSet<String>();
+        Set<String> definedNames = new HashSet<String>();
+        for (File source : sources) {
+            String path = source.getPath();
+            current.add(path);
+            Entry entry = entries.get(path);
+            if (entry == null || entry.lastModified != source.lastModified() || !exists(entry.classFiles, outputDirectory)) {
+                changed.add(path);
+                definedNames.add(getTypeName(source.getName()));
+            }
+        }
+        for (Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<String, Entry> entry = it.next();
+            if (changed.contains(entry.getKey()) || !current.contains(entry.getKey())) {
+                for (String classFile : entry.getValue().classFiles) {
+                    definedNames.add(getTypeName(classFile.substring(classFile.lastIndexOf('/') + 1)));
+                    new File(outputDirectory, classFile).delete();
+                }
+                it.remove();
+            }
+        }
+
+        // dependents of the changed types, and their dependents in turn: without the structural changes that the later rounds of
+        // the JDT builder look at, any type compiled again may have changed in a way that matters to the types that refer to it
+        // (e.g. a subtype whose inherited members are gone)
+        Set<String> stalePaths = new HashSet<String>();
+        for (boolean grown = true; grown;) {
+            grown = false;
+            for (File source : sources) {
+                String path = source.getPath();
+                if (stalePaths.contains(path)) {
+                    continue;
+                }
+                Entry entry = entries.get(path);
+                if (entry == null || refersTo(entry.references, definedNames)) {
+                    stalePaths.add(path);
+                    grown = true;
+                    if (entry != null) {
+                        for (String classFile : entry.classFiles) {
+                            definedNames.add(getTypeName(classFile.substring(classFile.lastIndexOf('/') + 1)));
+                        }
+                        entries.remove(path);
+                    }
+                    // a source that is edited while it compiles must not look up to date afterwards
+                    staleTimestamps.put(path, source.lastModified());
+                }
+            }
+        }
+        Set<File> stale = new LinkedHashSet<File>();
+        for (File source : sources) {
+            if (stalePaths.contains(source.getPath())) {
+                stale.add(source);
+            }
+        }
+        return stale;
+    }
+
+    public void acceptUnit(String fileName, String[] classFiles, String[] references) {
+        Long lastModified = staleTimestamps.get(fileName);
+        // a unit that was not asked for is compiled again next time
+        entries.put(fileName, new Entry(lastModified != null ? lastModified.longValue() : 0L, classFiles, references));
+    }
+
+    private static boolean exists(String[] classFiles, File outputDirectory) {
+        for (String classFile : classFiles) {
+            if (!new File(outputDirectory, classFile).isFile()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean refersTo(String[] references, Set<String> names) {
+        for (String reference : references) {
+            if (names.contains(reference)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the name of the top-level type for a source or class file name, e.g. "Foo" for "Foo.groovy" or "Foo$1.class"
+     */
+    private static String getTypeName(String fileName) {
+        int end = fileName.indexOf('$');
+        if (end < 0) {
+            end = fileName.lastIndexOf('.');
+        }
+        return end < 0 ? fileName : fileName.substring(0, end);
+    }
+
+    /**
+     * @return the state or null if the file is missing, damaged or written by a different version
+     */
+    static CompilationState read(File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            // the options include the classpath, which may exceed the limit of readUTF
+            CompilationState state = new CompilationState(CompilerDaemonClient.readString(in, MAX_OPTIONS_LENGTH));
+            for (int i = 0, n = in.readInt(); i < n; i += 1) {
+                String path = in.readUTF();
+                long lastModified = in.readLong();
+                state.entries.put(path, new Entry(lastModified, readStrings(in), readStrings(in)));
+            }
+            return state;
+        } catch (IOException e) {
+            return null;
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                }
+            }
+        }
+    }
+
+    private static String[] readStrings(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0 || count > MAX_OPTIONS_LENGTH / 4) {
+            throw new IOException("Invalid string count: " + count);
+        }
+        String[] strings = new String[count];
+        for (int i = 0; i < strings.length; i += 1) {
+            strings[i] = in.readUTF();
+        }
+        return strings;
+    }
+
+    /**
+     * Saves the state to the given file. The state is written to a temporary file first, so a reader never sees half of it.
+     */
+    void write(File file) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            CompilerDaemonClient.writeString(out, optionsKey);
+            out.writeInt(entries.size());
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue().lastModified);
+                writeStrings(out, entry.getValue().classFiles);
+                writeStrings(out, entry.getValue().references);
+            }
+        } finally {
+            out.close();
+        }
+        if (!temp.renameTo(file) && !(file.delete() && temp.renameTo(file))) {
+            temp.delete();
+            throw new IOException("Unable to replace " + file);
+        }
+    }
+
+    private static void writeStrings(DataOutputStream out, String[] strings) throws IOException {
+        out.writeInt(strings.length);
+        for (String string : strings) {
+            out.writeUTF(string);
+        }
+    }
+}
@@ -0,0 +1,277 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.compiler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.security.SecureRandom;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.internal.compiler.batch.Main;
+
+/**
+ * Compiler process that stays alive between the modules of a build and between builds, so that each compile starts with a warm
+ * JIT, with the compiler's classes already loaded and with the caches of the Groovy compiler still filled (transform loaders for
+ * unchanged jars are kept, see <code>greclipse.batchLoaderReuse</code>). Requests are accepted on the loopback interface only and
+ * are run one at a time, each through a fresh batch compiler. The daemon exits once it has been idle for the given time.
+ * <p>
+ * The port file holds a random key that every request must begin with. It and the daemon's log are only accessible to the
+ * user that started the daemon (see {@link DaemonFiles}). Nothing else is read from a connection until its key has been checked,
+ * and connections that do not send a complete request in time are dropped, so a stray client cannot block or exhaust the daemon.
+ * <p>
+ * Usage: <code>java -cp &lt;groovy-eclipse-batch&gt;:&lt;groovy-eclipse-compiler&gt; CompilerDaemon &lt;port file&gt;
+ * &lt;idle minutes&gt;</code>
+ * <p>
+ * Protocol, per connection: the client sends the key from the port file, the compiler arguments and whether it wants to know
+ * about compiled units; the daemon answers with a record for each problem as soon as it is found and a record for each unit that
+ * compiled, if asked for, followed by a record with the success flag, the global error and warning counts and the remaining
+ * compiler output (see {@link CompilerDaemonClient}). Heartbeat records are sent while the request waits for its turn and while
+ * it compiles, so that the client can tell a busy daemon from one that stopped responding.
+ */
+public class CompilerDaemon {
+
+    /** Time a client has to send its request once connected */
+    private static final int REQUEST_TIMEOUT = 10 * 1000;
+
+    /** Time between two heartbeat records; clients give up after missing several of them */
+    static final int HEARTBEAT_INTERVAL = 5 * 1000;
+
+    /** Number of connections that may be open at once; clients beyond that are turned away */
+    private static final int MAX_CONNECTIONS = 16;
+
+    /** Upper bound of the length of each compiler argument */
+    private static final int MAX_ARGUMENT_LENGTH = 16 * 1024 * 1024;
+
+    /** Upper bound of the number of compiler arguments */
+    private static final int MAX_ARGUMENTS = 1024 * 1024;
+
+    public static void main(String[] args) throws IOException {
+        File portFile = new File(args[0]);
+        int idleMinutes = Integer.parseInt(args[1]);
+
+        // nobody reads the standard streams of the daemon once the launching build is over
+        File logFile = new File(portFile.getPath() + ".log");
+        DaemonFiles.createPrivateFile(logFile);
+        final PrintStream log = new PrintStream(new FileOutputStream(logFile), true);
+        System.setOut(log);
+        System.setErr(log);
+        System.setProperty("greclipse.batchLoaderReuse", "true");
+
+        ServerSocket server = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+        server.setSoTimeout(idleMinutes * 60 * 1000);
+        byte[] keyBytes = new byte[32];
+        new SecureRandom().nextBytes(keyBytes);
+        final String key = toHex(keyBytes);
+        writePortFile(portFile, server.getLocalPort(), key);
+
+        final Semaphore connections = new Semaphore(MAX_CONNECTIONS);
+        final Object compileLock = new Object();
+        try {
+            while (true) {
+                final Socket socket;
+                try {
+                    socket = server.accept();
+                } catch (SocketTimeoutException e) {
+                    if (connections.availablePermits() < MAX_CONNECTIONS) {
+                        continue; // still compiling, so not idle
+                    }
+                    break;
+                }
+                if (!connections.tryAcquire()) {
+                    socket.close();
+                    continue;
+                }
+                Thread thread = new Thread("Groovy-Eclipse compiler daemon connection") {
+                    @Override
+                    public void run() {
+                        try {
+                            serve(socket, key, compileLock);
+                        } catch (IOException e) {
+                            e.printStackTrace(log);
+                        } finally {
+                            try {
+                                socket.close();
+                            } catch (IOException e) {
+                            }
+                            connections.release();
+                        }
+                    }
+                };
+                thread.setDaemon(true);
+                thread.start();
+            }
+        } finally {
+            // another daemon may have taken over the port file in the meantime
+            String[] portAndKey = CompilerDaemonClient.readPortFile(portFile);
+            if (portAndKey != null && key.equals(portAndKey[1])) {
+                portFile.delete();
+            }
+            server.close();
+        }
+        // let a compile that is under way finish before leaving
+        try {
+            connections.tryAcquire(MAX_CONNECTIONS, 5, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+        }
+        // worker threads of the compiler would otherwise keep the daemon alive
+        System.exit(0);
+    }
+
+    private static void serve(Socket socket, String key, Object compileLock) throws IOException {
+        socket.setSoTimeout(REQUEST_TIMEOUT);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        if (!CompilerDaemonClient.isKey(key, CompilerDaemonClient.readString(in, key.length()))) {
+            return;
+        }
+        int count = in.readInt();
+        if (count < 0 || count > MAX_ARGUMENTS) {
+            return;
+        }
+        String[] args = new String[count];
+        for (int i = 0; i < args.length; i += 1) {
+            args[i] = CompilerDaemonClient.readString(in, MAX_ARGUMENT_LENGTH);
+        }
+        boolean reportUnits = in.readBoolean();
+
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        final IOException[] failure = new IOException[1];
+        Thread heartbeat = startHeartbeat(out, failure);
+        StringWriter output = new StringWriter();
+        boolean success = false;
+        int errors = 0, warnings = 0;
+        try {
+            synchronized (compileLock) {
+                if (failure[0] != null) {
+                    throw failure[0]; // client gave up while waiting
+                }
+                ProblemListener problemListener = new ProblemListener() {
+                    public void acceptProblem(String fileName, boolean isError, int line, int startColumn, int endColumn, String message) {
+                        synchronized (out) {
+                            if (failure[0] == null) {
+                                try {
+                                    CompilerDaemonClient.writeProblem(out, fileName, isError, line, startColumn, endColumn, message);
+                                } catch (IOException e) {
+                                    failure[0] = e; // client went away; finish the compile regardless
+                                }
+                            }
+                        }
+                    }
+                };
+                UnitListener unitListener = !reportUnits ? null : new UnitListener() {
+                    public void acceptUnit(String fileName, String[] classFiles, String[] references) {
+                        synchronized (out) {
+                            if (failure[0] == null) {
+                                try {
+                                    CompilerDaemonClient.writeUnit(out, fileName, classFiles, references);
+                                } catch (IOException e) {
+                                    failure[0] = e;
+                                }
+                            }
+                        }
+                    }
+                };
+                try {
+                    Main main = new BatchCompiler(new PrintWriter(output), new PrintWriter(output), null/* progress */,
+                            problemListener, unitListener);
+                    success = main.compile(args);
+                    errors = main.globalErrorsCount;
+                    warnings = main.globalWarningsCount;
+                } catch (Throwable t) {
+                    // report the failure and keep serving; the next compile may well succeed
+                    t.printStackTrace(new PrintWriter(output));
+                }
+            }
+        } finally {
+            heartbeat.interrupt();
+        }
+        synchronized (out) {
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+            CompilerDaemonClient.writeResult(out, success, errors, warnings, output.toString());
+            out.flush();
+        }
+    }
+
+    /**
+     * Starts a thread that sends a heartbeat record to the client every
+     * {@link #HEARTBEAT_INTERVAL} until it is interrupted.
+     */
+    private static Thread startHeartbeat(final DataOutputStream out, final IOException[] failure) {
+        Thread thread = new Thread("Groovy-Eclipse compiler daemon heartbeat") {
+            @Override
+            public void run() {
+                try {
+                    while (true) {
+                        Thread.sleep(HEARTBEAT_INTERVAL);
+                        synchronized (out) {
+                            if (failure[0] != null || isInterrupted()) {
+                                return;
+                            }
+                            try {
+                                CompilerDaemonClient.writeHeartbeat(out);
+                                out.flush();
+                            } catch (IOException e) {
+                                failure[0] = e;
+                            }
+                        }
+                    }
+                } catch (InterruptedException e) {
+                }
+            }
+        };
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    private static void writePortFile(File portFile, int port, String key) throws IOException {
+        File temp = new File(portFile.getPath() + ".tmp");
+        DaemonFiles.createPrivateFile(temp);
+        PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(temp), "UTF-8"));
+        try {
+            writer.println(port);
+            writer.println(key);
+        } finally {
+            writer.close();
+        }
+        if (!temp.renameTo(portFile) && !(portFile.delete() && temp.renameTo(portFile))) {
+            throw new IOException("Unable to write " + portFile);
+        }
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.compiler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.security.MessageDigest;
+
+/**
+ * Sends compile requests to a running {@link CompilerDaemon}. The daemon is found through its port file, which holds the port
+ * on the loopback interface and the key that each request must begin with. Problems are passed on while the daemon is still
+ * compiling. A port file that is not private to the current user is ignored, and a daemon that misses several heartbeats in a
+ * row is given up on.
+ * <p>
+ * Like {@link GroovyEclipseCompiler}, this class must not reference any JDT classes.
+ */
+class CompilerDaemonClient {
+
+    private static final byte PROBLEM_RECORD = 'P', UNIT_RECORD = 'U', HEARTBEAT_RECORD = 'H', RESULT_RECORD = 'R';
+
+    /** Time without any record from the daemon after which it is considered to have stopped responding */
+    private static final int RESPONSE_TIMEOUT = 6 * CompilerDaemon.HEARTBEAT_INTERVAL;
+
+    /** Upper bound of the length of each string that the daemon sends */
+    private static final int MAX_STRING_LENGTH = 256 * 1024 * 1024;
+
+    static class Response {
+        final boolean success;
+        final int globalErrorsCount;
+        final int globalWarningsCount;
+        final String output;
+
+        Response(boolean success, int globalErrorsCount, int globalWarningsCount, String output) {
+            this.success = success;
+            this.globalErrorsCount = globalErrorsCount;
+            this.globalWarningsCount = globalWarningsCount;
+            this.output = output;
+        }
+    }
+
+    private final File portFile;
+
+    CompilerDaemonClient(File portFile) {
+        this.portFile = portFile;
+    }
+
+    /**
+     * Runs the batch compiler in the daemon with the given arguments.
+     *
+     * @param unitListener
+     *            receives the compiled units or {@code null} if they are of
+     *            no interest
+     *
+     * @return the outcome or {@code null} if there is no daemon listening
+     * @throws IOException if the daemon went away or stopped responding in
+     *             the middle of the request
+     */
+    Response compile(String[] args, ProblemListener listener, UnitListener unitListener) throws IOException {
+        String[] portAndKey = readPortFile(portFile);
+        if (portAndKey == null) {
+            return null;
+        }
+        Socket socket = new Socket();
+        try {
+            try {
+                socket.connect(new InetSocketAddress(InetAddress.getByName("127.0.0.1"), Integer.parseInt(portAndKey[0])), 2000);
+            } catch (IOException e) {
+                return null; // stale port file
+            }
+            socket.setSoTimeout(RESPONSE_TIMEOUT);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            writeString(out, portAndKey[1]);
+            out.writeInt(args.length);
+            for (String arg : args) {
+                writeString(out, arg);
+            }
+            out.writeBoolean(unitListener != null);
+            out.flush();
+
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            try {
+                for (byte record = in.readByte(); record != RESULT_RECORD; record = in.readByte()) {
+                    if (record == PROBLEM_RECORD) {
+                        String fileName = in.readBoolean() ? readString(in, MAX_STRING_LENGTH) : null;
+                        boolean isError = in.readBoolean();
+                        int line = in.readInt(), startColumn = in.readInt(), endColumn = in.readInt();
+                        listener.acceptProblem(fileName, isError, line, startColumn, endColumn, readString(in, MAX_STRING_LENGTH));
+                    } else if (record == UNIT_RECORD) {
+                        unitListener.acceptUnit(readString(in, MAX_STRING_LENGTH), readStrings(in), readStrings(in));
+                    } else if (record != HEARTBEAT_RECORD) {
+                        throw new IOException("Unexpected record from compiler daemon: " + record);
+                    }
+                }
+                boolean success = in.readBoolean();
+                int errors = in.readInt();
+                int warnings = in.readInt();
+                return new Response(success, errors, warnings, readString(in, MAX_STRING_LENGTH));
+            } catch (SocketTimeoutException e) {
+                throw new IOException("The compiler daemon stopped responding; see " + portFile.getPath() + ".log", e);
+            }
+        } finally {
+            socket.close();
+        }
+    }
+
+    /**
+     * @return the port and key or {@code null} if the file does not exist, is
+     *         incomplete or may have been written by someone else
+     */
+    static String[] readPortFile(File portFile) {
+        if (!portFile.isFile() || !DaemonFiles.isPrivate(portFile)) {
+            return null;
+        }
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(portFile), "UTF-8"));
+            String port = reader.readLine(), key = reader.readLine();
+            if (port == null || key == null) {
+                return null;
+            }
+            Integer.parseInt(port);
+            return new String[] { port, key };
+        } catch (IOException e) {
+            return null;
+        } catch (NumberFormatException e) {
+            return null;
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                }
+            }
+        }
+    }
+
+    static void writeProblem(DataOutputStream out, String fileName, boolean isError, int line, int startColumn, int endColumn,
+            String message) throws IOException {
+        out.writeByte(PROBLEM_RECORD);
+        out.writeBoolean(fileName != null);
+        if (fileName != null) {
+            writeString(out, fileName);
+        }
+        out.writeBoolean(isError);
+        out.writeInt(line);
+        out.writeInt(startColumn);
+        out.writeInt(endColumn);
+        writeString(out, message != null ? message : "");
+    }
+
+    static void writeUnit(DataOutputStream out, String fileName, String[] classFiles, String[] references) throws IOException {
+        out.writeByte(UNIT_RECORD);
+        writeString(out, fileName);
+        writeStrings(out, classFiles);
+        writeStrings(out, references);
+    }
+
+    static void writeResult(DataOutputStream out, boolean success, int globalErrorsCount, int globalWarningsCount, String output)
+            throws IOException {
+        out.writeByte(RESULT_RECORD);
+        out.writeBoolean(success);
+        out.writeInt(globalErrorsCount);
+        out.writeInt(globalWarningsCount);
+        writeString(out, output);
+    }
+
+    static void writeHeartbeat(DataOutputStream out) throws IOException {
+        out.writeByte(HEARTBEAT_RECORD);
+    }
+
+    /**
+     * Compares a key that was received with the expected one in a time that
+     * does not depend on where they differ.
+     */
+    static boolean isKey(String expected, String received) throws IOException {
+        return MessageDigest.isEqual(expected.getBytes("UTF-8"), received.getBytes("UTF-8"));
+    }
+
+    /**
+     * @throws IOException if the string is longer than the given number of
+     *             bytes; nothing is allocated for it in that case
+     */
+    static String readString(DataInputStream in, int maxLength) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > maxLength) {
+            throw new IOException("Invalid string length: " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+
+    static void writeString(DataOutputStream out, String string) throws IOException {
+        byte[] bytes = string.getBytes("UTF-8");
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String[] readStrings(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0 || count > MAX_STRING_LENGTH / 4) {
+            throw new IOException("Invalid string count: " + count);
+        }
+        String[] strings = new String[count];
+        for (int i = 0; i < strings.length; i += 1) {
+            strings[i] = readString(in, MAX_STRING_LENGTH);
+        }
+        return strings;
+    }
+
+    private static void writeStrings(DataOutputStream out, String[] strings) throws IOException {
+        out.writeInt(strings.length);
+        for (String string : strings) {
+            writeString(out, string);
+        }
+    }
+}
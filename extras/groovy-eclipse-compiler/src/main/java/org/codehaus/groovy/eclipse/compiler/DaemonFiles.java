@@ -0,0 +1,142 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.compiler;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.AclEntry;
+import java.nio.file.attribute.AclEntryPermission;
+import java.nio.file.attribute.AclEntryType;
+import java.nio.file.attribute.AclFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Files shared by a {@link CompilerDaemon} and its clients. The port file holds the key that lets a client run code in the
+ * daemon, so it and the daemon's log live in a directory of their own that only the current user can access, and files that
+ * are not private to the current user are never trusted.
+ * <p>
+ * Like {@link GroovyEclipseCompiler}, this class must not reference any JDT classes.
+ */
+final class DaemonFiles {
+
+    private DaemonFiles() {
+    }
+
+    private static final Set<PosixFilePermission> OWNER_ONLY = EnumSet.of(PosixFilePermission.OWNER_READ,
+            PosixFilePermission.OWNER_WRITE, PosixFilePermission.OWNER_EXECUTE);
+
+    /**
+     * @return the directory for the port files and logs of the current user's
+     *         daemons, created if necessary
+     * @throws IOException if the directory cannot be created or is accessible
+     *             to other users
+     */
+    static File getDirectory() throws IOException {
+        File directory = new File(System.getProperty("java.io.tmpdir"), "groovy-eclipse-daemon-" + System.getProperty("user.name"));
+        Path path = directory.toPath();
+        if (!Files.exists(path, LinkOption.NOFOLLOW_LINKS)) {
+            try {
+                if (isPosix(path.getParent())) {
+                    Files.createDirectory(path, PosixFilePermissions.asFileAttribute(OWNER_ONLY));
+                } else {
+                    Files.createDirectory(path);
+                    restrictToOwner(path);
+                }
+            } catch (FileAlreadyExistsException e) {
+                // created concurrently; checked below like any existing directory
+            }
+        }
+        if (!Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS) || !isPrivate(path)) {
+            throw new IOException(directory + " is not a directory that only " + System.getProperty("user.name") + " can access");
+        }
+        return directory;
+    }
+
+    /**
+     * Creates an empty file that only the current user can access, replacing
+     * any file of the same name.
+     */
+    static void createPrivateFile(File file) throws IOException {
+        Path path = file.toPath();
+        Files.deleteIfExists(path);
+        if (isPosix(path.getParent())) {
+            Files.createFile(path, PosixFilePermissions.asFileAttribute(EnumSet.of(PosixFilePermission.OWNER_READ,
+                    PosixFilePermission.OWNER_WRITE)));
+        } else {
+            Files.createFile(path);
+            restrictToOwner(path);
+        }
+    }
+
+    /**
+     * @return {@code true} if the file is not a link, belongs to the current
+     *         user and cannot be accessed by anyone else
+     */
+    static boolean isPrivate(File file) {
+        try {
+            return isPrivate(file.toPath());
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static boolean isPrivate(Path path) throws IOException {
+        if (Files.isSymbolicLink(path) || !Files.getOwner(path, LinkOption.NOFOLLOW_LINKS).equals(getCurrentUser())) {
+            return false;
+        }
+        if (isPosix(path)) {
+            return OWNER_ONLY.containsAll(Files.getPosixFilePermissions(path, LinkOption.NOFOLLOW_LINKS));
+        }
+        AclFileAttributeView acl = Files.getFileAttributeView(path, AclFileAttributeView.class, LinkOption.NOFOLLOW_LINKS);
+        if (acl != null) {
+            for (AclEntry entry : acl.getAcl()) {
+                if (entry.type() == AclEntryType.ALLOW && !entry.principal().equals(getCurrentUser())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static void restrictToOwner(Path path) throws IOException {
+        AclFileAttributeView acl = Files.getFileAttributeView(path, AclFileAttributeView.class, LinkOption.NOFOLLOW_LINKS);
+        if (acl == null) {
+            throw new IOException("Unable to restrict access to " + path);
+        }
+        AclEntry entry = AclEntry.newBuilder().setType(AclEntryType.ALLOW).setPrincipal(getCurrentUser())
+                .setPermissions(EnumSet.allOf(AclEntryPermission.class)).build();
+        acl.setAcl(Collections.singletonList(entry));
+    }
+
+    private static boolean isPosix(Path path) {
+        return Files.getFileAttributeView(path, PosixFileAttributeView.class) != null;
+    }
+
+    private static UserPrincipal getCurrentUser() throws IOException {
+        return FileSystems.getDefault().getUserPrincipalLookupService().lookupPrincipalByName(System.getProperty("user.name"));
+    }
+}
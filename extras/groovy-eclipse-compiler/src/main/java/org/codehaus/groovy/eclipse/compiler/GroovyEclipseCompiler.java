@@ -32,6 +32,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.Set;
+import java.util.TreeMap;
 
 import org.codehaus.groovy.eclipse.compiler.InternalCompiler.Result;
 import org.codehaus.plexus.compiler.AbstractCompiler;
@@ -42,6 +43,7 @@ import org.codehaus.plexus.compiler.CompilerResult;
 import org.codehaus.plexus.compiler.CompilerMessage.Kind;
 import org.codehaus.plexus.compiler.CompilerOutputStyle;
 import org.codehaus.plexus.compiler.util.scan.InclusionScanException;
+import org.codehaus.plexus.compiler.util.scan.SimpleSourceInclusionScanner;
 import org.codehaus.plexus.compiler.util.scan.SourceInclusionScanner;
 import org.codehaus.plexus.compiler.util.scan.StaleSourceScanner;
 import org.codehaus.plexus.compiler.util.scan.mapping.SourceMapping;
@@ -72,8 +74,20 @@ public class GroovyEclipseCompiler extends AbstractCompiler {
 
     private static final String JAVA_AGENT_CLASS_PARAM_NAME = "-javaAgentClass";
 
+    private static final String DAEMON_PARAM_NAME = "-daemon";
+
+    private static final int DEFAULT_DAEMON_IDLE_MINUTES = 180;
+
+    private static final String INCREMENTAL_PARAM_NAME = "-incremental";
+
     private String javaAgentClass = "";
 
+    /** Minutes a compiler daemon may stay idle or 0 if the daemon is not used. */
+    private int daemonIdleMinutes;
+
+    /** State of the incremental mode for the current compile or null if the mode is off. */
+    private CompilationState compilationState;
+
     boolean verbose;
 
     public GroovyEclipseCompiler() {
@@ -109,11 +123,12 @@ public class GroovyEclipseCompiler extends AbstractCompiler {
         String[] args = createCommandLine(config);
         if (args.length == 0) {
             getLogger().info("Nothing to compile - all classes are up to date");
+            saveCompilationState(config); // removed sources may have been dropped
             return true;
         }
 
         boolean success;
-        if (config.isFork()) {
+        if (config.isFork() || daemonIdleMinutes > 0) {
             String executable = config.getExecutable();
 
             if (StringUtils.isEmpty(executable)) {
@@ -126,10 +141,15 @@ public class GroovyEclipseCompiler extends AbstractCompiler {
             }
 
             String groovyEclipseLocation = getGroovyEclipseBatchLocation();
-            success = compileOutOfProcess(config, executable, groovyEclipseLocation, args, messages);
+            if (daemonIdleMinutes > 0 && StringUtils.isEmpty(javaAgentClass)) {
+                success = compileInDaemon(config, executable, groovyEclipseLocation, args, messages);
+            } else {
+                success = compileOutOfProcess(config, executable, groovyEclipseLocation, args, messages);
+            }
         } else {
             StringWriter out = new StringWriter();
-            Result result = InternalCompiler.doCompile(args, out, getLogger(), verbose);
+            Result result = InternalCompiler.doCompile(args, out, getLogger(), verbose, collectProblems(messages, config.isShowWarnings()),
+                    compilationState);
             success = result.success;
             try {
                 messages.addAll(parseMessages(success ? 0 : 1, out.getBuffer().toString(), config.isShowWarnings()));
@@ -141,18 +161,25 @@ public class GroovyEclipseCompiler extends AbstractCompiler {
                 messages.add(formatResult(success, result.globalErrorsCount, result.globalWarningsCount));
             }
         }
+        saveCompilationState(config);
         return success;
     }
 
     private File[] recalculateStaleFiles(CompilerConfiguration config) throws CompilerException {
         config.setSourceFiles(null);
-        long staleMillis = 0; // can we do better than using 0?
+        compilationState = null;
         Set<String> includes = config.getIncludes();
         if (includes == null || includes.isEmpty()) {
             includes = Collections.singleton("**/*");
         }
-        StaleSourceScanner scanner = new StaleSourceScanner(staleMillis, includes, config.getExcludes());
-        Set<File> staleSources = computeStaleSources(config, scanner);
+        Set<File> staleSources;
+        if (isIncremental(config)) {
+            staleSources = computeIncrementalSources(config, includes);
+        } else {
+            long staleMillis = 0; // can we do better than using 0?
+            StaleSourceScanner scanner = new StaleSourceScanner(staleMillis, includes, config.getExcludes());
+            staleSources = computeStaleSources(config, scanner);
+        }
         config.setSourceFiles(staleSources);
 
         File[] sourceFiles = staleSources.toArray(new File[0]);
@@ -235,6 +262,7 @@ public class GroovyEclipseCompiler extends AbstractCompiler {
 
         String cp = super.getPathString(config.getClasspathEntries());
         verbose = config.isVerbose();
+        daemonIdleMinutes = 0;
         if (verbose) {
             getLogger().info("Classpath: " + cp);
         }
@@ -310,6 +338,14 @@ public class GroovyEclipseCompiler extends AbstractCompiler {
         for (Entry<String, String> entry : config.getCustomCompilerArgumentsAsMap().entrySet()) {
 
             String key = entry.getKey();
+            if (DAEMON_PARAM_NAME.equals(key) || DAEMON_PARAM_NAME.equals("-" + key)) {
+                // the daemon is a way of running the compiler, not an option of it
+                setDaemonIdleMinutes(entry.getValue());
+                continue;
+            }
+            if (INCREMENTAL_PARAM_NAME.equals(key) || INCREMENTAL_PARAM_NAME.equals("-" + key)) {
+                continue; // see recalculateStaleFiles
+            }
             if (startsWithHyphen(key)) {
                 if (JAVA_AGENT_CLASS_PARAM_NAME.equals(key)) {
                     setJavaAgentClass(entry.getValue());
@@ -376,6 +412,102 @@ public class GroovyEclipseCompiler extends AbstractCompiler {
         return staleSources;
     }
 
+    private boolean isIncremental(CompilerConfiguration config) {
+        for (Entry<String, String> entry : config.getCustomCompilerArgumentsAsMap().entrySet()) {
+            String key = entry.getKey();
+            if (INCREMENTAL_PARAM_NAME.equals(key) || INCREMENTAL_PARAM_NAME.equals("-" + key)) {
+                return !"false".equals(entry.getValue());
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Determines the sources to compile from the state that the previous
+     * compile left behind: the sources that changed since then and the
+     * sources that depend on them. Everything is compiled if there is no
+     * state or if it was recorded with different options.
+     */
+    private Set<File> computeIncrementalSources(CompilerConfiguration config, Set<String> includes) throws CompilerException {
+        File outputDirectory = new File(config.getOutputLocation());
+        String optionsKey = getOptionsKey(config);
+        CompilationState state = CompilationState.read(getCompilationStateFile(config));
+        if (state == null || !state.optionsKey.equals(optionsKey)) {
+            if (state != null) {
+                getLogger().info("Compiler options or classpath changed; compiling all sources");
+            }
+            state = new CompilationState(optionsKey);
+        }
+
+        SourceInclusionScanner scanner = new SimpleSourceInclusionScanner(includes, config.getExcludes());
+        List<File> sources = new ArrayList<File>();
+        for (String sourceRoot : config.getSourceLocations()) {
+            File rootFile = new File(sourceRoot);
+            if (!rootFile.isDirectory()) {
+                continue;
+            }
+            try {
+                for (File source : scanner.getIncludedSources(rootFile, outputDirectory)) {
+                    if (source.getName().endsWith(".groovy") || source.getName().endsWith(".java")) {
+                        sources.add(source);
+                    }
+                }
+            } catch (InclusionScanException e) {
+                throw new CompilerException(
+                        "Error scanning source root: \'" + sourceRoot + "\' " + "for stale files to recompile.", e);
+            }
+        }
+        Collections.sort(sources);
+
+        Set<File> staleSources = state.computeStaleSources(sources, outputDirectory);
+        if (verbose) {
+            getLogger().info("Incremental compile of " + staleSources.size() + " of " + sources.size() + " sources");
+        }
+        compilationState = state;
+        return staleSources;
+    }
+
+    /**
+     * Summarizes everything besides the sources that affects the output of
+     * the compiler. Jars on the classpath are represented by their size and
+     * timestamp as well, so that a changed dependency causes a full compile.
+     */
+    private String getOptionsKey(CompilerConfiguration config) throws CompilerException {
+        StringBuilder key = new StringBuilder();
+        for (String entry : config.getClasspathEntries()) {
+            File file = new File(entry);
+            key.append(entry);
+            if (file.isFile()) {
+                key.append('|').append(file.length()).append('|').append(file.lastModified());
+            }
+            key.append(File.pathSeparatorChar);
+        }
+        String groovyEclipseLocation = getGroovyEclipseBatchLocation();
+        key.append(groovyEclipseLocation).append('|').append(new File(groovyEclipseLocation).lastModified());
+        key.append('|').append(config.getSourceVersion()).append('|').append(config.getTargetVersion());
+        key.append('|').append(config.isDebug()).append('|').append(config.getDebugLevel());
+        key.append('|').append(config.getSourceEncoding()).append('|').append(config.getProc());
+        key.append('|').append(config.getAnnotationProcessors() != null ? Arrays.asList(config.getAnnotationProcessors()) : null);
+        key.append('|').append(new TreeMap<String, String>(config.getCustomCompilerArgumentsAsMap()));
+        return key.toString();
+    }
+
+    private File getCompilationStateFile(CompilerConfiguration config) {
+        File outputDirectory = new File(config.getOutputLocation());
+        return new File(outputDirectory.getParentFile(), outputDirectory.getName() + ".groovy-eclipse.state");
+    }
+
+    private void saveCompilationState(CompilerConfiguration config) {
+        if (compilationState != null) {
+            try {
+                compilationState.write(getCompilationStateFile(config));
+            } catch (IOException e) {
+                getLogger().warn("Unable to save the state of the incremental compile: " + e.getMessage());
+            }
+            compilationState = null;
+        }
+    }
+
     /**
      * Compile the java sources in a external process, calling an external
      * executable, like javac.
@@ -393,6 +525,12 @@ public class GroovyEclipseCompiler extends AbstractCompiler {
     private boolean compileOutOfProcess(CompilerConfiguration config, String executable, String groovyEclipseLocation,
             String[] args, List<CompilerMessage> messages) throws CompilerException {
 
+        if (compilationState != null) {
+            // the compiled units are not reported back from a forked compiler
+            getCompilationStateFile(config).delete();
+            compilationState = null;
+        }
+
         Commandline cli = new Commandline();
         cli.setWorkingDirectory(config.getWorkingDirectory().getAbsolutePath());
         cli.setExecutable(executable);
@@ -464,6 +602,128 @@ public class GroovyEclipseCompiler extends AbstractCompiler {
         return returnCode == 0;
     }
 
+    /**
+     * Compile the sources in a long-lived compiler process, which is started
+     * if it is not running yet. Builds that use the same java executable,
+     * groovy-eclipse-batch and memory settings share one daemon, so that
+     * later modules and later builds skip the startup and warm-up of the
+     * compiler. Falls back to {@link #compileOutOfProcess} if the daemon
+     * cannot be reached.
+     *
+     * @return {@code true} if the compile succeeded
+     * @throws CompilerException
+     */
+    private boolean compileInDaemon(CompilerConfiguration config, String executable, String groovyEclipseLocation,
+            String[] args, List<CompilerMessage> messages) throws CompilerException {
+
+        File portFile;
+        try {
+            portFile = getDaemonPortFile(config, executable, groovyEclipseLocation);
+        } catch (IOException e) {
+            getLogger().warn("Not using the compiler daemon: " + e.getMessage());
+            return compileOutOfProcess(config, executable, groovyEclipseLocation, args, messages);
+        }
+        CompilerDaemonClient client = new CompilerDaemonClient(portFile);
+        ProblemListener listener = collectProblems(messages, config.isShowWarnings());
+        CompilerDaemonClient.Response response;
+        try {
+            response = client.compile(args, listener, compilationState);
+            if (response == null) {
+                startDaemon(config, executable, groovyEclipseLocation, portFile);
+                // wait for the daemon to publish its port
+                for (int i = 0; response == null && i < 300; i += 1) {
+                    Thread.sleep(100);
+                    response = client.compile(args, listener, compilationState);
+                }
+            }
+        } catch (IOException e) {
+            throw new CompilerException("Error while executing the compiler daemon.", e);
+        } catch (InterruptedException e) {
+            throw new CompilerException("Interrupted while waiting for the compiler daemon.", e);
+        }
+
+        if (response == null) {
+            getLogger().warn("Unable to reach the compiler daemon; see " + portFile.getPath() + ".log");
+            return compileOutOfProcess(config, executable, groovyEclipseLocation, args, messages);
+        }
+        getLogger().info("Compiled in the compiler daemon using " + groovyEclipseLocation);
+
+        try {
+            messages.addAll(parseMessages(response.success ? 0 : 1, response.output, config.isShowWarnings()));
+        } catch (IOException e) {
+            messages.clear();
+        }
+        if (!response.success) {
+            messages.add(formatResult(response.success, response.globalErrorsCount, response.globalWarningsCount));
+        }
+        return response.success;
+    }
+
+    private void startDaemon(CompilerConfiguration config, String executable, String groovyEclipseLocation, File portFile)
+            throws CompilerException {
+
+        Commandline cli = new Commandline();
+        cli.setWorkingDirectory(portFile.getParentFile().getAbsolutePath());
+        cli.setExecutable(executable);
+
+        if (!StringUtils.isEmpty(config.getMaxmem())) {
+            cli.addArguments(new String[] { "-Xmx" + config.getMaxmem() });
+        }
+        if (!StringUtils.isEmpty(config.getMeminitial())) {
+            cli.addArguments(new String[] { "-Xms" + config.getMeminitial() });
+        }
+        String daemonLocation = getClassLocation(CompilerDaemon.class.getName());
+        cli.addArguments(new String[] { "-cp", groovyEclipseLocation + File.pathSeparator + daemonLocation,
+                CompilerDaemon.class.getName(), portFile.getAbsolutePath(), String.valueOf(daemonIdleMinutes) });
+
+        try {
+            getLogger().info("Starting compiler daemon using " + groovyEclipseLocation);
+            Process process = cli.execute();
+            // the daemon does not use its standard streams
+            process.getOutputStream().close();
+            process.getInputStream().close();
+            process.getErrorStream().close();
+        } catch (CommandLineException e) {
+            throw new CompilerException("Error while starting the compiler daemon.", e);
+        } catch (IOException e) {
+            throw new CompilerException("Error while starting the compiler daemon.", e);
+        }
+    }
+
+    /**
+     * @throws IOException if the directory of the port file is accessible to
+     *             other users, who could then take over the daemon
+     */
+    private File getDaemonPortFile(CompilerConfiguration config, String executable, String groovyEclipseLocation)
+            throws CompilerException, IOException {
+        String daemonLocation = getClassLocation(CompilerDaemon.class.getName());
+        String identity = executable + File.pathSeparator + groovyEclipseLocation + File.pathSeparator
+                + new File(groovyEclipseLocation).lastModified() + File.pathSeparator + daemonLocation + File.pathSeparator
+                + new File(daemonLocation).lastModified() + File.pathSeparator + config.getMaxmem() + File.pathSeparator
+                + config.getMeminitial();
+        return new File(DaemonFiles.getDirectory(), Integer.toHexString(identity.hashCode()) + ".port");
+    }
+
+    /**
+     * Creates a listener that adds the problems reported by the compiler to
+     * the given list as they are found. Warnings are only added if they are
+     * to be shown.
+     */
+    private ProblemListener collectProblems(final List<CompilerMessage> messages, final boolean showWarnings) {
+        return new ProblemListener() {
+            public void acceptProblem(String fileName, boolean isError, int line, int startColumn, int endColumn, String message) {
+                if (isError || showWarnings) {
+                    Kind kind = isError ? Kind.ERROR : Kind.WARNING;
+                    if (fileName != null) {
+                        messages.add(new CompilerMessage(fileName, kind, line, startColumn, line, endColumn, message));
+                    } else {
+                        messages.add(new CompilerMessage(message, kind));
+                    }
+                }
+            }
+        };
+    }
+
     /**
      * Parse the output from the compiler into a list of CompilerError objects
      *
@@ -727,6 +987,28 @@ public class GroovyEclipseCompiler extends AbstractCompiler {
         return argsList.toArray(new String[0]);
     }
 
+    public int getDaemonIdleMinutes() {
+        return daemonIdleMinutes;
+    }
+
+    /**
+     * @param minutes
+     *            how long the compiler daemon may stay idle; empty for the
+     *            default
+     */
+    public void setDaemonIdleMinutes(String minutes) {
+        if (StringUtils.isEmpty(minutes)) {
+            this.daemonIdleMinutes = DEFAULT_DAEMON_IDLE_MINUTES;
+        } else {
+            try {
+                this.daemonIdleMinutes = Integer.parseInt(minutes.trim());
+            } catch (NumberFormatException e) {
+                getLogger().warn("Ignoring invalid value for " + DAEMON_PARAM_NAME + ": " + minutes);
+                this.daemonIdleMinutes = DEFAULT_DAEMON_IDLE_MINUTES;
+            }
+        }
+    }
+
     public String getJavaAgentClass() {
         return javaAgentClass;
     }
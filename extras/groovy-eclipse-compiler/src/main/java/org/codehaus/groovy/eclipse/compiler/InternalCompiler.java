@@ -77,10 +77,10 @@ class InternalCompiler extends CompilationProgress {
         }
     }
 
-    static Result doCompile(String[] args, StringWriter out, Logger logger, boolean verbose) {
+    static Result doCompile(String[] args, StringWriter out, Logger logger, boolean verbose, ProblemListener listener,
+            UnitListener unitListener) {
         InternalCompiler progress = new InternalCompiler(logger, verbose);
-        Main main = new Main(new PrintWriter(out), new PrintWriter(out), false/* systemExit */,
-                null/* options */, progress);
+        Main main = new BatchCompiler(new PrintWriter(out), new PrintWriter(out), progress, listener, unitListener);
         boolean result = main.compile(args);
         return new Result(result, main.globalErrorsCount, main.globalWarningsCount);
     }
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.compiler;
+
+/**
+ * Receives the problems found by the batch compiler, one at a time and as soon as each compilation unit is done. Tasks are not
+ * reported.
+ * <p>
+ * Like {@link GroovyEclipseCompiler}, this type must not reference any JDT classes.
+ */
+interface ProblemListener {
+
+    /**
+     * @param fileName
+     *            the file the problem was found in
+     * @param line
+     *            the 1-based line of the problem or 0 if unknown
+     * @param startColumn
+     *            the 1-based column where the problem starts or 0 if unknown
+     * @param endColumn
+     *            the 1-based column where the problem ends (on the same line)
+     *            or 0 if unknown
+     */
+    void acceptProblem(String fileName, boolean isError, int line, int startColumn, int endColumn, String message);
+}
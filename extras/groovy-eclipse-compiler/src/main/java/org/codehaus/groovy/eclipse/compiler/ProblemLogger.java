@@ -0,0 +1,82 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.compiler;
+
+import java.io.PrintWriter;
+
+import org.eclipse.jdt.core.compiler.CategorizedProblem;
+import org.eclipse.jdt.core.compiler.IProblem;
+import org.eclipse.jdt.internal.compiler.batch.Main;
+
+/**
+ * Batch compiler logger that hands problems to a {@link ProblemListener} instead of printing them, so they do not have to be
+ * parsed back out of the compiler output. Everything else (summary, classpath warnings, verbose output, etc.) is still printed.
+ */
+class ProblemLogger extends Main.Logger {
+
+    private final ProblemListener listener;
+
+    private ProblemLogger(Main main, PrintWriter out, PrintWriter err, ProblemListener listener) {
+        super(main, out, err);
+        this.listener = listener;
+    }
+
+    /**
+     * Replaces the logger of the given compiler. Must be called before the compiler is run.
+     */
+    static void install(Main main, PrintWriter out, PrintWriter err, ProblemListener listener) {
+        main.logger = new ProblemLogger(main, out, err, listener);
+    }
+
+    @Override
+    public int logProblems(CategorizedProblem[] problems, char[] unitSource, Main currentMain) {
+        int localErrorCount = 0;
+        for (CategorizedProblem problem : problems) {
+            if (problem == null) {
+                continue;
+            }
+            currentMain.globalProblemsCount += 1;
+            if (problem.getID() == IProblem.Task) {
+                currentMain.globalTasksCount += 1;
+                continue;
+            }
+            if (problem.isError()) {
+                currentMain.globalErrorsCount += 1;
+                localErrorCount += 1;
+            } else {
+                currentMain.globalWarningsCount += 1;
+            }
+
+            int start = problem.getSourceStart(), end = problem.getSourceEnd(), startColumn = 0, endColumn = 0;
+            if (unitSource != null && start >= 0 && start < unitSource.length) {
+                int lineStart = start;
+                while (lineStart > 0 && unitSource[lineStart - 1] != '\n' && unitSource[lineStart - 1] != '\r') {
+                    lineStart -= 1;
+                }
+                int lineEnd = start;
+                while (lineEnd < end && lineEnd + 1 < unitSource.length && unitSource[lineEnd + 1] != '\n' && unitSource[lineEnd + 1] != '\r') {
+                    lineEnd += 1;
+                }
+                startColumn = start - lineStart + 1;
+                endColumn = lineEnd - lineStart + 1;
+            }
+            char[] fileName = problem.getOriginatingFileName();
+            listener.acceptProblem(fileName != null ? new String(fileName) : null, problem.isError(),
+                    problem.getSourceLineNumber(), startColumn, endColumn, problem.getMessage());
+        }
+        return localErrorCount;
+    }
+}
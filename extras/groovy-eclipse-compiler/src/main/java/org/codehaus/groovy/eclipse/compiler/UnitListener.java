@@ -0,0 +1,37 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.compiler;
+
+/**
+ * Receives the outcome of each compilation unit that the batch compiler wrote class files for. Units with errors are not
+ * reported.
+ * <p>
+ * Like {@link GroovyEclipseCompiler}, this type must not reference any JDT classes.
+ */
+interface UnitListener {
+
+    /**
+     * @param fileName
+     *            the source file, as it was passed to the compiler
+     * @param classFiles
+     *            the class files written for the unit, relative to the output
+     *            folder and with '/' as separator
+     * @param references
+     *            the simple names the unit refers to (type names and the
+     *            segments of qualified names)
+     */
+    void acceptUnit(String fileName, String[] classFiles, String[] references);
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.compiler;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks which sources the incremental mode compiles after various changes. Compiles are simulated: each stale source "produces"
+ * the class files and references that the test declares for it.
+ */
+public class CompilationStateTests extends TestCase {
+
+    private File sourceDirectory;
+    private File outputDirectory;
+
+    /** Simple source name to the class files and references a compile of it produces */
+    private final Map<String, String[][]> units = new LinkedHashMap<String, String[][]>();
+
+    /** Timestamp given to the next source that is written, so that edits are seen regardless of the file system's resolution */
+    private long now = 1000000000000L;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        File root = File.createTempFile("compilation-state", "");
+        root.delete();
+        sourceDirectory = new File(root, "src");
+        outputDirectory = new File(root, "classes");
+        sourceDirectory.mkdirs();
+        outputDirectory.mkdirs();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        delete(sourceDirectory.getParentFile());
+        super.tearDown();
+    }
+
+    public void testFirstBuildCompilesEverything() throws Exception {
+        addUnit("A.groovy", new String[] { "A.class" }, new String[] { "Object" });
+        addUnit("B.java", new String[] { "B.class" }, new String[] { "A" });
+
+        assertEquals(names("A.groovy", "B.java"), build(new CompilationState("options")));
+    }
+
+    public void testNothingChanged() throws Exception {
+        addUnit("A.groovy", new String[] { "A.class" }, new String[] { "Object" });
+        addUnit("B.java", new String[] { "B.class" }, new String[] { "A" });
+        CompilationState state = new CompilationState("options");
+        build(state);
+
+        assertEquals(names(), build(state));
+    }
+
+    public void testChangedSupertype() throws Exception {
+        addUnit("Base.groovy", new String[] { "Base.class", "Base$_closure1.class" }, new String[] { "Object" });
+        addUnit("Sub.groovy", new String[] { "Sub.class" }, new String[] { "Base", "String" });
+        addUnit("Unrelated.java", new String[] { "Unrelated.class" }, new String[] { "Object" });
+        CompilationState state = new CompilationState("options");
+        build(state);
+
+        edit("Base.groovy");
+        assertEquals(names("Base.groovy", "Sub.groovy"), build(state));
+        assertEquals(names(), build(state));
+    }
+
+    public void testChangedConstant() throws Exception {
+        // a constant is inlined by its users, so they must be compiled again even though none of their own sources changed
+        addUnit("Constants.java", new String[] { "Constants.class" }, new String[] { "String" });
+        addUnit("Client.groovy", new String[] { "Client.class" }, new String[] { "Constants", "println" });
+        addUnit("Other.groovy", new String[] { "Other.class" }, new String[] { "Client" });
+        CompilationState state = new CompilationState("options");
+        build(state);
+
+        edit("Constants.java");
+        // the dependents of dependents are compiled again as well
+        assertEquals(names("Constants.java", "Client.groovy", "Other.groovy"), build(state));
+        assertEquals(names(), build(state));
+    }
+
+    public void testCallerOfInheritedMethod() throws Exception {
+        // C calls b.m(), which B inherits from A; when A drops m, C no longer compiles even though it never names A
+        addUnit("A.groovy", new String[] { "A.class" }, new String[] { "Object", "m" });
+        addUnit("B.groovy", new String[] { "B.class" }, new String[] { "A" });
+        addUnit("C.java", new String[] { "C.class" }, new String[] { "B", "m" });
+        addUnit("D.java", new String[] { "D.class" }, new String[] { "Object" });
+        CompilationState state = new CompilationState("options");
+        build(state);
+
+        edit("A.groovy");
+        assertEquals(names("A.groovy", "B.groovy", "C.java"), build(state));
+        assertEquals(names(), build(state));
+    }
+
+    public void testRemovedFile() throws Exception {
+        addUnit("Gone.groovy", new String[] { "Gone.class", "Gone$1.class" }, new String[] { "Object" });
+        addUnit("User.java", new String[] { "User.class" }, new String[] { "Gone" });
+        addUnit("Bystander.java", new String[] { "Bystander.class" }, new String[] { "Object" });
+        CompilationState state = new CompilationState("options");
+        build(state);
+
+        new File(sourceDirectory, "Gone.groovy").delete();
+        units.remove("Gone.groovy");
+        assertEquals(names("User.java"), build(state));
+        assertFalse(new File(outputDirectory, "Gone.class").exists());
+        assertFalse(new File(outputDirectory, "Gone$1.class").exists());
+        assertTrue(new File(outputDirectory, "Bystander.class").exists());
+    }
+
+    public void testMissingClassFile() throws Exception {
+        addUnit("A.groovy", new String[] { "A.class", "A$Inner.class" }, new String[] { "Object" });
+        addUnit("B.groovy", new String[] { "B.class" }, new String[] { "Object" });
+        CompilationState state = new CompilationState("options");
+        build(state);
+
+        new File(outputDirectory, "A$Inner.class").delete();
+        assertEquals(names("A.groovy"), build(state));
+    }
+
+    public void testEditDuringCompile() throws Exception {
+        addUnit("A.groovy", new String[] { "A.class" }, new String[] { "Object" });
+        CompilationState state = new CompilationState("options");
+        List<File> sources = getSources();
+        Set<File> stale = state.computeStaleSources(sources, outputDirectory);
+
+        // the source changes after the compiler read it but before the unit is reported
+        edit("A.groovy");
+        compile(state, stale);
+
+        assertEquals(names("A.groovy"), build(state));
+    }
+
+    public void testUnitWithErrorsIsCompiledAgain() throws Exception {
+        addUnit("A.groovy", new String[] { "A.class" }, new String[] { "Object" });
+        addUnit("B.groovy", new String[] { "B.class" }, new String[] { "Object" });
+        CompilationState state = new CompilationState("options");
+        state.computeStaleSources(getSources(), outputDirectory);
+        // only A compiled; units with errors are not reported
+        compile(state, Arrays.asList(new File(sourceDirectory, "A.groovy")));
+
+        assertEquals(names("B.groovy"), build(state));
+    }
+
+    public void testWriteAndRead() throws Exception {
+        addUnit("A.groovy", new String[] { "A.class" }, new String[] { "Object" });
+        addUnit("B.java", new String[] { "B.class" }, new String[] { "A" });
+        CompilationState state = new CompilationState("options");
+        build(state);
+        File file = new File(outputDirectory.getParentFile(), "classes.groovy-eclipse.state");
+        state.write(file);
+
+        CompilationState read = CompilationState.read(file);
+        assertNotNull(read);
+        assertEquals("options", read.optionsKey);
+        assertEquals(names(), build(read));
+        edit("A.groovy");
+        assertEquals(names("A.groovy", "B.java"), build(read));
+    }
+
+    public void testReadDamagedFile() throws Exception {
+        File file = new File(outputDirectory.getParentFile(), "classes.groovy-eclipse.state");
+        assertNull(CompilationState.read(file));
+
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(new byte[] { 0x47, 0x45, 0x43, 0x53, 0, 0, 0, 1, 0x7F, 0x7F, 0x7F, 0x7F });
+        } finally {
+            out.close();
+        }
+        assertNull(CompilationState.read(file));
+    }
+
+    //--------------------------------------------------------------------------
+
+    private void addUnit(String name, String[] classFiles, String[] references) throws IOException {
+        units.put(name, new String[][] { classFiles, references });
+        edit(name);
+    }
+
+    private void edit(String name) throws IOException {
+        File source = new File(sourceDirectory, name);
+        FileOutputStream out = new FileOutputStream(source, true);
+        try {
+            out.write('\n');
+        } finally {
+            out.close();
+        }
+        now += 2000;
+        source.setLastModified(now);
+    }
+
+    /**
+     * Runs an incremental build over all sources.
+     *
+     * @return the simple names of the sources that were compiled
+     */
+    private Set<String> build(CompilationState state) throws IOException {
+        Set<File> stale = state.computeStaleSources(getSources(), outputDirectory);
+        compile(state, stale);
+        Set<String> names = new TreeSet<String>();
+        for (File source : stale) {
+            names.add(source.getName());
+        }
+        return names;
+    }
+
+    private void compile(CompilationState state, Collection<File> sources) throws IOException {
+        for (File source : sources) {
+            String[][] unit = units.get(source.getName());
+            for (String classFile : unit[0]) {
+                new FileOutputStream(new File(outputDirectory, classFile)).close();
+            }
+            state.acceptUnit(source.getPath(), unit[0], unit[1]);
+        }
+    }
+
+    private List<File> getSources() {
+        List<File> sources = new ArrayList<File>();
+        for (String name : units.keySet()) {
+            sources.add(new File(sourceDirectory, name));
+        }
+        return sources;
+    }
+
+    private static Set<String> names(String... names) {
+        return new TreeSet<String>(Arrays.asList(names));
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.compiler;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks the problems that the batch compiler hands to a {@link ProblemListener}: file, severity, line and columns.
+ */
+public class ProblemLoggerTests extends TestCase {
+
+    private File directory;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        directory = File.createTempFile("problem-logger", "");
+        directory.delete();
+        directory.mkdirs();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+        super.tearDown();
+    }
+
+    public void testErrorPosition() throws Exception {
+        File source = write("A.java",
+            "public class A {\n" +
+            "    void m() {\n" +
+            "        int x = \"s\";\n" +
+            "    }\n" +
+            "}\n");
+        List<String> problems = new ArrayList<String>();
+        String output = compile(source, problems);
+
+        assertEquals(1, problems.size());
+        // the string literal is reported, from its opening to its closing quote
+        assertEquals(source.getPath() + "|error|3|17|19|Type mismatch: cannot convert from String to int", problems.get(0));
+        // the problem is not printed as well
+        assertFalse(output, output.contains("Type mismatch"));
+    }
+
+    public void testPositionAfterTabsAndWindowsLineEnds() throws Exception {
+        File source = write("B.java",
+            "public class B {\r\n" +
+            "\tvoid m() {\r\n" +
+            "\t\tint y = \"t\";\r\n" +
+            "\t}\r\n" +
+            "}\r\n");
+        List<String> problems = new ArrayList<String>();
+        compile(source, problems);
+
+        assertEquals(1, problems.size());
+        // columns count characters, so a tab is one column
+        assertEquals(source.getPath() + "|error|3|11|13|Type mismatch: cannot convert from String to int", problems.get(0));
+    }
+
+    public void testProblemSpanningLines() throws Exception {
+        File source = write("C.java",
+            "public class C {\n" +
+            "    int m() {\n" +
+            "        return \"a\" +\n" +
+            "            \"b\";\n" +
+            "    }\n" +
+            "}\n");
+        List<String> problems = new ArrayList<String>();
+        compile(source, problems);
+
+        assertEquals(1, problems.size());
+        // the end column stops at the end of the line the problem starts on
+        assertEquals(source.getPath() + "|error|3|16|20|Type mismatch: cannot convert from String to int", problems.get(0));
+    }
+
+    public void testWarning() throws Exception {
+        File source = write("D.java",
+            "import java.util.List;\n" +
+            "public class D {\n" +
+            "}\n");
+        List<String> problems = new ArrayList<String>();
+        compile(source, problems);
+
+        assertEquals(1, problems.size());
+        assertEquals(source.getPath() + "|warning|1|8|21|The import java.util.List is never used", problems.get(0));
+    }
+
+    //--------------------------------------------------------------------------
+
+    private File write(String name, String contents) throws IOException {
+        File file = new File(directory, name);
+        FileWriter writer = new FileWriter(file);
+        try {
+            writer.write(contents);
+        } finally {
+            writer.close();
+        }
+        return file;
+    }
+
+    /**
+     * Compiles the source without writing class files and adds each problem to the list as
+     * "file|severity|line|start column|end column|message".
+     *
+     * @return what the compiler printed
+     */
+    private static String compile(File source, final List<String> problems) {
+        ProblemListener listener = new ProblemListener() {
+            public void acceptProblem(String fileName, boolean isError, int line, int startColumn, int endColumn, String message) {
+                problems.add(fileName + '|' + (isError ? "error" : "warning") + '|' + line + '|' + startColumn + '|' + endColumn
+                        + '|' + message);
+            }
+        };
+        StringWriter output = new StringWriter();
+        BatchCompiler compiler = new BatchCompiler(new PrintWriter(output), new PrintWriter(output), null, listener, null);
+        compiler.compile(new String[] { "-1.5", "-proceedOnError", "-warn:unusedImport", "-d", "none", source.getPath() });
+        return output.toString();
+    }
+}
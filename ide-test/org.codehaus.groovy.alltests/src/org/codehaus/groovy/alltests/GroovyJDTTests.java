@@ -21,7 +21,12 @@ import junit.framework.TestSuite;
 import org.eclipse.jdt.core.groovy.tests.builder.BasicGroovyBuildTests;
 import org.eclipse.jdt.core.groovy.tests.builder.BuildAccessRulesTests;
 import org.eclipse.jdt.core.groovy.tests.builder.FullProjectTests;
+import org.eclipse.jdt.core.groovy.tests.compiler.GlobalTransformNamesCacheTests;
+import org.eclipse.jdt.core.groovy.tests.compiler.GroovyBuildStateTests;
+import org.eclipse.jdt.core.groovy.tests.compiler.GroovyParseCacheTests;
+import org.eclipse.jdt.core.groovy.tests.compiler.IncrementalReconcileTests;
 import org.eclipse.jdt.core.groovy.tests.compiler.STCScriptsTests;
+import org.eclipse.jdt.core.groovy.tests.compiler.SourceUnitOrderTests;
 import org.eclipse.jdt.core.groovy.tests.compiler.ScriptFolderTests;
 import org.eclipse.jdt.core.groovy.tests.locations.ASTConverterTests;
 import org.eclipse.jdt.core.groovy.tests.locations.ASTNodeSourceLocationsTests;
@@ -70,8 +75,13 @@ public class GroovyJDTTests {
         suite.addTest(GenericsTests.suite());
         suite.addTest(GroovySimpleTest.suite());
         suite.addTest(GroovySimpleTests_Compliance_1_8.suite());
+        suite.addTest(GlobalTransformNamesCacheTests.suite());
+        suite.addTest(GroovyBuildStateTests.suite());
+        suite.addTest(GroovyParseCacheTests.suite());
+        suite.addTest(IncrementalReconcileTests.suite());
         suite.addTest(ScriptFolderTests.suite());
         suite.addTest(STCScriptsTests.suite());
+        suite.addTest(SourceUnitOrderTests.suite());
         if (org.eclipse.jdt.core.tests.util.GroovyUtils.isAtLeastGroovy(23))
             suite.addTest(TraitsTests.suite());
         suite.addTest(TransformationsTests.suite());
@@ -34,6 +34,7 @@ public class AllDSLTests {
             suite.addTest(MetaDSLInferencingTests.suite());
             suite.addTest(PointcutCreationTests.suite());
             suite.addTest(PointcutEvaluationTests.suite());
+            suite.addTest(ResourceTypeCheckerTests.suite());
             suite.addTestSuite(StringObjectVectorTests.class);
         }
         return suite;
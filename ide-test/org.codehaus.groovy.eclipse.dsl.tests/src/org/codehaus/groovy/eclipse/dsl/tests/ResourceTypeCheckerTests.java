@@ -0,0 +1,124 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.dsl.tests;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.codehaus.groovy.ast.ASTNode;
+import org.codehaus.groovy.eclipse.dsl.checker.IStaticCheckerHandler;
+import org.codehaus.groovy.eclipse.dsl.checker.ResourceTypeChecker;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.jdt.core.groovy.tests.search.AbstractGroovySearchTest;
+import org.eclipse.jdt.groovy.core.util.ReflectionUtils;
+import org.eclipse.jdt.groovy.search.TypeInferencingWorkers;
+import org.eclipse.jface.text.Position;
+import org.eclipse.swt.widgets.Shell;
+
+/**
+ * Checks that the static checker reports the same problems, in the same order, whether the files are checked on the
+ * {@link TypeInferencingWorkers} or one after the other.
+ */
+public class ResourceTypeCheckerTests extends AbstractGroovySearchTest {
+
+    public static Test suite() {
+        return new TestSuite(ResourceTypeCheckerTests.class);
+    }
+
+    public ResourceTypeCheckerTests(String name) {
+        super(name);
+    }
+
+    private static final int UNITS = 12;
+
+    private Object threads;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        threads = ReflectionUtils.throwableGetPrivateField(TypeInferencingWorkers.class, "THREADS", null);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        ReflectionUtils.setPrivateField(TypeInferencingWorkers.class, "THREADS", null, threads);
+        super.tearDown();
+    }
+
+    public void testProblemsOfSeveralUnits() throws Exception {
+        for (int i = 0; i < UNITS; i += 1) {
+            StringBuilder contents = new StringBuilder();
+            contents.append("package p").append(i % 3).append('\n');
+            contents.append("def obj = new Object()\n");
+            for (int j = 0; j <= i % 4; j += 1) {
+                contents.append("obj.missing").append(j).append('\n');
+            }
+            contents.append("'x' // TYPE:java.lang.Integer\n");
+            createUnit("p" + (i % 3), "Checked" + i, contents.toString());
+        }
+        fullBuild(project.getFullPath());
+
+        List<String> serial = check(0);
+        assertTrue(serial.toString(), serial.size() >= 2 * UNITS);
+        // fewer workers than units, so that some units wait for a worker
+        assertEquals(serial, check(4));
+    }
+
+    //--------------------------------------------------------------------------
+
+    private List<String> check(int workers) throws Exception {
+        ReflectionUtils.setPrivateField(TypeInferencingWorkers.class, "THREADS", null, workers);
+        assertEquals(workers > 1, TypeInferencingWorkers.isEnabled());
+
+        ProblemRecorder handler = new ProblemRecorder();
+        new ResourceTypeChecker(handler, Collections.<IResource>singletonList(project), null, null, false).doCheck(null);
+        return handler.problems;
+    }
+
+    private static class ProblemRecorder implements IStaticCheckerHandler {
+        final List<String> problems = new ArrayList<String>();
+        private IFile resource;
+
+        public void handleUnknownReference(ASTNode node, Position position, int line) {
+            problems.add(resource.getFullPath() + ":" + line + " @" + position.getOffset() + " unknown " + node.getText());
+        }
+
+        public void handleTypeAssertionFailed(ASTNode node, String expectedType, String actualType, Position position, int line) {
+            problems.add(resource.getFullPath() + ":" + line + " @" + position.getOffset() + " expected " + expectedType + " but was " +
+                actualType);
+        }
+
+        public void setResource(IFile resource) {
+            this.resource = resource;
+        }
+
+        public int numProblemsFound() {
+            return problems.size();
+        }
+
+        public void handleResourceStart(IResource resource) {
+        }
+
+        public boolean finish(Shell shell) {
+            return problems.isEmpty();
+        }
+    }
+}
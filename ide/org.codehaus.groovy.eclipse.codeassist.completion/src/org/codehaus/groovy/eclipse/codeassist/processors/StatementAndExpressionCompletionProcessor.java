@@ -334,7 +334,12 @@ public class StatementAndExpressionCompletionProcessor extends AbstractGroovyCom
 
         // if completion node is null, then it is likely because of a syntax error
         if (completionNode != null) {
-            visitor.visitCompilationUnit(requestor);
+            if (context.containingDeclaration != null && context.containingDeclaration.getStart() > 0) {
+                // only the declaration that contains the completion node needs to be visited
+                visitor.visitCompilationUnit(requestor, context.containingDeclaration.getStart());
+            } else {
+                visitor.visitCompilationUnit(requestor);
+            }
         }
         ClassNode completionType;
         boolean isStatic;
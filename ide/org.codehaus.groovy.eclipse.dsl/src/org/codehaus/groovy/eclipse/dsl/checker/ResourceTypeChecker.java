@@ -15,12 +15,17 @@
  */
 package org.codehaus.groovy.eclipse.dsl.checker;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
+import org.codehaus.groovy.ast.ASTNode;
 import org.codehaus.groovy.ast.Comment;
 import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
 import org.codehaus.jdt.groovy.model.GroovyNature;
@@ -37,7 +42,10 @@ import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.groovy.core.util.ContentTypeUtils;
 import org.eclipse.jdt.groovy.search.TypeInferencingVisitorFactory;
 import org.eclipse.jdt.groovy.search.TypeInferencingVisitorWithRequestor;
+import org.eclipse.jdt.groovy.search.TypeInferencingWorkers;
 import org.eclipse.jdt.internal.core.util.Util;
+import org.eclipse.jface.text.Position;
+import org.eclipse.swt.widgets.Shell;
 
 /**
  * Performs static checking on all groovy files contained in the resource passed in
@@ -49,8 +57,14 @@ public class ResourceTypeChecker {
     class CheckerVisitor implements IResourceVisitor {
         private IProgressMonitor monitor;
 
+        /**
+         * Units waiting to be checked on the inferencing workers; null if units are checked as they are found
+         */
+        private final List<GroovyCompilationUnit> pending;
+
         CheckerVisitor(IProgressMonitor monitor) {
             this.monitor = monitor;
+            this.pending = TypeInferencingWorkers.isEnabled() ? new ArrayList<GroovyCompilationUnit>() : null;
         }
 
         public boolean visit(IResource resource) throws CoreException {
@@ -70,20 +84,95 @@ public class ResourceTypeChecker {
                     if (monitor.isCanceled()) {
                         throw new OperationCanceledException();
                     }
+                    if (pending != null) {
+                        pending.add(unit);
+                        return true;
+                    }
                     monitor.subTask(resource.getName());
                     handler.setResource((IFile) resource);
-                    Map<Integer, String> commentsMap = findComments(unit);
-                    StaticTypeCheckerRequestor requestor = new StaticTypeCheckerRequestor(handler, commentsMap, onlyAssertions);
-                    TypeInferencingVisitorWithRequestor visitor = new TypeInferencingVisitorFactory().createVisitor(unit);
+                    check(unit, handler, monitor);
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Checks the units collected while visiting on the inferencing workers. The problems of each unit are passed on to the
+         * handler in the order the units were found, just like when they are checked one after the other.
+         */
+        void checkPending() throws CoreException {
+            if (pending.size() < TypeInferencingWorkers.THRESHOLD) {
+                for (GroovyCompilationUnit unit : pending) {
+                    if (monitor.isCanceled()) {
+                        throw new OperationCanceledException();
+                    }
+                    monitor.subTask(unit.getElementName());
+                    handler.setResource((IFile) unit.getResource());
+                    check(unit, handler, monitor);
+                }
+                pending.clear();
+                return;
+            }
+
+            List<Callable<ProblemCollector>> tasks = new ArrayList<Callable<ProblemCollector>>(pending.size());
+            for (final GroovyCompilationUnit unit : pending) {
+                tasks.add(new Callable<ProblemCollector>() {
+                    public ProblemCollector call() throws CoreException {
+                        ProblemCollector collector = new ProblemCollector();
+                        if (!monitor.isCanceled()) {
+                            // the progress monitor belongs to the calling thread
+                            check(unit, collector, null);
+                        }
+                        return collector;
+                    }
+                });
+            }
+            List<Future<ProblemCollector>> futures = TypeInferencingWorkers.submitAll(tasks);
+            try {
+                for (int i = 0, n = futures.size(); i < n; i += 1) {
+                    if (monitor.isCanceled()) {
+                        throw new OperationCanceledException();
+                    }
+                    GroovyCompilationUnit unit = pending.get(i);
+                    monitor.subTask(unit.getElementName());
+                    ProblemCollector problems;
                     try {
-                        unit.becomeWorkingCopy(monitor);
-                        visitor.visitCompilationUnit(requestor);
-                    } finally {
-                        unit.discardWorkingCopy();
+                        problems = futures.get(i).get();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new OperationCanceledException();
+                    } catch (ExecutionException e) {
+                        Throwable cause = e.getCause();
+                        if (cause instanceof CoreException) {
+                            throw (CoreException) cause;
+                        } else if (cause instanceof RuntimeException) {
+                            throw (RuntimeException) cause;
+                        } else {
+                            throw (Error) cause;
+                        }
                     }
+                    handler.setResource((IFile) unit.getResource());
+                    problems.replay(handler);
+                }
+            } finally {
+                for (Future<ProblemCollector> future : futures) {
+                    future.cancel(false);
                 }
+                pending.clear();
+            }
+        }
+
+        private void check(GroovyCompilationUnit unit, IStaticCheckerHandler problemHandler, IProgressMonitor monitor)
+                throws CoreException {
+            Map<Integer, String> commentsMap = findComments(unit);
+            StaticTypeCheckerRequestor requestor = new StaticTypeCheckerRequestor(problemHandler, commentsMap, onlyAssertions);
+            TypeInferencingVisitorWithRequestor visitor = new TypeInferencingVisitorFactory().createVisitor(unit);
+            try {
+                unit.becomeWorkingCopy(monitor);
+                visitor.visitCompilationUnit(requestor);
+            } finally {
+                unit.discardWorkingCopy();
             }
-            return true;
         }
 
         private Map<Integer, String> findComments(GroovyCompilationUnit unit) {
@@ -123,6 +212,61 @@ public class ResourceTypeChecker {
         }
     }
     
+    /**
+     * Holds on to the problems found in a unit that is checked on an inferencing worker.
+     */
+    private static class ProblemCollector implements IStaticCheckerHandler {
+        private static class Problem {
+            final ASTNode node;
+            final Position position;
+            final int line;
+            final String expectedType, actualType; // null for unknown references
+
+            Problem(ASTNode node, Position position, int line, String expectedType, String actualType) {
+                this.node = node;
+                this.position = position;
+                this.line = line;
+                this.expectedType = expectedType;
+                this.actualType = actualType;
+            }
+        }
+
+        private final List<Problem> problems = new ArrayList<Problem>();
+
+        public void handleUnknownReference(ASTNode node, Position position, int line) {
+            problems.add(new Problem(node, position, line, null, null));
+        }
+
+        public void handleTypeAssertionFailed(ASTNode node, String expectedType, String actualType, Position position, int line) {
+            problems.add(new Problem(node, position, line, expectedType, actualType));
+        }
+
+        void replay(IStaticCheckerHandler handler) {
+            for (Problem problem : problems) {
+                if (problem.expectedType == null) {
+                    handler.handleUnknownReference(problem.node, problem.position, problem.line);
+                } else {
+                    handler.handleTypeAssertionFailed(problem.node, problem.expectedType, problem.actualType, problem.position,
+                            problem.line);
+                }
+            }
+        }
+
+        public void setResource(IFile resource) {
+        }
+
+        public int numProblemsFound() {
+            return problems.size();
+        }
+
+        public void handleResourceStart(IResource resource) {
+        }
+
+        public boolean finish(Shell shell) {
+            return problems.isEmpty();
+        }
+    }
+
     private final IStaticCheckerHandler handler;
     private final List<IResource> resources;
 
@@ -167,6 +311,9 @@ public class ResourceTypeChecker {
             }
             CheckerVisitor visitor = new CheckerVisitor(monitor);
             resource.accept(visitor);
+            if (visitor.pending != null) {
+                visitor.checkPending();
+            }
             monitor.worked(1);
         }
         return handler.finish(null);
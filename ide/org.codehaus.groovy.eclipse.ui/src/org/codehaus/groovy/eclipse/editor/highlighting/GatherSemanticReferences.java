@@ -43,6 +43,8 @@ public class GatherSemanticReferences {
             try { // TODO: Time this tasks components and find opportunities to make it run faster.
                 SemanticHighlightingReferenceRequestor requestor = new SemanticHighlightingReferenceRequestor(unit);
                 TypeInferencingVisitorWithRequestor visitor = factory.createVisitor(unit);
+                // nodes past the limit are left with their syntax coloring
+                visitor.setBudget(TypeInferencingVisitorWithRequestor.RECONCILE_TIME_LIMIT, 0);
                 visitor.visitCompilationUnit(requestor);
                 return requestor.typedPosition;
             } catch (Exception e) {
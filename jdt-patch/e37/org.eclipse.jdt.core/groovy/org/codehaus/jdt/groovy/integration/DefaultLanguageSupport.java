@@ -12,6 +12,7 @@
 package org.codehaus.jdt.groovy.integration;
 
 import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.WorkingCopyOwner;
@@ -100,8 +101,12 @@ class DefaultLanguageSupport implements LanguageSupport {
 		return false;
 	}
 
+	public void prepareDelegatedSearch(PossibleMatch[] possibleMatches, int start, int length, SearchPattern pattern,
+			IProgressMonitor monitor) {
+	}
+
 	public boolean maybePerformDelegatedSearch(PossibleMatch possibleMatch, SearchPattern pattern,
-			SearchRequestor requestor) {
+			SearchRequestor requestor, IProgressMonitor monitor) {
 		return false;
 	}
 
@@ -802,12 +802,10 @@ public class BinaryIndexer extends AbstractIndexer implements SuffixConstants {
 				for (Iterator iterator = references.iterator(); iterator.hasNext();) {
 					char[] reference = (char[]) iterator.next();
 					addNameReference(reference);
-					addMethodReference(reference, 0);
-					addMethodReference(reference, 1);
-					addMethodReference(reference, 2);
-					addMethodReference(reference, 3);
-					addMethodReference(reference, 4);
-					addMethodReference(reference, 5);
+					addMethodReference(reference, org.eclipse.jdt.internal.core.search.matching.MethodPattern.GROOVY_ANY_ARITY);
+				}
+				if (!references.isEmpty()) {
+					addIndexEntry(org.eclipse.jdt.internal.core.search.matching.MethodPattern.GROOVY_INDEXED, org.eclipse.jdt.internal.core.search.matching.MethodPattern.GROOVY_INDEXED);
 				}
 			}
 			// GROOVY end
@@ -12,6 +12,7 @@
 package org.codehaus.jdt.groovy.integration;
 
 import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.JavaCore;
@@ -96,8 +97,12 @@ public class LanguageSupportFactory {
 		return getLanguageSupport().isInterestingSourceFile(fileName);
 	}
 	
-	public static boolean maybePerformDelegatedSearch(PossibleMatch possibleMatch, SearchPattern pattern, SearchRequestor requestor) {
-		return getLanguageSupport().maybePerformDelegatedSearch(possibleMatch, pattern, requestor);
+	public static void prepareDelegatedSearch(PossibleMatch[] possibleMatches, int start, int length, SearchPattern pattern, IProgressMonitor monitor) {
+		getLanguageSupport().prepareDelegatedSearch(possibleMatches, start, length, pattern, monitor);
+	}
+
+	public static boolean maybePerformDelegatedSearch(PossibleMatch possibleMatch, SearchPattern pattern, SearchRequestor requestor, IProgressMonitor monitor) {
+		return getLanguageSupport().maybePerformDelegatedSearch(possibleMatch, pattern, requestor, monitor);
 	}
 	
 	/**
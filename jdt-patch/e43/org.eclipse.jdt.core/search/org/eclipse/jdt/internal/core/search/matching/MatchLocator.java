@@ -1073,6 +1073,9 @@ protected void locateMatches(JavaProject javaProject, PossibleMatch[] possibleMa
 	// GROOVY start
 	boolean isInterestingProject = LanguageSupportFactory.isInterestingProject(javaProject.getProject());
 	Set alreadyMatched = new HashSet();
+	if (isInterestingProject) {
+		LanguageSupportFactory.prepareDelegatedSearch(possibleMatches, start, length, this.pattern, this.progressMonitor);
+	}
 	// GROOVY end
 
 	
@@ -1086,7 +1089,7 @@ protected void locateMatches(JavaProject javaProject, PossibleMatch[] possibleMa
 			PossibleMatch possibleMatch = possibleMatches[i];
 			// GROOVY start
 			if (isInterestingProject && possibleMatch.isInterestingSourceFile()) {
-				boolean matchPerformed = LanguageSupportFactory.maybePerformDelegatedSearch(possibleMatch, this.pattern, this.requestor);
+				boolean matchPerformed = LanguageSupportFactory.maybePerformDelegatedSearch(possibleMatch, this.pattern, this.requestor, this.progressMonitor);
 				if (matchPerformed) {
 					alreadyMatched.add(possibleMatch);
 				}
@@ -1214,7 +1217,17 @@ protected void locateMatches(JavaProject javaProject, PossibleMatchSet matchSet,
 	// locate matches (processed matches are limited to avoid problem while using VM default memory heap size)
 	for (int index = 0; index < length;) {
 		int max = Math.min(MAX_AT_ONCE, length - index);
-		locateMatches(javaProject, possibleMatches, index, max);
+		// GROOVY edit
+		//locateMatches(javaProject, possibleMatches, index, max);
+		try {
+			locateMatches(javaProject, possibleMatches, index, max);
+		} finally {
+			// stop the delegated searches of the batch that were started ahead of time and not performed, for instance because the search was canceled
+			for (int i = index, n = index + max; i < n; i++) {
+				possibleMatches[i].closePreparedDelegatedSearch();
+			}
+		}
+		// GROOVY end
 		index += max;
 	}
 	this.patternLocator.clear();
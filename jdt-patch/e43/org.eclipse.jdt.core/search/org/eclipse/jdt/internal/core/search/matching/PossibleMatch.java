@@ -35,6 +35,10 @@ public SearchDocument document;
 private String sourceFileName;
 private char[] source;
 private PossibleMatch similarMatch;
+// GROOVY add
+/** the delegated search started ahead of time, see LanguageSupport.prepareDelegatedSearch */
+public Object preparedDelegatedSearch;
+// GROOVY end
 
 public PossibleMatch(MatchLocator locator, IResource resource, Openable openable, SearchDocument document, boolean mustResolve) {
 	this.resource = resource;
@@ -52,7 +56,26 @@ public void cleanUp() {
 		this.parsedUnit = null;
 	}
 	this.nodeSet = null;
+	// GROOVY add
+	closePreparedDelegatedSearch();
+	// GROOVY end
 }
+// GROOVY add
+/**
+ * Stops the delegated search that was started ahead of time, unless it has been performed, so that it does not
+ * wait for the search thread any longer.
+ */
+public void closePreparedDelegatedSearch() {
+	if (this.preparedDelegatedSearch instanceof java.io.Closeable) {
+		try {
+			((java.io.Closeable) this.preparedDelegatedSearch).close();
+		} catch (java.io.IOException e) {
+			// nothing to stop
+		}
+		this.preparedDelegatedSearch = null;
+	}
+}
+// GROOVY end
 public boolean equals(Object obj) {
 	if (this.compoundName == null) return super.equals(obj);
 	if (!(obj instanceof PossibleMatch)) return false;
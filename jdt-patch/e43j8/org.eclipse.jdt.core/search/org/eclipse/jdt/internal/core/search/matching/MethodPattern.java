@@ -1,3 +1,4 @@
+// GROOVY PATCHED
 /*******************************************************************************
  * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
@@ -52,6 +53,19 @@ protected static char[][] REF_CATEGORIES = { METHOD_REF };
 protected static char[][] REF_AND_DECL_CATEGORIES = { METHOD_REF, METHOD_DECL };
 protected static char[][] DECL_CATEGORIES = { METHOD_DECL };
 
+// GROOVY add
+/**
+ * Arity of the method references that the supplemental indexer records for names found in Groovy class files;
+ * the arity of a dynamic call is not known, so these references match any arity.
+ */
+public static final int GROOVY_ANY_ARITY = 999;
+/**
+ * Category and key of the entry that the indexer adds for a document with GROOVY_ANY_ARITY references,
+ * so that indexes without such documents are not queried for them.
+ */
+public static final char[] GROOVY_INDEXED = "groovyIndexed".toCharArray(); //$NON-NLS-1$
+// GROOVY end
+
 public final static int FINE_GRAIN_MASK =
 	IJavaSearchConstants.SUPER_REFERENCE |
 	IJavaSearchConstants.QUALIFIED_REFERENCE |
@@ -296,7 +310,10 @@ public boolean isPolymorphicSearch() {
 public boolean matchesDecodedKey(SearchPattern decodedPattern) {
 	MethodPattern pattern = (MethodPattern) decodedPattern;
 
-	return (this.parameterCount == pattern.parameterCount || this.parameterCount == -1 || this.varargs)
+	// GROOVY edit
+	//return (this.parameterCount == pattern.parameterCount || this.parameterCount == -1 || this.varargs)
+	return (this.parameterCount == pattern.parameterCount || this.parameterCount == -1 || this.varargs || pattern.parameterCount == GROOVY_ANY_ARITY)
+	// GROOVY end
 		&& matchesName(this.selector, pattern.selector);
 }
 /**
@@ -350,8 +367,33 @@ public EntryResult[] queryIn(Index index) throws IOException {
 			break;
 	}
 
-	return index.query(getIndexCategories(), key, matchRule); // match rule is irrelevant when the key is null
+	// GROOVY edit
+	//return index.query(getIndexCategories(), key, matchRule); // match rule is irrelevant when the key is null
+	EntryResult[] results = index.query(getIndexCategories(), key, matchRule); // match rule is irrelevant when the key is null
+	if (this.findReferences && this.parameterCount >= 0 && !this.varargs &&
+			(getMatchMode() == R_EXACT_MATCH ? this.selector != null : getMatchMode() == R_PATTERN_MATCH) &&
+			hasGroovyIndexedDocuments(index)) {
+		// the key named an arity, so also look for the references that match any arity
+		key = createIndexKey(this.selector == null ? ONE_STAR : this.selector, GROOVY_ANY_ARITY);
+		EntryResult[] anyArityResults = index.query(REF_CATEGORIES, key, matchRule);
+		if (results == null) {
+			results = anyArityResults;
+		} else if (anyArityResults != null) {
+			EntryResult[] allResults = new EntryResult[results.length + anyArityResults.length];
+			System.arraycopy(results, 0, allResults, 0, results.length);
+			System.arraycopy(anyArityResults, 0, allResults, results.length, anyArityResults.length);
+			results = allResults;
+		}
+	}
+	return results;
+	// GROOVY end
+}
+// GROOVY add
+private static boolean hasGroovyIndexedDocuments(Index index) throws IOException {
+	EntryResult[] entries = index.query(new char[][] {GROOVY_INDEXED}, GROOVY_INDEXED, R_EXACT_MATCH | R_CASE_SENSITIVE);
+	return entries != null && entries.length > 0;
 }
+// GROOVY end
 protected StringBuffer print(StringBuffer output) {
 	if (this.findDeclarations) {
 		output.append(this.findReferences
@@ -108,8 +108,12 @@ class DefaultLanguageSupport implements LanguageSupport {
 		return false;
 	}
 
+	public void prepareDelegatedSearch(PossibleMatch[] possibleMatches, int start, int length, SearchPattern pattern,
+			IProgressMonitor monitor) {
+	}
+
 	public boolean maybePerformDelegatedSearch(PossibleMatch possibleMatch, SearchPattern pattern,
-			SearchRequestor requestor) {
+			SearchRequestor requestor, IProgressMonitor monitor) {
 		return false;
 	}
 
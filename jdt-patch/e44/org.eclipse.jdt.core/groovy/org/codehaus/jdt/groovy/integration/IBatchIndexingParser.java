@@ -0,0 +1,34 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.jdt.groovy.integration;
+
+import org.eclipse.core.resources.IFile;
+
+/**
+ * Implemented by indexing parsers that can get a head start on the source files of a project before the index manager asks for
+ * them one at a time through <code>parseCompilationUnit</code>.
+ *
+ * @since 3.11
+ */
+public interface IBatchIndexingParser {
+
+	/**
+	 * Called by the project indexing job before the files are scheduled for indexing in order
+	 * @param files the files about to be indexed
+	 * @param count the number of valid entries in files
+	 */
+	void prepareToIndex(IFile[] files, int count);
+}
@@ -1,3 +1,4 @@
+// GROOVY PATCHED
 /*******************************************************************************
  * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
@@ -204,6 +205,17 @@ public class IndexAllProject extends IndexRequest {
 			SourceElementParser parser = this.manager.getSourceElementParser(javaProject, null/*requestor will be set by indexer*/);
 			Object[] names = indexedFileNames.keyTable;
 			Object[] values = indexedFileNames.valueTable;
+			// GROOVY add -- let the parser get a head start on the files of the project
+			if (parser instanceof org.codehaus.jdt.groovy.integration.IBatchIndexingParser) {
+				IFile[] files = new IFile[indexedFileNames.elementSize];
+				int count = 0;
+				for (int i = 0, namesLength = names.length; i < namesLength; i++) {
+					if (names[i] != null && values[i] != OK && values[i] != DELETED)
+						files[count++] = (IFile) values[i];
+				}
+				((org.codehaus.jdt.groovy.integration.IBatchIndexingParser) parser).prepareToIndex(files, count);
+			}
+			// GROOVY end
 			for (int i = 0, namesLength = names.length; i < namesLength; i++) {
 				String name = (String) names[i];
 				if (name != null) {
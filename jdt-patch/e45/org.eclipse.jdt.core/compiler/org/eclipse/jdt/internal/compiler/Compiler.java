@@ -14,6 +14,7 @@
 package org.eclipse.jdt.internal.compiler;
 // GROOVY PATCHED
 
+import org.codehaus.jdt.groovy.integration.IBatchParser;
 import org.codehaus.jdt.groovy.integration.LanguageSupportFactory;
 import org.eclipse.jdt.core.compiler.*;
 import org.eclipse.jdt.internal.compiler.env.*;
@@ -425,6 +426,51 @@ public class Compiler implements ITypeRequestor, ProblemSeverities {
 		}
 	}
 
+	// GROOVY start
+	/**
+	 * Moves the Java units ahead of the Groovy units and groups the Groovy units by folder (in other words, by package), so
+	 * that the types a Groovy unit most likely refers to are already known when it is processed. Units keep their relative
+	 * order within each group. This takes a single pass over the units plus a counting sort of the Groovy ones.
+	 */
+	private static void orderSourceUnits(ICompilationUnit[] sourceUnits) {
+		int unitCount = sourceUnits.length, javaCount = 0, groovyCount = 0;
+		ICompilationUnit[] groovyUnits = new ICompilationUnit[unitCount];
+		for (int u = 0; u < unitCount; u += 1) {
+			if (LanguageSupportFactory.isInterestingSourceFile(new String(sourceUnits[u].getFileName()))) {
+				groovyUnits[groovyCount++] = sourceUnits[u];
+			} else {
+				sourceUnits[javaCount++] = sourceUnits[u];
+			}
+		}
+		if (groovyCount == 0) return;
+
+		// number the folders in order of first appearance
+		HashtableOfObject folders = new HashtableOfObject();
+		int[] groupOf = new int[groovyCount], groupSize = new int[groovyCount];
+		int groupCount = 0;
+		for (int g = 0; g < groovyCount; g += 1) {
+			char[] fileName = groovyUnits[g].getFileName();
+			int separator = Math.max(CharOperation.lastIndexOf('/', fileName), CharOperation.lastIndexOf('\\', fileName));
+			char[] folder = (separator < 0 ? CharOperation.NO_CHAR : CharOperation.subarray(fileName, 0, separator));
+			int[] group = (int[]) folders.get(folder);
+			if (group == null) {
+				group = new int[] {groupCount++};
+				folders.put(folder, group);
+			}
+			groupOf[g] = group[0];
+			groupSize[group[0]] += 1;
+		}
+		int[] groupStart = new int[groupCount];
+		for (int i = 0, next = javaCount; i < groupCount; i += 1) {
+			groupStart[i] = next;
+			next += groupSize[i];
+		}
+		for (int g = 0; g < groovyCount; g += 1) {
+			sourceUnits[groupStart[groupOf[g]]++] = groovyUnits[g];
+		}
+	}
+	// GROOVY end
+
 	/**
 	 * General API
 	 * -> compile each of supplied files
@@ -433,44 +479,9 @@ public class Compiler implements ITypeRequestor, ProblemSeverities {
 	public void compile(ICompilationUnit[] sourceUnits) {
 		this.stats.startTime = System.currentTimeMillis();
 		// GROOVY start
-		// sort the sourceUnits - java first! might be temporary, hmmm
-		if (this.options.buildGroovyFiles==2) {
-			int groovyFileIndex = -1;
-//			System.out.println("before");
-//			for (int u=0,max=sourceUnits.length;u<max;u++) {
-//				System.out.println(sourceUnits[u].getFileName());
-//			}
-			for (int u=0,max=sourceUnits.length;u<max;u++) {
-				char[] fn = sourceUnits[u].getFileName();
-				boolean isDotJava = fn[fn.length-1]=='a'; // a means .java
-				if (isDotJava) {
-					if (groovyFileIndex!=-1) {
-						// swap them!
-						ICompilationUnit swap = sourceUnits[groovyFileIndex];
-						sourceUnits[groovyFileIndex] = sourceUnits[u];
-						sourceUnits[u] = swap;
-						// find the next .groovy file after the groovyFileIndex (worst case it will be 'u')
-						int newGroovyFileIndex = -1;
-						for (int g=groovyFileIndex;g<=u;g++) {
-							char[] fn2 = sourceUnits[g].getFileName();
-							boolean isDotGroovy = fn2[fn2.length-1]=='y';
-							if (isDotGroovy) {
-								newGroovyFileIndex = g;
-								break;
-							}
-						}
-						groovyFileIndex = newGroovyFileIndex;
-					}
-				} else {
-					if (groovyFileIndex==-1) {
-						groovyFileIndex = u;
-					}
-				}
-			}
-//			System.out.println("after");
-//			for (int u=0,max=sourceUnits.length;u<max;u++) {
-//				System.out.println(sourceUnits[u].getFileName());
-//			}
+		// sort the sourceUnits - java first, then groovy grouped by folder
+		if (this.options.buildGroovyFiles == 2) {
+			orderSourceUnits(sourceUnits);
 		}
 		// GROOVY end
 		CompilationUnitDeclaration unit = null;
@@ -844,6 +855,10 @@ public class Compiler implements ITypeRequestor, ProblemSeverities {
 	protected void internalBeginToCompile(ICompilationUnit[] sourceUnits, int maxUnits) {
 		if (!this.useSingleThread && maxUnits >= ReadManager.THRESHOLD)
 			this.parser.readManager = new ReadManager(sourceUnits, maxUnits);
+		// GROOVY add -- let the parser get a head start on the whole batch
+		if (!this.useSingleThread && this.parser instanceof IBatchParser)
+			((IBatchParser) this.parser).prepareToParse(sourceUnits, maxUnits);
+		// GROOVY end
 
 		// Switch the current policy and compilation result for this unit to the requested one.
 		for (int i = 0; i < maxUnits; i++) {
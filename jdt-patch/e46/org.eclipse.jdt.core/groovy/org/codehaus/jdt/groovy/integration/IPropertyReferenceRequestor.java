@@ -0,0 +1,41 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.jdt.groovy.integration;
+
+/**
+ * Implemented by source element requestors that keep the Groovy-specific index of the property names a source file refers to,
+ * whether by name, through an accessor, as a named argument or from inside a GString.
+ *
+ * @since 3.11
+ */
+public interface IPropertyReferenceRequestor {
+
+	/**
+	 * Index category of the property names referred to by Groovy source files
+	 */
+	char[] PROPERTY_REF = "groovyPropertyRef".toCharArray(); //$NON-NLS-1$
+
+	/**
+	 * Key that every Groovy source file indexed into {@link #PROPERTY_REF} has, which tells
+	 * files that have no references apart from files that were indexed without the category
+	 */
+	char[] INDEXED = "#".toCharArray(); //$NON-NLS-1$
+
+	/**
+	 * @param propertyName a property name, or {@link #INDEXED}
+	 */
+	void acceptPropertyReference(char[] propertyName);
+}
@@ -101,6 +101,18 @@ public interface LanguageSupport {
 	 */
 	boolean isInterestingSourceFile(String fileName);
 
+	/**
+	 * Called before the possible matches of a batch are located one at a time, so that the
+	 * delegated searches can get a head start.  The results are still reported through
+	 * {@link #maybePerformDelegatedSearch(PossibleMatch, SearchPattern, SearchRequestor, IProgressMonitor)}.
+	 * @param possibleMatches the possible matches to locate
+	 * @param start the index of the first possible match of the batch
+	 * @param length the number of possible matches in the batch
+	 * @param pattern
+	 * @param monitor the progress monitor of the search, may be null
+	 */
+	void prepareDelegatedSearch(PossibleMatch[] possibleMatches, int start, int length, SearchPattern pattern, IProgressMonitor monitor);
+
 	/**
 	 * Maybe perform a search for the possible match using special language support.
 	 * Returns true if the search was completed by the special language support. 
@@ -112,9 +124,10 @@ public interface LanguageSupport {
 	 * @param possibleMatch the possible match to look for
 	 * @param pattern
 	 * @param requestor the requestor to send any completed search results to 
+	 * @param monitor the progress monitor of the search, which is checked between matches, may be null
 	 * @return true iff the search was performed
 	 */
-	boolean maybePerformDelegatedSearch(PossibleMatch possibleMatch, SearchPattern pattern, SearchRequestor requestor);
+	boolean maybePerformDelegatedSearch(PossibleMatch possibleMatch, SearchPattern pattern, SearchRequestor requestor, IProgressMonitor monitor);
 
 	EventHandler getEventHandler();
 
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2009-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.jdt.groovy.integration;
+
+import org.eclipse.jdt.internal.compiler.env.ICompilationUnit;
+
+/**
+ * Implemented by parsers that can get a head start on a batch of compilation units before the compiler asks for them one at a
+ * time through <code>dietParse</code>.
+ *
+ * @since 3.11
+ */
+public interface IBatchParser {
+
+	/**
+	 * Called by the compiler before the units are diet parsed in order
+	 * @param sourceUnits the units about to be parsed
+	 * @param count the number of valid entries in sourceUnits
+	 */
+	void prepareToParse(ICompilationUnit[] sourceUnits, int count);
+}
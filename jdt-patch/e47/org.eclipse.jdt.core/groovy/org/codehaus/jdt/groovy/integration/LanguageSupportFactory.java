@@ -110,8 +110,12 @@ public class LanguageSupportFactory {
 		return getLanguageSupport().isInterestingSourceFile(fileName);
 	}
 
-	public static boolean maybePerformDelegatedSearch(PossibleMatch possibleMatch, SearchPattern pattern, SearchRequestor requestor) {
-		return getLanguageSupport().maybePerformDelegatedSearch(possibleMatch, pattern, requestor);
+	public static void prepareDelegatedSearch(PossibleMatch[] possibleMatches, int start, int length, SearchPattern pattern, IProgressMonitor monitor) {
+		getLanguageSupport().prepareDelegatedSearch(possibleMatches, start, length, pattern, monitor);
+	}
+
+	public static boolean maybePerformDelegatedSearch(PossibleMatch possibleMatch, SearchPattern pattern, SearchRequestor requestor, IProgressMonitor monitor) {
+		return getLanguageSupport().maybePerformDelegatedSearch(possibleMatch, pattern, requestor, monitor);
 	}
 
 	/**
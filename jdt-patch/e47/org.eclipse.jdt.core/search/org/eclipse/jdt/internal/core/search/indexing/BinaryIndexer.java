@@ -818,14 +818,13 @@ public class BinaryIndexer extends AbstractIndexer implements SuffixConstants {
 			// TODO: would be nice to check for an "interesting project" here, but don't have access to that
 			char[] sourceFileName = reader.sourceFileName();
 			if (sourceFileName != null && LanguageSupportFactory.isInterestingSourceFile(String.valueOf(sourceFileName))) {
-				for (char[] reference : LanguageSupportFactory.getSupplementalIndexer().extractNamedReferences(contents, reader)) {
+				java.util.List<char[]> references = LanguageSupportFactory.getSupplementalIndexer().extractNamedReferences(contents, reader);
+				for (char[] reference : references) {
 					addNameReference(reference);
-					addMethodReference(reference, 0);
-					addMethodReference(reference, 1);
-					addMethodReference(reference, 2);
-					addMethodReference(reference, 3);
-					addMethodReference(reference, 4);
-					addMethodReference(reference, 5);
+					addMethodReference(reference, org.eclipse.jdt.internal.core.search.matching.MethodPattern.GROOVY_ANY_ARITY);
+				}
+				if (!references.isEmpty()) {
+					addIndexEntry(org.eclipse.jdt.internal.core.search.matching.MethodPattern.GROOVY_INDEXED, org.eclipse.jdt.internal.core.search.matching.MethodPattern.GROOVY_INDEXED);
 				}
 			}
 			// GROOVY end
@@ -1,3 +1,4 @@
+// GROOVY PATCHED
 /*******************************************************************************
  * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
@@ -27,7 +28,10 @@ import org.eclipse.jdt.internal.core.search.processing.JobManager;
  * This class is used by the JavaParserIndexer. When parsing the java file, the requestor
  * recognizes the java elements (methods, fields, ...) and add them to an index.
  */
-public class SourceIndexerRequestor implements ISourceElementRequestor, IIndexConstants {
+// GROOVY edit
+//public class SourceIndexerRequestor implements ISourceElementRequestor, IIndexConstants {
+public class SourceIndexerRequestor implements ISourceElementRequestor, IIndexConstants, org.codehaus.jdt.groovy.integration.IPropertyReferenceRequestor {
+// GROOVY end
 	SourceIndexer indexer;
 
 	char[] packageName = CharOperation.NO_CHAR;
@@ -134,6 +138,14 @@ public void acceptUnknownReference(char[][] name, int sourceStart, int sourceEnd
 public void acceptUnknownReference(char[] name, int sourcePosition) {
 	this.indexer.addNameReference(name);
 }
+// GROOVY add
+/**
+ * @see org.codehaus.jdt.groovy.integration.IPropertyReferenceRequestor#acceptPropertyReference(char[])
+ */
+public void acceptPropertyReference(char[] propertyName) {
+	this.indexer.addIndexEntry(PROPERTY_REF, propertyName);
+}
+// GROOVY end
 
 private void addDefaultConstructorIfNecessary(TypeInfo typeInfo) {
 	boolean hasConstructor = false;